@@ -1,7 +1,9 @@
 package com.spideman.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
@@ -9,17 +11,93 @@ import java.util.concurrent.Executor;
 
 @Configuration
 @EnableAsync
-public class AsyncConfig {
+public class AsyncConfig implements AsyncConfigurer {
     
     @Bean(name = "crawlerExecutor")
     public Executor crawlerExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(3);
+        // 核心线程数需覆盖全部爬虫源，否则并行爬取时多余的源会先进入队列排队
+        executor.setCorePoolSize(10);
         executor.setMaxPoolSize(10);
         executor.setQueueCapacity(100);
+        executor.setKeepAliveSeconds(60);
+        executor.setAllowCoreThreadTimeOut(true);
         executor.setThreadNamePrefix("Crawler-");
         executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy());
         executor.initialize();
         return executor;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 日报生成任务线程池：线程数少、队列有界，队列满时拒绝提交（任务直接标记失败）
+     */
+    @Bean(name = "reportJobExecutor")
+    public ThreadPoolTaskExecutor reportJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(20);
+        executor.setKeepAliveSeconds(60);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("ReportJob-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+    
+    /**
+     * AI 调用线程池：线程数即同时进行的模型调用上限
+     */
+    @Bean(name = "aiExecutor")
+    public Executor aiExecutor(@Value("${ai.max-concurrent-calls:4}") int maxConcurrentCalls) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrentCalls);
+        executor.setMaxPoolSize(maxConcurrentCalls);
+        executor.setQueueCapacity(200);
+        executor.setKeepAliveSeconds(60);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("AI-");
+        executor.initialize();
+        return executor;
+    }
+    
+    /**
+     * 流式总结线程池：与日报生成使用的 AI 线程池分开，长时间的流式输出不会占满日报分块调用的线程；
+     * 线程数即同时进行的流式总结上限，排队有界，队列满时拒绝（提示服务繁忙）
+     */
+    @Bean(name = "summaryStreamExecutor")
+    public Executor summaryStreamExecutor(@Value("${ai.stream.max-concurrent:4}") int maxConcurrentStreams) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrentStreams);
+        executor.setMaxPoolSize(maxConcurrentStreams);
+        executor.setQueueCapacity(20);
+        executor.setKeepAliveSeconds(60);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("AIStream-");
+        executor.initialize();
+        return executor;
+    }
+    
+    /**
+     * 批量翻译线程池：单线程且不排队，上一轮仍在执行时丢弃本次触发，避免占用默认的定时任务线程
+     */
+    @Bean(name = "translationExecutor")
+    public Executor translationExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("Translation-");
+        executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.DiscardPolicy());
+        executor.initialize();
+        return executor;
+    }
+    
+    /**
+     * 未指定线程池的 @Async 方法仍使用爬虫线程池
+     */
+    @Override
+    public Executor getAsyncExecutor() {
+        return crawlerExecutor();
+    }
+}
@@ -0,0 +1,94 @@
+package com.spideman.config;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.OkHttp3ClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 共享 HTTP 客户端
+ *
+ * 爬虫和 AI 服务共用同一个 OkHttpClient：连接池复用 keep-alive 连接，支持 HTTP/2，
+ * 透明处理 gzip，按主机名应用不同的超时设置。
+ */
+@Configuration
+@EnableConfigurationProperties(HttpClientProperties.class)
+@Slf4j
+public class HttpClientConfig {
+    
+    @Bean
+    public OkHttpClient okHttpClient(HttpClientProperties properties) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(properties.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(properties.getMaxRequestsPerHost());
+    
+        OkHttpClient client = new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(properties.getMaxIdleConnections(),
+                properties.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS))
+            .dispatcher(dispatcher)
+            .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .connectTimeout(properties.getConnectTimeout().toMillis(), TimeUnit.MILLISECONDS)
+            .readTimeout(properties.getReadTimeout().toMillis(), TimeUnit.MILLISECONDS)
+            .writeTimeout(properties.getWriteTimeout().toMillis(), TimeUnit.MILLISECONDS)
+            .addInterceptor(new HostTimeoutInterceptor(properties.getHosts()))
+            .build();
+        log.info("🔧 共享HTTP客户端初始化完成，连接超时: {}ms, 读取超时: {}ms, 单主机并发: {}, 按主机超时: {}",
+            properties.getConnectTimeout().toMillis(), properties.getReadTimeout().toMillis(),
+            properties.getMaxRequestsPerHost(), properties.getHosts().keySet());
+        return client;
+    }
+    
+    @Bean
+    public RestTemplate restTemplate(OkHttpClient okHttpClient) {
+        return new RestTemplate(new OkHttp3ClientHttpRequestFactory(okHttpClient));
+    }
+    
+    /**
+     * 按请求主机名覆盖连接/读取/写入超时
+     */
+    static class HostTimeoutInterceptor implements Interceptor {
+    
+        private final Map<String, HttpClientProperties.HostTimeouts> hosts;
+    
+        HostTimeoutInterceptor(Map<String, HttpClientProperties.HostTimeouts> hosts) {
+            this.hosts = hosts;
+        }
+    
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            HttpClientProperties.HostTimeouts timeouts = hosts.get(chain.request().url().host());
+            if (timeouts == null) {
+                return chain.proceed(chain.request());
+            }
+            Chain configured = chain;
+            if (timeouts.getConnectTimeout() != null) {
+                configured = configured.withConnectTimeout(millis(timeouts.getConnectTimeout()), TimeUnit.MILLISECONDS);
+            }
+            if (timeouts.getReadTimeout() != null) {
+                configured = configured.withReadTimeout(millis(timeouts.getReadTimeout()), TimeUnit.MILLISECONDS);
+            }
+            if (timeouts.getWriteTimeout() != null) {
+                configured = configured.withWriteTimeout(millis(timeouts.getWriteTimeout()), TimeUnit.MILLISECONDS);
+            }
+            return configured.proceed(configured.request());
+        }
+    
+        private static int millis(Duration duration) {
+            return (int) Math.min(Integer.MAX_VALUE, duration.toMillis());
+        }
+    }
+}
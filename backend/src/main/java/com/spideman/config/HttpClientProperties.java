@@ -0,0 +1,66 @@
+package com.spideman.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 共享 HTTP 客户端配置（http.client.*）
+ *
+ * 默认超时对所有主机生效，hosts 中按主机名覆盖，例如：
+ * http.client.hosts[dashscope.aliyuncs.com].read-timeout=120s
+ */
+@Data
+@ConfigurationProperties(prefix = "http.client")
+public class HttpClientProperties {
+    
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    
+    private Duration readTimeout = Duration.ofSeconds(15);
+    
+    private Duration writeTimeout = Duration.ofSeconds(15);
+    
+    /**
+     * 连接池最大空闲连接数
+     */
+    private int maxIdleConnections = 20;
+    
+    /**
+     * 空闲连接保活时间
+     */
+    private Duration keepAlive = Duration.ofMinutes(5);
+    
+    /**
+     * 异步请求的全局并发上限
+     */
+    private int maxRequests = 64;
+    
+    /**
+     * 异步请求的单主机并发上限
+     */
+    private int maxRequestsPerHost = 16;
+    
+    /**
+     * 按主机名覆盖的超时设置
+     */
+    private Map<String, HostTimeouts> hosts = defaultHosts();
+    
+    @Data
+    public static class HostTimeouts {
+        private Duration connectTimeout;
+        private Duration readTimeout;
+        private Duration writeTimeout;
+    }
+    
+    private static Map<String, HostTimeouts> defaultHosts() {
+        // 大模型生成耗时较长
+        HostTimeouts dashscope = new HostTimeouts();
+        dashscope.setReadTimeout(Duration.ofSeconds(120));
+        Map<String, HostTimeouts> hosts = new LinkedHashMap<>();
+        hosts.put("dashscope.aliyuncs.com", dashscope);
+        return hosts;
+    }
+}
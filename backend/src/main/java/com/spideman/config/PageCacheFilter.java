@@ -0,0 +1,124 @@
+package com.spideman.config;
+
+import com.spideman.entity.VisitRecord;
+import com.spideman.service.DailyReportService;
+import com.spideman.service.VisitStatisticsService;
+import com.spideman.service.cache.RenderedPageCache;
+import com.spideman.service.cache.RenderedPageCache.CachedPage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 首页和日报详情页的渲染缓存过滤器
+ *
+ * 命中缓存时直接输出缓存的 HTML（或在 If-None-Match 匹配时返回 304），不再进入控制器；
+ * 访问统计和日报阅读数在这里照常记录。未命中时缓冲渲染结果，状态 200 的 HTML 写入缓存。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PageCacheFilter extends OncePerRequestFilter {
+    
+    private static final Pattern REPORT_PATH = Pattern.compile("/report/(\\d+)");
+    
+    private static final String CACHE_HEADER = "X-Page-Cache";
+    
+    private final RenderedPageCache pageCache;
+    private final VisitStatisticsService visitStatisticsService;
+    private final DailyReportService dailyReportService;
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !pageCache.isEnabled()
+            || !"GET".equals(request.getMethod())
+            || request.getQueryString() != null
+            || cacheKey(request) == null;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = cacheKey(request);
+        CachedPage page = pageCache.get(key);
+        if (page != null) {
+            recordVisit(request, key);
+            writeCached(request, response, page);
+            return;
+        }
+    
+        long generation = pageCache.generation();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+    
+        String contentType = wrapper.getContentType();
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK
+                && request.getAttribute(RenderedPageCache.SKIP_ATTRIBUTE) == null
+                && contentType != null && contentType.startsWith("text/html")) {
+            CachedPage stored = pageCache.put(key, contentType, wrapper.getContentAsByteArray(), generation);
+            if (stored != null) {
+                response.setHeader(HttpHeaders.ETAG, stored.getEtag());
+                response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+            }
+        }
+        response.setHeader(CACHE_HEADER, "MISS");
+        wrapper.copyBodyToResponse();
+    }
+    
+    private void writeCached(HttpServletRequest request, HttpServletResponse response, CachedPage page) throws IOException {
+        response.setHeader(HttpHeaders.ETAG, page.getEtag());
+        // 允许浏览器缓存，但每次使用前需要用 ETag 验证
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        response.setHeader(CACHE_HEADER, "HIT");
+        if (page.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            pageCache.recordNotModified();
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(page.getContentType());
+        response.setContentLength(page.getBody().length);
+        response.getOutputStream().write(page.getBody());
+    }
+    
+    /**
+     * 命中缓存时跳过了控制器，在这里补记访问统计和阅读数
+     */
+    private void recordVisit(HttpServletRequest request, String key) {
+        if (RenderedPageCache.HOME_KEY.equals(key)) {
+            visitStatisticsService.recordVisit(request, VisitRecord.PageType.HOME);
+            return;
+        }
+        visitStatisticsService.recordVisit(request, VisitRecord.PageType.REPORT_DETAIL);
+        Matcher matcher = REPORT_PATH.matcher(key);
+        if (matcher.matches()) {
+            dailyReportService.incrementReadCount(Long.valueOf(matcher.group(1)));
+        }
+    }
+    
+    /**
+     * 可缓存的路由：首页和日报详情页
+     */
+    private String cacheKey(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (RenderedPageCache.HOME_KEY.equals(path)) {
+            return RenderedPageCache.HOME_KEY;
+        }
+        Matcher matcher = REPORT_PATH.matcher(path);
+        if (matcher.matches() && matcher.group(1).length() < 19) {
+            return RenderedPageCache.reportKey(Long.valueOf(matcher.group(1)));
+        }
+        return null;
+    }
+}
@@ -1,7 +1,8 @@
 package com.spideman.config;
 
+import com.spideman.entity.ReportGenerationJob;
 import com.spideman.service.CrawlerService;
-import com.spideman.service.DailyReportService;
+import com.spideman.service.report.ReportJobService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -19,7 +20,7 @@ import java.time.LocalDate;
 public class ScheduleConfig {
     
     private final CrawlerService crawlerService;
-    private final DailyReportService dailyReportService;
+    private final ReportJobService reportJobService;
     
     /**
      * 每天凌晨6点执行：先爬取文章，然后生成当天日报
@@ -54,15 +55,15 @@ public class ScheduleConfig {
     }
     
     /**
-     * 爬取完成后生成今日日报
+     * 爬取完成后提交今日日报生成任务（与后台、接口共用任务队列，进度可在任务列表查看）
      */
     private void generateTodayReportAfterCrawl(LocalDate targetDate) {
         try {
-            log.info("📰 第二步：开始生成 {} 的技术日报...", targetDate);
+            log.info("📰 第二步：提交 {} 的技术日报生成任务...", targetDate);
             
-            dailyReportService.generateDailyReport(targetDate);
+            ReportGenerationJob job = reportJobService.submit(targetDate, "SCHEDULE");
             
-            log.info("✅ 定时任务完成：{} 的文章爬取和日报生成成功", targetDate);
+            log.info("✅ 定时任务完成：{} 的文章爬取完成，日报生成任务已提交 (任务ID: {})", targetDate, job.getId());
         } catch (Exception e) {
             log.error("❌ 生成 {} 的技术日报失败", targetDate, e);
         }
@@ -1,8 +1,10 @@
 package com.spideman.controller;
 
-import com.spideman.entity.Article;
+import com.spideman.dto.ArticleDTO;
+import com.spideman.dto.CursorPage;
 import com.spideman.entity.User;
 import com.spideman.entity.DailyReport;
+import com.spideman.entity.ReportGenerationJob;
 import com.spideman.entity.VisitStatistics;
 import com.spideman.service.AlibabaAIService;
 import com.spideman.service.ArticleService;
@@ -10,15 +12,22 @@ import com.spideman.service.CrawlerService;
 import com.spideman.service.UserService;
 import com.spideman.service.DailyReportService;
 import com.spideman.service.VisitStatisticsService;
+import com.spideman.service.ai.AiCallException;
+import com.spideman.service.ai.SummaryStreamService;
+import com.spideman.service.cache.RenderedPageCache;
+import com.spideman.service.ai.TranslationWorker;
+import com.spideman.service.report.ReportJobService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.HashMap;
@@ -43,6 +52,10 @@ public class AdminController {
     private final AlibabaAIService aiService;
     private final DailyReportService dailyReportService;
     private final VisitStatisticsService visitStatisticsService;
+    private final ReportJobService reportJobService;
+    private final TranslationWorker translationWorker;
+    private final SummaryStreamService summaryStreamService;
+    private final RenderedPageCache renderedPageCache;
     
     /**
      * 登录页面
@@ -148,7 +161,7 @@ public class AdminController {
             
             // 获取最新文章
             Pageable pageable = PageRequest.of(0, 5, Sort.by("createdAt").descending());
-            Page<Article> latestArticles = articleService.getArticles(pageable);
+            Page<ArticleDTO> latestArticles = articleService.getArticles(pageable);
             model.addAttribute("latestArticles", latestArticles.getContent());
             
             return "admin/dashboard";
@@ -168,22 +181,29 @@ public class AdminController {
                               @RequestParam(defaultValue = "20") int size,
                               @RequestParam(defaultValue = "") String search,
                               @RequestParam(defaultValue = "") String source,
+                              @RequestParam(required = false) String cursor,
                               Model model) {
         
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<Article> articles;
-        
         if (!search.isEmpty()) {
-            articles = articleService.searchArticles(search, pageable);
-        } else if (!source.isEmpty()) {
-            articles = articleService.getArticlesBySource(source, pageable);
+            // 搜索结果按相关度排序，使用页码分页
+            Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+            Page<ArticleDTO> articles = articleService.searchArticles(search, pageable);
+            model.addAttribute("articles", articles);
+            model.addAttribute("currentPage", page);
+            model.addAttribute("totalPages", articles.getTotalPages());
         } else {
-            articles = articleService.getArticles(pageable);
+            // 浏览列表使用游标分页（按发布时间倒序，不统计总数）
+            try {
+                model.addAttribute("articles", articleService.getArticleRowsAfter(cursor, size, source.isEmpty() ? null : source));
+            } catch (IllegalArgumentException e) {
+                log.warn("无效的分页游标: {}", cursor);
+                return "redirect:/spideAdmin/articles";
+            }
+            model.addAttribute("cursorMode", true);
+            model.addAttribute("firstPage", cursor == null || cursor.isEmpty());
         }
         
-        model.addAttribute("articles", articles);
-        model.addAttribute("currentPage", page);
-        model.addAttribute("totalPages", articles.getTotalPages());
+        model.addAttribute("size", size);
         model.addAttribute("search", search);
         model.addAttribute("source", source);
         model.addAttribute("sources", crawlerService.getAvailableCrawlers());
@@ -307,6 +327,9 @@ public class AdminController {
             result.put("originalTitle", title);
             result.put("translatedTitle", translatedTitle);
             
+        } catch (AiCallException e) {
+            result.put("success", false);
+            result.put("message", e.getMessage());
         } catch (Exception e) {
             log.error("翻译文章标题失败", e);
             result.put("success", false);
@@ -339,6 +362,9 @@ public class AdminController {
             result.put("url", article.getUrl());
             result.put("summary", summary);
             
+        } catch (AiCallException e) {
+            result.put("success", false);
+            result.put("message", e.getMessage());
         } catch (Exception e) {
             log.error("总结文章失败", e);
             result.put("success", false);
@@ -348,6 +374,53 @@ public class AdminController {
         return result;
     }
     
+    /**
+     * 流式总结文章内容（SSE，事件名 meta / delta / done / failed）
+     */
+    @GetMapping(value = "/articles/{id}/summarize/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter summarizeArticleStream(@PathVariable Long id) {
+        return summaryStreamService.summarize(id);
+    }
+    
+    /**
+     * AI 响应缓存命中统计及批量翻译任务状态
+     */
+    @GetMapping("/api/ai-cache")
+    @ResponseBody
+    public Map<String, Object> getAiCacheStatistics() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("cache", aiService.getCacheStatistics());
+        result.put("translation", translationWorker.getStatistics());
+        return result;
+    }
+    
+    /**
+     * 公开页面渲染缓存统计
+     */
+    @GetMapping("/api/page-cache")
+    @ResponseBody
+    public Map<String, Object> getPageCacheStatistics() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("cache", renderedPageCache.getStatistics());
+        return result;
+    }
+    
+    /**
+     * 清空公开页面渲染缓存
+     */
+    @PostMapping("/api/page-cache/clear")
+    @ResponseBody
+    public Map<String, Object> clearPageCache() {
+        renderedPageCache.clear();
+        log.info("🧹 管理员清空页面缓存");
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        return result;
+    }
+    
     // ==================== 用户管理功能 ====================
     
     /**
@@ -539,23 +612,24 @@ public class AdminController {
      */
     @GetMapping("/reports")
     public String reports(Model model,
-                         @RequestParam(defaultValue = "0") int page,
+                         @RequestParam(required = false) String cursor,
                          @RequestParam(defaultValue = "10") int size) {
         
         log.info("管理员访问日报管理页面");
         
         try {
-            Pageable pageable = PageRequest.of(page, size);
-            Page<DailyReport> reports = dailyReportService.getReports(pageable);
+            CursorPage<DailyReport> reports = dailyReportService.getReportsAfter(cursor, size);
             
-            model.addAttribute("reports", reports);
-            model.addAttribute("currentPage", page);
-            model.addAttribute("totalPages", reports.getTotalPages());
-            model.addAttribute("hasNext", reports.hasNext());
-            model.addAttribute("hasPrevious", reports.hasPrevious());
+            model.addAttribute("reports", reports.getContent());
+            model.addAttribute("nextCursor", reports.getNextCursor());
+            model.addAttribute("firstPage", cursor == null || cursor.isEmpty());
+            model.addAttribute("size", size);
             
             return "admin/reports";
             
+        } catch (IllegalArgumentException e) {
+            log.warn("无效的分页游标: {}", cursor);
+            return "redirect:/spideAdmin/reports";
         } catch (Exception e) {
             log.error("加载日报管理页面失败", e);
             model.addAttribute("error", "页面加载失败: " + e.getMessage());
@@ -673,12 +747,13 @@ public class AdminController {
             LocalDate targetDate = LocalDate.parse(date);
             log.info("管理员请求生成 {} 的日报", targetDate);
             
-            DailyReport report = dailyReportService.generateDailyReport(targetDate);
+            ReportGenerationJob job = reportJobService.submit(targetDate, "ADMIN");
             
+            result.putAll(reportJobService.toView(job));
             result.put("success", true);
-            result.put("reportId", report.getId());
-            result.put("title", report.getTitle());
-            result.put("message", "日报生成成功");
+            result.put("statusUrl", "/api/report-jobs/" + job.getId());
+            result.put("eventsUrl", "/api/report-jobs/" + job.getId() + "/events");
+            result.put("message", "日报生成任务已提交");
             
         } catch (Exception e) {
             log.error("生成日报失败: {}", date, e);
@@ -805,6 +880,76 @@ public class AdminController {
         return result;
     }
     
+    /**
+     * 获取某日按小时的访问统计API
+     */
+    @GetMapping("/api/statistics/hourly")
+    @ResponseBody
+    public Map<String, Object> getHourlyStatistics(@RequestParam(required = false) String date) {
+        Map<String, Object> result = new HashMap<>();
+        
+        try {
+            LocalDate targetDate = date != null && !date.isEmpty() ? LocalDate.parse(date) : LocalDate.now();
+            result.putAll(visitStatisticsService.getHourlyStatistics(targetDate));
+            result.put("success", true);
+            
+        } catch (Exception e) {
+            log.error("获取小时访问统计失败", e);
+            result.put("success", false);
+            result.put("message", "获取数据失败: " + e.getMessage());
+        }
+        
+        return result;
+    }
+    
+    /**
+     * 获取热门页面API
+     */
+    @GetMapping("/api/statistics/top-pages")
+    @ResponseBody
+    public Map<String, Object> getTopPages(@RequestParam(defaultValue = "7") int days,
+                                          @RequestParam(defaultValue = "20") int limit) {
+        Map<String, Object> result = new HashMap<>();
+        
+        try {
+            LocalDate today = LocalDate.now();
+            int range = days == 30 ? 30 : days == 1 ? 1 : 7;
+            result.put("pages", visitStatisticsService.getTopPages(today.minusDays(range - 1), today, Math.min(Math.max(limit, 1), 100)));
+            result.put("success", true);
+            
+        } catch (Exception e) {
+            log.error("获取热门页面失败", e);
+            result.put("success", false);
+            result.put("message", "获取数据失败: " + e.getMessage());
+        }
+        
+        return result;
+    }
+    
+    /**
+     * 获取某日访问记录API（按时间倒序）
+     */
+    @GetMapping("/api/statistics/visits")
+    @ResponseBody
+    public Map<String, Object> getVisits(@RequestParam(required = false) String date,
+                                         @RequestParam(defaultValue = "100") int limit) {
+        Map<String, Object> result = new HashMap<>();
+        
+        try {
+            LocalDate targetDate = date != null && !date.isEmpty() ? LocalDate.parse(date) : LocalDate.now();
+            result.put("date", targetDate.toString());
+            result.put("visits", visitStatisticsService.getVisitsByDate(targetDate, Math.min(Math.max(limit, 1), 500)));
+            result.put("success", true);
+            
+        } catch (Exception e) {
+            log.error("获取访问记录失败", e);
+            result.put("success", false);
+            result.put("message", "获取数据失败: " + e.getMessage());
+        }
+        
+        return result;
+    }
+    
     /**
      * 获取访问统计图表数据API
      */
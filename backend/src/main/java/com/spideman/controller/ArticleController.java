@@ -1,14 +1,19 @@
 package com.spideman.controller;
 
 import com.spideman.dto.ArticleDTO;
+import com.spideman.dto.CursorPage;
 import com.spideman.entity.Article;
+import com.spideman.entity.VisitRecord;
 import com.spideman.service.ArticleService;
+import com.spideman.service.VisitStatisticsService;
+import com.spideman.service.counter.PopularArticleRanking;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +25,7 @@ import java.util.Optional;
 public class ArticleController {
     
     private final ArticleService articleService;
+    private final VisitStatisticsService visitStatisticsService;
     
     /**
      * 获取文章列表
@@ -30,28 +36,39 @@ public class ArticleController {
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String status) {
         
-        Article.ArticleStatus articleStatus = null;
-        if (status != null) {
-            try {
-                articleStatus = Article.ArticleStatus.valueOf(status.toUpperCase());
-            } catch (IllegalArgumentException e) {
-                log.warn("无效的文章状态: {}", status);
-            }
-        }
-        
-        Page<ArticleDTO> articles = articleService.getArticles(page, size, articleStatus);
+        Page<ArticleDTO> articles = articleService.getArticles(page, size, parseStatus(status));
         return ResponseEntity.ok(articles);
     }
     
+    /**
+     * 游标分页获取文章列表（无限滚动使用）
+     * 
+     * 不传 cursor 时返回第一页，之后每次传入上一页返回的 nextCursor；nextCursor 为 null 表示没有更多
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPage<ArticleDTO>> scrollArticles(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String status) {
+        
+        try {
+            return ResponseEntity.ok(articleService.getArticlesAfter(cursor, size, parseStatus(status)));
+        } catch (IllegalArgumentException e) {
+            log.warn("无效的分页游标: {}", cursor);
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     /**
      * 根据ID获取文章详情
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ArticleDTO> getArticleById(@PathVariable Long id) {
+    public ResponseEntity<ArticleDTO> getArticleById(@PathVariable Long id, HttpServletRequest request) {
         Optional<ArticleDTO> article = articleService.getArticleById(id);
         if (article.isPresent()) {
-            // 增加浏览量
+            // 增加浏览量，并和详情页一样记入访问汇总（热门排行重建时按路径读取）
             articleService.incrementViews(id);
+            visitStatisticsService.recordVisit(request, VisitRecord.PageType.ARTICLE_DETAIL);
             return ResponseEntity.ok(article.get());
         }
         return ResponseEntity.notFound().build();
@@ -81,10 +98,12 @@ public class ArticleController {
     
     /**
      * 获取热门文章
+     * 
+     * @param window 榜单：all（累计）、today（今日热榜）、week（本周热榜）
      */
     @GetMapping("/popular")
-    public ResponseEntity<List<ArticleDTO>> getPopularArticles() {
-        List<ArticleDTO> articles = articleService.getPopularArticles();
+    public ResponseEntity<List<ArticleDTO>> getPopularArticles(@RequestParam(defaultValue = "all") String window) {
+        List<ArticleDTO> articles = articleService.getPopularArticles(PopularArticleRanking.Window.fromParam(window));
         return ResponseEntity.ok(articles);
     }
     
@@ -101,4 +120,15 @@ public class ArticleController {
             return ResponseEntity.internalServerError().body("初始化失败: " + e.getMessage());
         }
     }
-} 
\ No newline at end of file
+    
+    private Article.ArticleStatus parseStatus(String status) {
+        if (status != null) {
+            try {
+                return Article.ArticleStatus.valueOf(status.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                log.warn("无效的文章状态: {}", status);
+            }
+        }
+        return null;
+    }
+}
\ No newline at end of file
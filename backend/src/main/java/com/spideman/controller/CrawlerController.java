@@ -67,6 +67,14 @@ public class CrawlerController {
         return ResponseEntity.ok(stats);
     }
     
+    /**
+     * 获取已见URL索引统计（布隆过滤器/LRU 命中与回库次数）
+     */
+    @GetMapping("/seen-index")
+    public ResponseEntity<Map<String, Object>> getSeenUrlIndexStatistics() {
+        return ResponseEntity.ok(crawlerService.getSeenUrlIndexStatistics());
+    }
+    
     /**
      * 健康检查
      */
@@ -75,6 +83,7 @@ public class CrawlerController {
         Map<String, Object> health = new HashMap<>();
         health.put("status", "ok");
         health.put("availableCrawlers", crawlerService.getAvailableCrawlers().size());
+        health.put("sources", crawlerService.getCrawlerHealth());
         health.put("message", "爬虫服务运行正常");
         return ResponseEntity.ok(health);
     }
@@ -1,13 +1,18 @@
 package com.spideman.controller;
 
 import com.spideman.dto.ArticleDTO;
+import com.spideman.dto.CursorPage;
 import com.spideman.entity.Article;
 import com.spideman.entity.DailyReport;
+import com.spideman.entity.ReportGenerationJob;
 import com.spideman.entity.VisitRecord;
 import com.spideman.service.AlibabaAIService;
 import com.spideman.service.ArticleService;
 import com.spideman.service.DailyReportService;
 import com.spideman.service.VisitStatisticsService;
+import com.spideman.service.cache.RenderedPageCache;
+import com.spideman.service.report.RelatedArticlesResolver;
+import com.spideman.service.report.ReportJobService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -19,14 +24,11 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletRequest;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Controller
 @RequiredArgsConstructor
@@ -37,6 +39,8 @@ public class HomeController {
     private final DailyReportService dailyReportService;
     private final AlibabaAIService aiService;
     private final VisitStatisticsService visitStatisticsService;
+    private final ReportJobService reportJobService;
+    private final RelatedArticlesResolver relatedArticlesResolver;
     
     /**
      * 首页 - 显示今日技术日报
@@ -46,8 +50,8 @@ public class HomeController {
         log.info("🏠 访问首页");
         long startTime = System.currentTimeMillis();
         
-        // 暂时注释掉访问统计，避免数据库表不存在的问题
-        // visitStatisticsService.recordVisit(request, VisitRecord.PageType.HOME);
+        // 访问统计（异步批量写入，不影响请求耗时）
+        visitStatisticsService.recordVisit(request, VisitRecord.PageType.HOME);
         
         try {
             // 获取最近10天的日报数据，按日期倒序排列（只包含今天及之前的日期）
@@ -66,6 +70,7 @@ public class HomeController {
             
         } catch (Exception e) {
             log.error("❌ 首页加载失败", e);
+            request.setAttribute(RenderedPageCache.SKIP_ATTRIBUTE, true);
             model.addAttribute("error", "页面加载失败: " + e.getMessage());
             return "error";
         }
@@ -78,8 +83,8 @@ public class HomeController {
     public String reportDetail(@PathVariable Long reportId, Model model, HttpServletRequest request) {
         log.info("📖 访问日报详情: {}", reportId);
         
-        // 暂时注释掉访问统计，避免数据库表不存在的问题
-        // visitStatisticsService.recordVisit(request, VisitRecord.PageType.REPORT_DETAIL);
+        // 访问统计（异步批量写入，不影响请求耗时）
+        visitStatisticsService.recordVisit(request, VisitRecord.PageType.REPORT_DETAIL);
         
         try {
             // 直接根据ID查找日报
@@ -89,6 +94,7 @@ public class HomeController {
             
             if (!reportOpt.isPresent()) {
                 log.warn("⚠️ 日报不存在: {}", reportId);
+                request.setAttribute(RenderedPageCache.SKIP_ATTRIBUTE, true);
                 model.addAttribute("error", "日报不存在");
                 return "error";
             }
@@ -99,8 +105,15 @@ public class HomeController {
             // 增加阅读次数
             dailyReportService.incrementReadCount(reportId);
             
-            // 获取相关文章
-            List<ArticleDTO> relatedArticles = getRelatedArticles(report);
+            // 获取相关文章（批量加载，按日报版本缓存）；加载失败时页面照常显示，但不进入页面缓存
+            List<ArticleDTO> relatedArticles;
+            try {
+                relatedArticles = relatedArticlesResolver.resolve(report);
+            } catch (Exception e) {
+                log.error("获取相关文章失败（日报ID: {}）", reportId, e);
+                request.setAttribute(RenderedPageCache.SKIP_ATTRIBUTE, true);
+                relatedArticles = Collections.emptyList();
+            }
             
             model.addAttribute("report", report);
             model.addAttribute("relatedArticles", relatedArticles);
@@ -110,6 +123,7 @@ public class HomeController {
             
         } catch (Exception e) {
             log.error("❌ 日报详情加载失败: {}", reportId, e);
+            request.setAttribute(RenderedPageCache.SKIP_ATTRIBUTE, true);
             model.addAttribute("error", "日报加载失败: " + e.getMessage());
             return "error";
         }
@@ -123,33 +137,37 @@ public class HomeController {
                           @RequestParam(defaultValue = "0") int page,
                           @RequestParam(defaultValue = "20") int size,
                           @RequestParam(required = false) String keyword,
+                          @RequestParam(required = false) String cursor,
                           HttpServletRequest request) {
         
         log.info("📄 访问文章列表页面，页码: {}, 关键词: {}", page, keyword);
         
-        // 暂时注释掉访问统计，避免数据库表不存在的问题
-        // visitStatisticsService.recordVisit(request, VisitRecord.PageType.ARTICLE_LIST);
+        // 访问统计（异步批量写入，不影响请求耗时）
+        visitStatisticsService.recordVisit(request, VisitRecord.PageType.ARTICLE_LIST);
         
         try {
-            Page<ArticleDTO> articles;
-            
             if (keyword != null && !keyword.trim().isEmpty()) {
-                // 搜索文章
-                articles = articleService.searchArticles(keyword.trim(), page, size);
+                // 搜索文章（按相关度排序，使用页码分页）
+                Page<ArticleDTO> articles = articleService.searchArticles(keyword.trim(), page, size);
                 model.addAttribute("keyword", keyword);
+                model.addAttribute("articles", articles);
+                model.addAttribute("currentPage", page);
+                model.addAttribute("totalPages", articles.getTotalPages());
+                model.addAttribute("hasNext", articles.hasNext());
+                model.addAttribute("hasPrevious", articles.hasPrevious());
             } else {
-                // 获取所有已发布文章
-                articles = articleService.getArticles(page, size, Article.ArticleStatus.PUBLISHED);
+                // 获取所有已发布文章（游标分页，不统计总数）
+                CursorPage<ArticleDTO> articles = articleService.getArticlesAfter(cursor, size, Article.ArticleStatus.PUBLISHED);
+                model.addAttribute("articles", articles);
+                model.addAttribute("cursorMode", true);
+                model.addAttribute("firstPage", cursor == null || cursor.isEmpty());
             }
             
-            model.addAttribute("articles", articles);
-            model.addAttribute("currentPage", page);
-            model.addAttribute("totalPages", articles.getTotalPages());
-            model.addAttribute("hasNext", articles.hasNext());
-            model.addAttribute("hasPrevious", articles.hasPrevious());
-            
             return "articles";
             
+        } catch (IllegalArgumentException e) {
+            log.warn("无效的分页游标: {}", cursor);
+            return "redirect:/articles";
         } catch (Exception e) {
             log.error("❌ 文章列表加载失败", e);
             model.addAttribute("error", "文章列表加载失败: " + e.getMessage());
@@ -164,8 +182,8 @@ public class HomeController {
     public String articleDetail(@PathVariable Long articleId, Model model, HttpServletRequest request) {
         log.info("📖 访问文章详情: {}", articleId);
         
-        // 暂时注释掉访问统计，避免数据库表不存在的问题
-        // visitStatisticsService.recordVisit(request, VisitRecord.PageType.ARTICLE_DETAIL);
+        // 访问统计（异步批量写入，不影响请求耗时）
+        visitStatisticsService.recordVisit(request, VisitRecord.PageType.ARTICLE_DETAIL);
         
         try {
             Optional<ArticleDTO> articleOpt = articleService.getArticleById(articleId);
@@ -205,40 +223,14 @@ public class HomeController {
     
     /**
      * 生成今日AI技术日报 - API接口
+     * 
+     * 提交后台生成任务并立即返回任务ID，通过 /api/report-jobs/{jobId} 轮询或 /events 订阅进度
      */
     @PostMapping("/api/daily-report")
     @ResponseBody
     public Map<String, Object> generateTodayReport() {
-        long startTime = System.currentTimeMillis();
-        Map<String, Object> result = new HashMap<>();
-        
         log.info("🚀 API请求：生成今日AI技术日报");
-        
-        try {
-            // 生成今日日报
-            DailyReport report = dailyReportService.generateDailyReport(LocalDate.now());
-            
-            result.put("success", true);
-            result.put("reportId", report.getId());
-            result.put("title", report.getTitle());
-            result.put("summary", report.getSummary());
-            result.put("articleCount", report.getTotalArticles());
-            result.put("generatedAt", report.getGeneratedAt().toString());
-            
-            long totalTime = System.currentTimeMillis() - startTime;
-            log.info("✅ 今日日报生成成功！总耗时: {} ms", totalTime);
-            
-        } catch (Exception e) {
-            long totalTime = System.currentTimeMillis() - startTime;
-            log.error("❌ 今日日报生成失败，总耗时: {} ms", totalTime, e);
-            
-            result.put("success", false);
-            result.put("message", "日报生成失败: " + e.getMessage());
-            result.put("error", e.getClass().getSimpleName());
-            result.put("duration", totalTime);
-        }
-        
-        return result;
+        return submitReportJob(LocalDate.now().toString());
     }
     
     /**
@@ -247,24 +239,27 @@ public class HomeController {
     @PostMapping("/api/daily-report/{date}")
     @ResponseBody
     public Map<String, Object> generateReportByDate(@PathVariable String date) {
+        log.info("🚀 API请求：生成 {} 的技术日报", date);
+        return submitReportJob(date);
+    }
+    
+    private Map<String, Object> submitReportJob(String date) {
         Map<String, Object> result = new HashMap<>();
         
         try {
             LocalDate targetDate = LocalDate.parse(date);
-            log.info("🚀 API请求：生成 {} 的技术日报", targetDate);
-            
-            DailyReport report = dailyReportService.generateDailyReport(targetDate);
+            ReportGenerationJob job = reportJobService.submit(targetDate, "API");
             
+            result.putAll(reportJobService.toView(job));
             result.put("success", true);
-            result.put("reportId", report.getId());
-            result.put("title", report.getTitle());
-            result.put("date", report.getReportDate().toString());
-            result.put("articleCount", report.getTotalArticles());
+            result.put("date", targetDate.toString());
+            result.put("statusUrl", "/api/report-jobs/" + job.getId());
+            result.put("eventsUrl", "/api/report-jobs/" + job.getId() + "/events");
             
         } catch (Exception e) {
-            log.error("❌ {} 日报生成失败", date, e);
+            log.error("❌ {} 日报生成任务提交失败", date, e);
             result.put("success", false);
-            result.put("message", "日报生成失败: " + e.getMessage());
+            result.put("message", "日报生成任务提交失败: " + e.getMessage());
         }
         
         return result;
@@ -295,83 +290,4 @@ public class HomeController {
         
         return result;
     }
-    
-    /**
-     * 获取相关文章
-     */
-    private List<ArticleDTO> getRelatedArticles(DailyReport report) {
-        try {
-            log.info("📰 获取日报相关文章，日期: {}", report.getReportDate());
-            
-            // 优先获取日报日期当天的文章
-            LocalDate reportDate = report.getReportDate();
-            LocalDateTime startTime = reportDate.atStartOfDay();
-            LocalDateTime endTime = reportDate.plusDays(1).atStartOfDay();
-            
-            // 如果有关联的文章ID，优先使用
-            if (report.getArticleIds() != null && !report.getArticleIds().trim().isEmpty()) {
-                try {
-                    String[] articleIds = report.getArticleIds().split(",");
-                    List<ArticleDTO> specificArticles = new ArrayList<>();
-                    
-                    for (String idStr : articleIds) {
-                        Long articleId = Long.parseLong(idStr.trim());
-                        Optional<ArticleDTO> articleOpt = articleService.getArticleById(articleId);
-                        if (articleOpt.isPresent()) {
-                            specificArticles.add(articleOpt.get());
-                        }
-                    }
-                    
-                    if (!specificArticles.isEmpty()) {
-                        log.info("✅ 通过关联ID找到 {} 篇文章", specificArticles.size());
-                        return specificArticles;
-                    }
-                } catch (Exception e) {
-                    log.warn("解析文章ID失败: {}", report.getArticleIds(), e);
-                }
-            }
-            
-            // 获取日报日期前后几天的文章（扩大范围以确保有文章）
-            LocalDateTime rangeStart = reportDate.minusDays(2).atStartOfDay();
-            LocalDateTime rangeEnd = reportDate.plusDays(2).atStartOfDay();
-            
-            // 获取时间范围内的文章，转换为DTO
-            List<Article> timeRangeArticles = articleService.getArticlesByDateRange(rangeStart, rangeEnd);
-            List<ArticleDTO> timeRangeArticleDTOs = timeRangeArticles.stream()
-                .map(article -> {
-                    ArticleDTO dto = new ArticleDTO();
-                    dto.setId(article.getId());
-                    dto.setTitle(article.getTitle());
-                    dto.setTitleZh(article.getTitleZh());
-                    dto.setSummary(article.getSummary());
-                    dto.setSummaryZh(article.getSummaryZh());
-                    dto.setUrl(article.getUrl());
-                    dto.setSource(article.getSource());
-                    dto.setAuthor(article.getAuthor());
-                    dto.setPublishTime(article.getPublishTime());
-                    dto.setCreatedAt(article.getCreatedAt());
-                    dto.setLikes(article.getLikes());
-                    dto.setViews(article.getViews());
-                    dto.setTags(article.getTags());
-                    dto.setStatus(article.getStatus().name());
-                    return dto;
-                })
-                .limit(10) // 限制最多10篇
-                .collect(Collectors.toList());
-            
-            if (!timeRangeArticleDTOs.isEmpty()) {
-                log.info("✅ 通过日期范围找到 {} 篇文章", timeRangeArticleDTOs.size());
-                return timeRangeArticleDTOs;
-            }
-            
-            // 最后兜底：返回热门文章
-            List<ArticleDTO> popularArticles = articleService.getPopularArticles();
-            log.info("📄 使用热门文章作为兜底，共 {} 篇", popularArticles.size());
-            return popularArticles.size() > 10 ? popularArticles.subList(0, 10) : popularArticles;
-            
-        } catch (Exception e) {
-            log.error("获取相关文章失败", e);
-            return Collections.emptyList();
-        }
-    }
 } 
\ No newline at end of file
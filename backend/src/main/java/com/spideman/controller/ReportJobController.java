@@ -0,0 +1,67 @@
+package com.spideman.controller;
+
+import com.spideman.entity.ReportGenerationJob;
+import com.spideman.service.report.ReportJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 日报生成任务查询接口
+ */
+@RestController
+@RequestMapping("/api/report-jobs")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class ReportJobController {
+    
+    private final ReportJobService reportJobService;
+    
+    /**
+     * 查询任务状态（轮询）
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable Long jobId) {
+        Optional<ReportGenerationJob> job = reportJobService.getJob(jobId);
+        if (!job.isPresent()) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "任务不存在: " + jobId);
+            return ResponseEntity.status(404).body(response);
+        }
+        Map<String, Object> response = reportJobService.toView(job.get());
+        response.put("success", true);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 订阅任务进度（SSE，事件名 progress / done）
+     */
+    @GetMapping(value = "/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@PathVariable Long jobId) {
+        return reportJobService.subscribe(jobId);
+    }
+    
+    /**
+     * 最近的任务列表
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getRecentJobs() {
+        List<Map<String, Object>> jobs = new ArrayList<>();
+        for (ReportGenerationJob job : reportJobService.getRecentJobs()) {
+            jobs.add(reportJobService.toView(job));
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("jobs", jobs);
+        return ResponseEntity.ok(response);
+    }
+}
@@ -1,5 +1,6 @@
 package com.spideman.dto;
 
+import com.spideman.entity.Article;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -25,4 +26,24 @@ public class ArticleDTO {
     private Integer views;
     private String tags;
     private String status;
-} 
\ No newline at end of file
+    
+    /**
+     * 列表卡片投影（JPQL 构造器表达式），只读取卡片展示的列
+     */
+    public ArticleDTO(Long id, String title, String titleZh, String summary, String summaryZh, String url,
+                      String source, String author, LocalDateTime publishTime, LocalDateTime createdAt,
+                      Integer likes, Integer views, String tags, Article.ArticleStatus status) {
+        this(id, title, titleZh, summary, summaryZh, url, source, author, publishTime, createdAt,
+            likes, views, tags, status != null ? status.name() : null);
+    }
+    
+    /**
+     * 管理后台表格行投影，不读取摘要
+     */
+    public ArticleDTO(Long id, String title, String titleZh, String url, String source, String author,
+                      LocalDateTime publishTime, LocalDateTime createdAt, Integer likes, Integer views,
+                      String tags, Article.ArticleStatus status) {
+        this(id, title, titleZh, null, null, url, source, author, publishTime, createdAt,
+            likes, views, tags, status != null ? status.name() : null);
+    }
+}
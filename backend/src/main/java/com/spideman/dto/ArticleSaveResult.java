@@ -0,0 +1,40 @@
+package com.spideman.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * 批量保存文章时单篇文章的处理结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArticleSaveResult {
+    
+    /**
+     * 文章链接
+     */
+    private String url;
+    
+    /**
+     * 处理结果
+     */
+    private Outcome outcome;
+    
+    /**
+     * 保存后（或已存在）的文章ID
+     */
+    private Long articleId;
+    
+    /**
+     * 失败或跳过原因
+     */
+    private String message;
+    
+    public enum Outcome {
+        SAVED,      // 新增成功
+        DUPLICATE,  // 已存在，跳过
+        FAILED      // 保存失败
+    }
+}
@@ -0,0 +1,42 @@
+package com.spideman.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页结果：本页数据和下一页的游标，不统计总数
+ */
+@Getter
+@RequiredArgsConstructor
+public class CursorPage<T> {
+    
+    private final List<T> content;
+    
+    /**
+     * 下一页游标，没有更多数据时为 null
+     */
+    private final String nextCursor;
+    
+    public boolean isHasNext() {
+        return nextCursor != null;
+    }
+    
+    public boolean isEmpty() {
+        return content.isEmpty();
+    }
+    
+    /**
+     * 由多查询一条的结果构建：rows 超过 size 条说明还有下一页，游标取本页最后一条
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, KeysetCursor> cursorOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> content = new ArrayList<>(rows.subList(0, size));
+        return new CursorPage<>(content, cursorOf.apply(content.get(size - 1)).encode());
+    }
+}
@@ -0,0 +1,82 @@
+package com.spideman.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 游标分页的续读位置：上一页最后一条记录的（排序键, ID）
+ * 
+ * 序列化为 URL 安全的 Base64 字符串，对客户端不透明，原样回传即可。
+ * 排序键为空（例如发布时间缺失）时只携带 ID。
+ */
+@Getter
+@RequiredArgsConstructor
+public class KeysetCursor {
+    
+    private static final char SEPARATOR = '|';
+    
+    /**
+     * 排序键（ISO 格式），可能为 null
+     */
+    private final String key;
+    
+    private final Long id;
+    
+    public static KeysetCursor of(LocalDateTime time, Long id) {
+        return new KeysetCursor(time != null ? time.toString() : null, id);
+    }
+    
+    public static KeysetCursor of(LocalDate date, Long id) {
+        return new KeysetCursor(date != null ? date.toString() : null, id);
+    }
+    
+    public LocalDateTime getTime() {
+        try {
+            return key != null ? LocalDateTime.parse(key) : null;
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+    }
+    
+    public LocalDate getDate() {
+        try {
+            return key != null ? LocalDate.parse(key) : null;
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+    }
+    
+    public String encode() {
+        String raw = (key != null ? key : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * 解析游标，空值表示从第一页开始
+     * 
+     * @throws IllegalArgumentException 游标格式无效
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            int index = raw.lastIndexOf(SEPARATOR);
+            if (index < 0) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+            String key = index > 0 ? raw.substring(0, index) : null;
+            return new KeysetCursor(key, Long.valueOf(raw.substring(index + 1)));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException 也是 IllegalArgumentException
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.spideman.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * AI 响应缓存实体
+ * 
+ * 以（模型, 提示词模板, 输入）的 SHA-256 为键保存模型返回内容，由 AiResponseCache 通过 JDBC 读写。
+ */
+@Entity
+@Table(name = "ai_response_cache", indexes = @Index(name = "idx_ai_cache_created_at", columnList = "created_at"))
+@Data
+@NoArgsConstructor
+public class AiResponseCacheEntry {
+    
+    /**
+     * 缓存键（SHA-256 十六进制）
+     */
+    @Id
+    @Column(name = "cache_key", length = 64)
+    private String cacheKey;
+    
+    /**
+     * 模型名称
+     */
+    @Column(name = "model", nullable = false, length = 50)
+    private String model;
+    
+    /**
+     * 提示词模板（名称和版本）
+     */
+    @Column(name = "template", nullable = false, length = 50)
+    private String template;
+    
+    /**
+     * 模型返回内容
+     */
+    @Column(name = "response", nullable = false, columnDefinition = "MEDIUMTEXT")
+    private String response;
+    
+    /**
+     * 创建时间
+     */
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -1,5 +1,8 @@
 package com.spideman.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.spideman.service.counter.PendingCountListener;
+
 import javax.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -8,7 +11,13 @@ import lombok.AllArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "articles")
+@Table(name = "articles",
+       indexes = {
+           @Index(name = "idx_article_publish_time_id", columnList = "publish_time, id"),
+           @Index(name = "idx_article_status_publish_time_id", columnList = "status, publish_time, id"),
+           @Index(name = "idx_article_source_publish_time_id", columnList = "source, publish_time, id")
+       })
+@EntityListeners(PendingCountListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -24,10 +33,15 @@ public class Article {
     @Column(length = 500)
     private String titleZh; // 中文标题
     
-    @Column(columnDefinition = "TEXT")
+    /**
+     * 正文和中文正文存放在 article_contents 表（见 ArticleContent），这里只用于保存时传入，查询时不加载
+     */
+    @Transient
+    @JsonIgnore
     private String content;
     
-    @Column(columnDefinition = "TEXT")
+    @Transient
+    @JsonIgnore
     private String contentZh; // 中文内容
     
     @Column(columnDefinition = "TEXT")
@@ -58,14 +72,30 @@ public class Article {
     private LocalDateTime updatedAt;
     
     private Integer likes = 0;
-    private Integer views = 0;
+    
+    @Column(updatable = false)
+    private Integer views = 0; // 浏览量（由 ViewCountBuffer 通过 SQL 累加，JPA 更新时不写入）
+    
+    @Transient
+    @JsonIgnore
+    private long pendingViews; // 内存中尚未刷入数据库的浏览量
     
     @Column(length = 500)
     private String tags; // 标签，逗号分隔
     
+    @Column(name = "translation_attempts", updatable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer translationAttempts = 0; // 批量翻译失败次数（由 TranslationWorker 通过 SQL 累加）
+    
     @Enumerated(EnumType.STRING)
     private ArticleStatus status = ArticleStatus.PENDING;
     
+    /**
+     * 浏览量 = 已落库值 + 尚未刷入的增量
+     */
+    public Integer getViews() {
+        return views != null ? views + (int) pendingViews : null;
+    }
+    
     @PrePersist
     protected void onCreate() {
         this.createdAt = LocalDateTime.now();
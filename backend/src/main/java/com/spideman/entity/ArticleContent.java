@@ -0,0 +1,57 @@
+package com.spideman.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 文章正文实体
+ * 
+ * 正文和中文正文体积较大，单独存放在 article_contents 表中（主键即文章ID），
+ * 文章列表和详情查询不再读取，需要时通过 ArticleContentRepository 按ID加载。
+ */
+@Entity
+@Table(name = "article_contents")
+@Data
+@NoArgsConstructor
+public class ArticleContent {
+    
+    /**
+     * 文章ID
+     */
+    @Id
+    @Column(name = "article_id")
+    private Long articleId;
+    
+    /**
+     * 正文
+     */
+    @Column(name = "content", columnDefinition = "MEDIUMTEXT")
+    private String content;
+    
+    /**
+     * 中文正文
+     */
+    @Column(name = "content_zh", columnDefinition = "MEDIUMTEXT")
+    private String contentZh;
+    
+    /**
+     * 更新时间
+     */
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    public ArticleContent(Long articleId, String content, String contentZh) {
+        this.articleId = articleId;
+        this.content = content;
+        this.contentZh = contentZh;
+    }
+    
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        this.updatedAt = LocalDateTime.now();
+    }
+}
@@ -30,6 +30,9 @@ public class CrawlRecord {
     @Column(name = "error_count")
     private Integer errorCount = 0;
     
+    @Column(name = "duplicate_count")
+    private Integer duplicateCount = 0;
+    
     @Column(name = "crawl_time")
     private LocalDateTime crawlTime = LocalDateTime.now();
     
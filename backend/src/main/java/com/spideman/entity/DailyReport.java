@@ -1,5 +1,8 @@
 package com.spideman.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.spideman.service.counter.PendingCountListener;
+
 import javax.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -10,6 +13,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "daily_reports")
+@EntityListeners(PendingCountListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -55,7 +59,13 @@ public class DailyReport {
     private String articleIds; // 关联的文章ID，逗号分隔
     
     private Integer totalArticles = 0; // 总文章数
-    private Integer readCount = 0; // 阅读次数
+    
+    @Column(updatable = false)
+    private Integer readCount = 0; // 阅读次数（由 ViewCountBuffer 通过 SQL 累加，JPA 更新时不写入）
+    
+    @Transient
+    @JsonIgnore
+    private long pendingReadCount; // 内存中尚未刷入数据库的阅读次数
     
     @Enumerated(EnumType.STRING)
     private ReportStatus status = ReportStatus.DRAFT;
@@ -69,6 +79,17 @@ public class DailyReport {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    @Version
+    @Column(columnDefinition = "BIGINT DEFAULT 0")
+    private Long version; // 乐观锁版本号（日报生成写回时检测并发修改）
+    
+    /**
+     * 阅读次数 = 已落库值 + 尚未刷入的增量
+     */
+    public Integer getReadCount() {
+        return readCount != null ? readCount + (int) pendingReadCount : null;
+    }
+    
     @PrePersist
     protected void onCreate() {
         this.createdAt = LocalDateTime.now();
@@ -0,0 +1,122 @@
+package com.spideman.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 日报生成任务实体
+ * 
+ * 接口提交生成请求后立即返回任务ID，生成在后台执行，进度和结果记录在任务中，
+ * 应用重启后未完成的任务会被恢复或标记失败。
+ */
+@Entity
+@Table(name = "report_generation_jobs",
+       indexes = {
+           @Index(name = "idx_job_report_date", columnList = "report_date"),
+           @Index(name = "idx_job_status", columnList = "status"),
+           @Index(name = "uk_job_active_date", columnList = "active_date", unique = true)
+       })
+@Data
+@NoArgsConstructor
+public class ReportGenerationJob {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    /**
+     * 日报日期
+     */
+    @Column(name = "report_date", nullable = false)
+    private LocalDate reportDate;
+    
+    /**
+     * 未结束时为日报日期，结束后为空；唯一索引保证同一日期最多一个未结束的任务
+     */
+    @Column(name = "active_date")
+    private LocalDate activeDate;
+    
+    /**
+     * 任务状态
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private JobStatus status = JobStatus.QUEUED;
+    
+    /**
+     * 当前阶段描述
+     */
+    @Column(length = 100)
+    private String stage;
+    
+    /**
+     * 进度（0-100）
+     */
+    private Integer progress = 0;
+    
+    /**
+     * 提交来源（API、ADMIN、SCHEDULE、STARTUP）
+     */
+    @Column(length = 20)
+    private String source;
+    
+    /**
+     * 已执行次数（重启恢复时累加）
+     */
+    private Integer attempts = 0;
+    
+    /**
+     * 生成的日报ID
+     */
+    @Column(name = "report_id")
+    private Long reportId;
+    
+    /**
+     * 失败原因
+     */
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+    
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = LocalDateTime.now();
+        this.activeDate = isFinished() ? null : reportDate;
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        this.updatedAt = LocalDateTime.now();
+        this.activeDate = isFinished() ? null : reportDate;
+    }
+    
+    /**
+     * 是否已结束
+     */
+    public boolean isFinished() {
+        return status == JobStatus.SUCCEEDED || status == JobStatus.FAILED;
+    }
+    
+    public enum JobStatus {
+        QUEUED,      // 排队中
+        RUNNING,     // 执行中
+        SUCCEEDED,   // 成功
+        FAILED       // 失败
+    }
+}
@@ -0,0 +1,45 @@
+package com.spideman.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 日报生成租约实体
+ * 
+ * 多实例部署时，同一日期的日报只允许持有租约的实例生成；租约过期后其他实例可以接管。
+ * 由 ReportGenerationCoordinator 通过 JDBC 读写。
+ */
+@Entity
+@Table(name = "report_generation_leases")
+@Data
+@NoArgsConstructor
+public class ReportGenerationLease {
+    
+    /**
+     * 租约键（如 daily-report:2024-01-01）
+     */
+    @Id
+    @Column(name = "lease_key", length = 64)
+    private String leaseKey;
+    
+    /**
+     * 持有者（实例标识）
+     */
+    @Column(name = "owner", nullable = false, length = 100)
+    private String owner;
+    
+    /**
+     * 获取时间
+     */
+    @Column(name = "acquired_at", nullable = false)
+    private LocalDateTime acquiredAt;
+    
+    /**
+     * 过期时间
+     */
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
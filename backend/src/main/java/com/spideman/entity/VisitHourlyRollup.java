@@ -0,0 +1,69 @@
+package com.spideman.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 访问量小时汇总实体
+ * 
+ * 每小时、每种页面类型一行汇总（page_path = '*'），另按具体路径各一行；
+ * 由访问写入器增量累加，统计图表和每日任务只读取汇总行，不扫描原始访问记录。
+ */
+@Entity
+@Table(name = "visit_hourly_rollups",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"bucket_start", "page_type", "page_path"}),
+       indexes = @Index(name = "idx_rollup_bucket_date", columnList = "bucket_date, page_path"))
+@Data
+@NoArgsConstructor
+public class VisitHourlyRollup {
+    
+    /**
+     * 页面类型汇总行的路径占位符
+     */
+    public static final String ALL_PATHS = "*";
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    /**
+     * 小时桶起始时间（整点）
+     */
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+    
+    /**
+     * 小时桶所属日期（便于按天汇总）
+     */
+    @Column(name = "bucket_date", nullable = false)
+    private LocalDate bucketDate;
+    
+    /**
+     * 页面类型
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "page_type", nullable = false, length = 30)
+    private VisitRecord.PageType pageType;
+    
+    /**
+     * 页面路径，'*' 表示该页面类型的汇总
+     */
+    @Column(name = "page_path", nullable = false, length = 500)
+    private String pagePath;
+    
+    /**
+     * 页面访问量
+     */
+    @Column(name = "page_views", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long pageViews = 0L;
+    
+    /**
+     * 更新时间
+     */
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
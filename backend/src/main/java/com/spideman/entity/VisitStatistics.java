@@ -1,8 +1,11 @@
 package com.spideman.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import lombok.ToString;
 
 import javax.persistence.*;
 import java.time.LocalDate;
@@ -58,6 +61,16 @@ public class VisitStatistics {
     @Column(name = "article_visits", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
     private Long articleVisits = 0L;
     
+    /**
+     * 独立访客 HyperLogLog 草图（由 VisitRecordWriter 通过 JDBC 写入）
+     */
+    @Lob
+    @Column(name = "uv_sketches", insertable = false, updatable = false)
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private byte[] uvSketches;
+    
     /**
      * 创建时间
      */
@@ -0,0 +1,9 @@
+package com.spideman.repository;
+
+import com.spideman.entity.ArticleContent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ArticleContentRepository extends JpaRepository<ArticleContent, Long> {
+}
@@ -1,5 +1,6 @@
 package com.spideman.repository;
 
+import com.spideman.dto.ArticleDTO;
 import com.spideman.entity.Article;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -9,18 +10,58 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ArticleRepository extends JpaRepository<Article, Long> {
+public interface ArticleRepository extends JpaRepository<Article, Long>, ArticleRepositoryCustom {
+    
+    /**
+     * 列表卡片投影：只读取卡片展示的列
+     */
+    String CARD_SELECT = "SELECT new com.spideman.dto.ArticleDTO(a.id, a.title, a.titleZh, a.summary, a.summaryZh, " +
+        "a.url, a.source, a.author, a.publishTime, a.createdAt, a.likes, a.views, a.tags, a.status) FROM Article a ";
+    
+    /**
+     * 管理后台表格行投影：不读取摘要
+     */
+    String ROW_SELECT = "SELECT new com.spideman.dto.ArticleDTO(a.id, a.title, a.titleZh, " +
+        "a.url, a.source, a.author, a.publishTime, a.createdAt, a.likes, a.views, a.tags, a.status) FROM Article a ";
+    
+    /**
+     * 关键词匹配条件：标题、中文标题，以及 article_contents 中的正文
+     */
+    String KEYWORD_WHERE = "WHERE a.title LIKE %:keyword% OR a.titleZh LIKE %:keyword% OR EXISTS (" +
+        "SELECT c.articleId FROM ArticleContent c WHERE c.articleId = a.id " +
+        "AND (c.content LIKE %:keyword% OR c.contentZh LIKE %:keyword%))";
     
     // 根据URL查找文章（用于去重）
     Optional<Article> findByUrl(String url);
     
+    // 判断URL是否已存在（爬虫抓取详情页前回库确认）
+    boolean existsByUrl(String url);
+    
+    // 批量查询已存在的URL（用于批量去重）
+    @Query("SELECT a.url FROM Article a WHERE a.url IN :urls")
+    List<String> findExistingUrls(@Param("urls") Collection<String> urls);
+    
+    // 根据URL批量查找文章
+    List<Article> findByUrlIn(Collection<String> urls);
+    
+    // 按ID游标分批读取URL（用于预热已见URL索引）
+    @Query("SELECT a.id, a.url FROM Article a WHERE a.id > :afterId ORDER BY a.id")
+    List<Object[]> findUrlsAfterId(@Param("afterId") Long afterId, Pageable pageable);
+    
     // 根据状态查找文章
     List<Article> findByStatus(Article.ArticleStatus status);
     
+    // 按ID顺序分批获取指定状态、失败次数未达上限的文章（翻译任务使用）
+    List<Article> findByStatusAndTranslationAttemptsLessThanOrderByIdAsc(Article.ArticleStatus status, int maxAttempts, Pageable pageable);
+    
+    // 统计失败次数已达上限而被跳过的文章
+    long countByStatusAndTranslationAttemptsGreaterThanEqual(Article.ArticleStatus status, int maxAttempts);
+    
     // 分页查询文章
     Page<Article> findByStatusOrderByPublishTimeDesc(Article.ArticleStatus status, Pageable pageable);
     
@@ -52,9 +93,45 @@ public interface ArticleRepository extends JpaRepository<Article, Long> {
     Page<Article> findBySource(String source, Pageable pageable);
     
     // 搜索文章（标题和内容）
-    @Query("SELECT a FROM Article a WHERE a.title LIKE %:keyword% OR a.content LIKE %:keyword% OR a.titleZh LIKE %:keyword% OR a.contentZh LIKE %:keyword%")
+    @Query(value = "SELECT a FROM Article a " + KEYWORD_WHERE,
+           countQuery = "SELECT COUNT(a) FROM Article a " + KEYWORD_WHERE)
     Page<Article> searchArticles(@Param("keyword") String keyword, Pageable pageable);
     
     // 热门文章（按浏览量排序）
     List<Article> findTop10ByStatusOrderByViewsDesc(Article.ArticleStatus status);
+    
+    // 指定状态全部文章的ID和浏览量（构建热门排行使用）
+    @Query("SELECT a.id, a.views FROM Article a WHERE a.status = :status")
+    List<Object[]> findViewsByStatus(@Param("status") Article.ArticleStatus status);
+    
+    // ===== 列表投影（不加载实体，只读取列表展示的列） =====
+    
+    @Query(value = CARD_SELECT, countQuery = "SELECT COUNT(a) FROM Article a")
+    Page<ArticleDTO> findCards(Pageable pageable);
+    
+    @Query(value = CARD_SELECT + "WHERE a.status = :status ORDER BY a.publishTime DESC",
+           countQuery = "SELECT COUNT(a) FROM Article a WHERE a.status = :status")
+    Page<ArticleDTO> findCardsByStatus(@Param("status") Article.ArticleStatus status, Pageable pageable);
+    
+    @Query(CARD_SELECT + "WHERE a.id IN :ids")
+    List<ArticleDTO> findCardsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query(CARD_SELECT + "WHERE a.status = :status ORDER BY a.views DESC")
+    List<ArticleDTO> findPopularCards(@Param("status") Article.ArticleStatus status, Pageable pageable);
+    
+    @Query(CARD_SELECT + "WHERE a.createdAt BETWEEN :startTime AND :endTime ORDER BY a.publishTime DESC")
+    List<ArticleDTO> findCardsCreatedBetween(@Param("startTime") LocalDateTime startTime,
+                                             @Param("endTime") LocalDateTime endTime, Pageable pageable);
+    
+    @Query(value = CARD_SELECT + KEYWORD_WHERE, countQuery = "SELECT COUNT(a) FROM Article a " + KEYWORD_WHERE)
+    Page<ArticleDTO> searchCards(@Param("keyword") String keyword, Pageable pageable);
+    
+    @Query(value = ROW_SELECT, countQuery = "SELECT COUNT(a) FROM Article a")
+    Page<ArticleDTO> findRows(Pageable pageable);
+    
+    @Query(ROW_SELECT + "WHERE a.id IN :ids")
+    List<ArticleDTO> findRowsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query(value = ROW_SELECT + KEYWORD_WHERE, countQuery = "SELECT COUNT(a) FROM Article a " + KEYWORD_WHERE)
+    Page<ArticleDTO> searchRows(@Param("keyword") String keyword, Pageable pageable);
 } 
\ No newline at end of file
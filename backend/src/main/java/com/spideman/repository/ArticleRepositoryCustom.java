@@ -0,0 +1,33 @@
+package com.spideman.repository;
+
+import com.spideman.dto.ArticleDTO;
+import com.spideman.dto.ArticleSaveResult;
+import com.spideman.entity.Article;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 文章仓库的自定义扩展（基于JDBC实现）
+ */
+public interface ArticleRepositoryCustom {
+    
+    /**
+     * 使用JDBC批处理插入文章，不经过JPA持久化上下文（正文同时写入 article_contents）
+     * 
+     * 批处理失败时回滚整批并逐条重试，返回与入参顺序一致的逐条结果（SAVED / DUPLICATE / FAILED，不含文章ID）
+     */
+    List<ArticleSaveResult> batchInsert(List<Article> articles);
+    
+    /**
+     * 按（发布时间, ID）倒序的游标查询，从 (afterPublishTime, afterId) 之后开始，最多返回 limit 条，不统计总数
+     * 
+     * @param withSummary      是否读取摘要（列表卡片需要，管理后台表格不需要）
+     * @param status           状态筛选，null 表示不限
+     * @param source           来源筛选，null 表示不限
+     * @param afterPublishTime 上一页最后一条的发布时间（可能为 null）
+     * @param afterId          上一页最后一条的ID，null 表示第一页
+     */
+    List<ArticleDTO> findArticlesAfter(boolean withSummary, Article.ArticleStatus status, String source,
+                                       LocalDateTime afterPublishTime, Long afterId, int limit);
+}
@@ -0,0 +1,236 @@
+package com.spideman.repository;
+
+import com.spideman.dto.ArticleDTO;
+import com.spideman.dto.ArticleSaveResult;
+import com.spideman.entity.Article;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@RequiredArgsConstructor
+@Slf4j
+public class ArticleRepositoryCustomImpl implements ArticleRepositoryCustom {
+    
+    private static final int BATCH_SIZE = 50;
+    
+    private static final String INSERT_SQL = 
+        "INSERT INTO articles (title, title_zh, summary, summary_zh, url, source, author, " +
+        "publish_time, crawl_time, created_at, updated_at, likes, views, tags, status) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    /**
+     * 正文写入独立的 article_contents 表，按URL取回刚插入的文章ID
+     */
+    private static final String INSERT_CONTENT_SQL = 
+        "INSERT INTO article_contents (article_id, content, content_zh, updated_at) " +
+        "SELECT id, ?, ?, ? FROM articles WHERE url = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public List<ArticleSaveResult> batchInsert(List<Article> articles) {
+        if (articles.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        return jdbcTemplate.execute((ConnectionCallback<List<ArticleSaveResult>>) con -> {
+            // 保存点只能在事务内使用，未处于事务中时临时开启
+            boolean autoCommit = con.getAutoCommit();
+            if (autoCommit) {
+                con.setAutoCommit(false);
+            }
+            try {
+                List<ArticleSaveResult> results = insertArticles(con, articles, now);
+                if (autoCommit) {
+                    con.commit();
+                }
+                return results;
+            } catch (SQLException | RuntimeException e) {
+                if (autoCommit) {
+                    con.rollback();
+                }
+                throw e;
+            } finally {
+                if (autoCommit) {
+                    con.setAutoCommit(true);
+                }
+            }
+        });
+    }
+    
+    /**
+     * 整批插入文章和正文；任一步失败时先回滚到批处理前的保存点，再逐条重试。
+     * 
+     * 批处理失败时驱动可能已经写入了部分行（如 MySQL 的 continueBatchOnError），
+     * 直接逐条重试会让这些行撞上自己的唯一约束而被误判为重复。
+     * 回滚后再重试，逐条插入时的唯一约束冲突才说明文章在本次调用前已存在。
+     */
+    private List<ArticleSaveResult> insertArticles(Connection con, List<Article> articles, LocalDateTime now) throws SQLException {
+        Savepoint savepoint = con.setSavepoint();
+        try {
+            try (PreparedStatement ps = con.prepareStatement(INSERT_SQL)) {
+                for (int i = 0; i < articles.size(); i++) {
+                    bindArticle(ps, articles.get(i), now);
+                    ps.addBatch();
+                    if ((i + 1) % BATCH_SIZE == 0 || i == articles.size() - 1) {
+                        ps.executeBatch();
+                    }
+                }
+            }
+            insertContents(con, articles, now);
+            con.releaseSavepoint(savepoint);
+            
+            List<ArticleSaveResult> results = new ArrayList<>(articles.size());
+            for (Article article : articles) {
+                results.add(new ArticleSaveResult(article.getUrl(), ArticleSaveResult.Outcome.SAVED, null, null));
+            }
+            return results;
+        } catch (SQLException e) {
+            con.rollback(savepoint);
+            log.warn("批量插入文章失败，回滚后改为逐条插入: {}", e.getMessage());
+        }
+        
+        List<ArticleSaveResult> results = new ArrayList<>(articles.size());
+        for (Article article : articles) {
+            results.add(insertSingle(con, article, now));
+        }
+        return results;
+    }
+    
+    /**
+     * 在独立保存点内插入单篇文章及其正文，两者一起成功或一起回滚
+     */
+    private ArticleSaveResult insertSingle(Connection con, Article article, LocalDateTime now) throws SQLException {
+        Savepoint savepoint = con.setSavepoint();
+        try (PreparedStatement ps = con.prepareStatement(INSERT_SQL)) {
+            bindArticle(ps, article, now);
+            ps.executeUpdate();
+            insertContents(con, Collections.singletonList(article), now);
+            con.releaseSavepoint(savepoint);
+            return new ArticleSaveResult(article.getUrl(), ArticleSaveResult.Outcome.SAVED, null, null);
+        } catch (SQLException e) {
+            con.rollback(savepoint);
+            DataAccessException translated = jdbcTemplate.getExceptionTranslator().translate("insertArticle", INSERT_SQL, e);
+            if (translated instanceof DuplicateKeyException) {
+                return new ArticleSaveResult(article.getUrl(), ArticleSaveResult.Outcome.DUPLICATE, null, "文章已存在");
+            }
+            log.warn("保存文章失败: {} - {}", article.getUrl(), e.getMessage());
+            return new ArticleSaveResult(article.getUrl(), ArticleSaveResult.Outcome.FAILED, null, e.getMessage());
+        }
+    }
+    
+    /**
+     * 批量写入正文到 article_contents
+     */
+    private void insertContents(Connection con, List<Article> articles, LocalDateTime now) throws SQLException {
+        List<Article> withContent = new ArrayList<>();
+        for (Article article : articles) {
+            if (article.getContent() != null || article.getContentZh() != null) {
+                withContent.add(article);
+            }
+        }
+        if (withContent.isEmpty()) {
+            return;
+        }
+        
+        try (PreparedStatement ps = con.prepareStatement(INSERT_CONTENT_SQL)) {
+            for (int i = 0; i < withContent.size(); i++) {
+                Article article = withContent.get(i);
+                ps.setString(1, article.getContent());
+                ps.setString(2, article.getContentZh());
+                setTimestamp(ps, 3, now);
+                ps.setString(4, article.getUrl());
+                ps.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0 || i == withContent.size() - 1) {
+                    ps.executeBatch();
+                }
+            }
+        }
+    }
+    
+    private void bindArticle(PreparedStatement ps, Article article, LocalDateTime now) throws SQLException {
+        ps.setString(1, article.getTitle());
+        ps.setString(2, article.getTitleZh());
+        ps.setString(3, article.getSummary());
+        ps.setString(4, article.getSummaryZh());
+        ps.setString(5, article.getUrl());
+        ps.setString(6, article.getSource());
+        ps.setString(7, article.getAuthor());
+        setTimestamp(ps, 8, article.getPublishTime());
+        setTimestamp(ps, 9, article.getCrawlTime() != null ? article.getCrawlTime() : now);
+        setTimestamp(ps, 10, now);
+        setTimestamp(ps, 11, now);
+        ps.setInt(12, article.getLikes() != null ? article.getLikes() : 0);
+        ps.setInt(13, article.getViews() != null ? article.getViews() : 0);
+        ps.setString(14, article.getTags());
+        ps.setString(15, (article.getStatus() != null ? article.getStatus() : Article.ArticleStatus.PENDING).name());
+    }
+    
+    @Override
+    public List<ArticleDTO> findArticlesAfter(boolean withSummary, Article.ArticleStatus status, String source,
+                                              LocalDateTime afterPublishTime, Long afterId, int limit) {
+        List<String> conditions = new ArrayList<>();
+        if (status != null) {
+            conditions.add("a.status = :status");
+        }
+        if (source != null) {
+            conditions.add("a.source = :source");
+        }
+        if (afterId != null) {
+            // 降序时发布时间为空的文章排在最后（MySQL、H2 一致），游标落在这部分时只按ID继续
+            conditions.add(afterPublishTime != null
+                ? "(a.publishTime < :publishTime OR (a.publishTime = :publishTime AND a.id < :id) OR a.publishTime IS NULL)"
+                : "(a.publishTime IS NULL AND a.id < :id)");
+        }
+        
+        StringBuilder jpql = new StringBuilder(withSummary ? ArticleRepository.CARD_SELECT : ArticleRepository.ROW_SELECT);
+        if (!conditions.isEmpty()) {
+            jpql.append("WHERE ").append(String.join(" AND ", conditions));
+        }
+        jpql.append(" ORDER BY a.publishTime DESC, a.id DESC");
+        
+        TypedQuery<ArticleDTO> query = entityManager.createQuery(jpql.toString(), ArticleDTO.class);
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+        if (source != null) {
+            query.setParameter("source", source);
+        }
+        if (afterId != null) {
+            query.setParameter("id", afterId);
+            if (afterPublishTime != null) {
+                query.setParameter("publishTime", afterPublishTime);
+            }
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+    
+    private void setTimestamp(PreparedStatement ps, int index, LocalDateTime time) throws SQLException {
+        if (time != null) {
+            ps.setTimestamp(index, Timestamp.valueOf(time));
+        } else {
+            ps.setNull(index, Types.TIMESTAMP);
+        }
+    }
+}
@@ -4,6 +4,8 @@ import com.spideman.entity.DailyReport;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
@@ -27,4 +29,13 @@ public interface DailyReportRepository extends JpaRepository<DailyReport, Long>
     
     // 获取最近N天的报告
     List<DailyReport> findByReportDateAfterOrderByReportDateDesc(LocalDate date);
+    
+    // 游标分页：第一页（按日期、ID倒序，不统计总数）
+    @Query("SELECT r FROM DailyReport r ORDER BY r.reportDate DESC, r.id DESC")
+    List<DailyReport> findFirstReports(Pageable pageable);
+    
+    // 游标分页：从（日期, ID）之后继续
+    @Query("SELECT r FROM DailyReport r WHERE r.reportDate < :reportDate OR (r.reportDate = :reportDate AND r.id < :id) " +
+           "ORDER BY r.reportDate DESC, r.id DESC")
+    List<DailyReport> findReportsAfter(@Param("reportDate") LocalDate reportDate, @Param("id") Long id, Pageable pageable);
 } 
\ No newline at end of file
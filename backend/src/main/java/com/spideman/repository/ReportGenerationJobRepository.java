@@ -0,0 +1,53 @@
+package com.spideman.repository;
+
+import com.spideman.entity.ReportGenerationJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ReportGenerationJobRepository extends JpaRepository<ReportGenerationJob, Long> {
+    
+    /**
+     * 查找指定日期最近一个未结束的任务
+     */
+    Optional<ReportGenerationJob> findFirstByReportDateAndStatusInOrderByCreatedAtDesc(LocalDate reportDate, Collection<ReportGenerationJob.JobStatus> statuses);
+    
+    /**
+     * 查找指定状态的任务（按创建时间正序）
+     */
+    List<ReportGenerationJob> findByStatusInOrderByCreatedAtAsc(Collection<ReportGenerationJob.JobStatus> statuses);
+    
+    /**
+     * 接管未结束的任务并重新排队；以读取时的更新时间为条件，多个实例同时接管时只有一个成功
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ReportGenerationJob j SET j.status = com.spideman.entity.ReportGenerationJob.JobStatus.QUEUED, " +
+           "j.stage = :stage, j.progress = 0, j.updatedAt = :now " +
+           "WHERE j.id = :id AND j.updatedAt = :seenUpdatedAt " +
+           "AND j.status IN (com.spideman.entity.ReportGenerationJob.JobStatus.QUEUED, com.spideman.entity.ReportGenerationJob.JobStatus.RUNNING)")
+    int requeueIfUnchanged(@Param("id") Long id, @Param("seenUpdatedAt") LocalDateTime seenUpdatedAt,
+                           @Param("stage") String stage, @Param("now") LocalDateTime now);
+    
+    /**
+     * 获取最近的任务
+     */
+    List<ReportGenerationJob> findTop20ByOrderByCreatedAtDesc();
+    
+    /**
+     * 删除指定时间之前已结束的任务
+     */
+    @Modifying
+    @Query("DELETE FROM ReportGenerationJob j WHERE j.finishedAt < :cutoffTime")
+    int deleteFinishedBefore(@Param("cutoffTime") LocalDateTime cutoffTime);
+}
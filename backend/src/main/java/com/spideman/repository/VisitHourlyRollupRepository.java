@@ -0,0 +1,53 @@
+package com.spideman.repository;
+
+import com.spideman.entity.VisitHourlyRollup;
+import com.spideman.entity.VisitRecord;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface VisitHourlyRollupRepository extends JpaRepository<VisitHourlyRollup, Long> {
+    
+    /**
+     * 按日期和页面类型汇总访问量（仅读取页面类型汇总行）
+     */
+    @Query("SELECT r.bucketDate, r.pageType, SUM(r.pageViews) FROM VisitHourlyRollup r " +
+           "WHERE r.pagePath = '*' AND r.bucketDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY r.bucketDate, r.pageType")
+    List<Object[]> sumDailyByPageType(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    /**
+     * 获取某日各小时、各页面类型的汇总行
+     */
+    @Query("SELECT r FROM VisitHourlyRollup r WHERE r.pagePath = '*' AND r.bucketDate = :date ORDER BY r.bucketStart")
+    List<VisitHourlyRollup> findHourlyByDate(@Param("date") LocalDate date);
+    
+    /**
+     * 获取指定日期范围内访问量最高的页面路径
+     */
+    @Query("SELECT r.pagePath, r.pageType, SUM(r.pageViews) FROM VisitHourlyRollup r " +
+           "WHERE r.pagePath <> '*' AND r.bucketDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY r.pagePath, r.pageType ORDER BY SUM(r.pageViews) DESC")
+    List<Object[]> findTopPaths(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate, Pageable pageable);
+    
+    /**
+     * 获取指定日期起某类页面按路径、按小时的访问量（重建热门文章排行使用）
+     */
+    @Query("SELECT r.pagePath, r.bucketStart, r.pageViews FROM VisitHourlyRollup r " +
+           "WHERE r.pageType = :pageType AND r.pagePath <> '*' AND r.bucketDate >= :startDate")
+    List<Object[]> findPathViewsSince(@Param("pageType") VisitRecord.PageType pageType, @Param("startDate") LocalDate startDate);
+    
+    /**
+     * 删除指定日期之前的按路径汇总行（页面类型汇总行长期保留）
+     */
+    @Modifying
+    @Query("DELETE FROM VisitHourlyRollup r WHERE r.pagePath <> '*' AND r.bucketDate < :cutoffDate")
+    int deletePathRollupsBefore(@Param("cutoffDate") LocalDate cutoffDate);
+}
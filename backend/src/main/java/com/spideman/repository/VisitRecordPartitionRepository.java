@@ -0,0 +1,302 @@
+package com.spideman.repository;
+
+import com.spideman.entity.VisitRecord;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 按月分表的访问记录存储
+ *
+ * 访问记录写入 visit_records_yyyyMM 月表（首次写入时建表），范围查询只访问涉及的月表和分表前的旧表，
+ * 数据清理直接删除整张过期月表，不再对大表执行批量 DELETE。
+ * 查询前会重新读取库中的月表清单，多实例部署时各实例看到的月表一致。
+ * 使用普通表而非数据库分区，MySQL 和 H2 下行为一致。
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class VisitRecordPartitionRepository {
+    
+    private static final String TABLE_PREFIX = "visit_records_";
+    private static final String LEGACY_TABLE = "visit_records";
+    private static final Pattern TABLE_PATTERN = Pattern.compile("visit_records_\\d{6}");
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+    
+    private static final int MAX_FIELD_LENGTH = 500;
+    
+    private static final String COLUMNS = "id, ip_address, user_agent, page_path, page_type, referer, visit_time, session_id";
+    
+    private static final RowMapper<VisitRecord> ROW_MAPPER = (rs, rowNum) -> {
+        VisitRecord record = new VisitRecord();
+        record.setId(rs.getLong("id"));
+        record.setIpAddress(rs.getString("ip_address"));
+        record.setUserAgent(rs.getString("user_agent"));
+        record.setPagePath(rs.getString("page_path"));
+        record.setPageType(VisitRecord.PageType.valueOf(rs.getString("page_type")));
+        record.setReferer(rs.getString("referer"));
+        record.setVisitTime(rs.getTimestamp("visit_time").toLocalDateTime());
+        record.setSessionId(rs.getString("session_id"));
+        return record;
+    };
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    /**
+     * 已存在的月表
+     */
+    private final Set<YearMonth> partitions = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * 启动时加载已有月表，并预建本月和下月的表
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            partitions.addAll(discoverPartitions());
+            YearMonth current = YearMonth.now();
+            ensurePartition(current);
+            ensurePartition(current.plusMonths(1));
+            log.info("📦 访问记录月表已就绪: {}", partitions.size());
+        } catch (DataAccessException e) {
+            log.error("❌ 初始化访问记录月表失败: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * 预建这批记录涉及的月表
+     * 
+     * 建表语句会隐式提交当前事务，需要在事务内写入时先在事务外调用。
+     */
+    public void ensurePartitionsFor(List<VisitRecord> records) {
+        for (VisitRecord record : records) {
+            ensurePartition(YearMonth.from(record.getVisitTime()));
+        }
+    }
+    
+    /**
+     * 批量写入访问记录，按月份路由到对应月表
+     */
+    public void insertBatch(List<VisitRecord> records) {
+        Map<YearMonth, List<VisitRecord>> byMonth = new LinkedHashMap<>();
+        for (VisitRecord record : records) {
+            byMonth.computeIfAbsent(YearMonth.from(record.getVisitTime()), key -> new ArrayList<>()).add(record);
+        }
+        for (Map.Entry<YearMonth, List<VisitRecord>> entry : byMonth.entrySet()) {
+            ensurePartition(entry.getKey());
+            List<VisitRecord> batch = entry.getValue();
+            String sql = "INSERT INTO " + tableName(entry.getKey()) +
+                " (ip_address, user_agent, page_path, page_type, referer, visit_time, session_id) VALUES (?, ?, ?, ?, ?, ?, ?)";
+            jdbcTemplate.batchUpdate(sql, batch, batch.size(), (ps, record) -> {
+                ps.setString(1, record.getIpAddress());
+                ps.setString(2, truncate(record.getUserAgent()));
+                ps.setString(3, truncate(record.getPagePath()));
+                ps.setString(4, record.getPageType().name());
+                ps.setString(5, truncate(record.getReferer()));
+                ps.setTimestamp(6, Timestamp.valueOf(record.getVisitTime()));
+                ps.setString(7, record.getSessionId());
+            });
+        }
+    }
+    
+    /**
+     * 获取指定时间范围内的访问记录（按时间倒序，最多 limit 条）
+     * 
+     * 从最新的月表向前查找，凑够条数即停止，月表不足时补充旧表 visit_records 中的历史记录。
+     */
+    public List<VisitRecord> findByVisitTimeBetween(LocalDateTime startTime, LocalDateTime endTime, int limit) {
+        Set<YearMonth> existing = refreshPartitions();
+        List<VisitRecord> records = new ArrayList<>();
+        for (YearMonth month = YearMonth.from(endTime); !month.isBefore(YearMonth.from(startTime)); month = month.minusMonths(1)) {
+            int remaining = limit - records.size();
+            if (remaining <= 0) {
+                return records;
+            }
+            if (existing.contains(month)) {
+                records.addAll(jdbcTemplate.query("SELECT " + COLUMNS + " FROM " + tableName(month) +
+                    " WHERE visit_time BETWEEN ? AND ? ORDER BY visit_time DESC LIMIT ?",
+                    ROW_MAPPER, Timestamp.valueOf(startTime), Timestamp.valueOf(endTime), remaining));
+            }
+        }
+        int remaining = limit - records.size();
+        if (remaining > 0) {
+            records.addAll(jdbcTemplate.query("SELECT " + COLUMNS + " FROM " + LEGACY_TABLE +
+                " WHERE visit_time BETWEEN ? AND ? ORDER BY visit_time DESC LIMIT ?",
+                ROW_MAPPER, Timestamp.valueOf(startTime), Timestamp.valueOf(endTime), remaining));
+        }
+        return records;
+    }
+    
+    /**
+     * 统计指定时间范围内的页面访问量（月表与旧表 visit_records 之和）
+     */
+    public long countPageViewsBetween(LocalDateTime startTime, LocalDateTime endTime) {
+        Set<YearMonth> existing = refreshPartitions();
+        long total = countBetween(LEGACY_TABLE, startTime, endTime);
+        for (YearMonth month = YearMonth.from(startTime); !month.isAfter(YearMonth.from(endTime)); month = month.plusMonths(1)) {
+            if (existing.contains(month)) {
+                total += countBetween(tableName(month), startTime, endTime);
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * 获取最近的访问记录（从最新月表向前查找，凑够条数即停止，月表不足时补充旧表 visit_records 中的历史记录）
+     */
+    public List<VisitRecord> findRecentVisits(int limit) {
+        List<YearMonth> months = new ArrayList<>(refreshPartitions());
+        months.sort(Comparator.reverseOrder());
+        List<VisitRecord> records = new ArrayList<>();
+        for (YearMonth month : months) {
+            int remaining = limit - records.size();
+            if (remaining <= 0) {
+                return records;
+            }
+            records.addAll(jdbcTemplate.query("SELECT " + COLUMNS + " FROM " + tableName(month) +
+                " ORDER BY visit_time DESC LIMIT ?", ROW_MAPPER, remaining));
+        }
+        int remaining = limit - records.size();
+        if (remaining > 0) {
+            records.addAll(jdbcTemplate.query("SELECT " + COLUMNS + " FROM " + LEGACY_TABLE +
+                " ORDER BY visit_time DESC LIMIT ?", ROW_MAPPER, remaining));
+        }
+        return records;
+    }
+    
+    /**
+     * 删除整月早于截止日期的月表
+     * 
+     * DROP TABLE 在 MySQL 中会隐式提交当前事务，调用方不要在事务中调用
+     *
+     * @return 删除的月表数量
+     */
+    public int dropPartitionsBefore(LocalDate cutoffDate) {
+        YearMonth cutoffMonth = YearMonth.from(cutoffDate);
+        int dropped = 0;
+        for (YearMonth month : refreshPartitions()) {
+            // 只删除最后一天也早于截止日期的月份
+            if (month.isBefore(cutoffMonth)) {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + tableName(month));
+                partitions.remove(month);
+                dropped++;
+                log.info("🗑️ 删除过期访问记录月表: {}", tableName(month));
+            }
+        }
+        return dropped;
+    }
+    
+    /**
+     * 获取月表状态
+     */
+    public Map<String, Object> getStatistics() {
+        List<YearMonth> months = new ArrayList<>(refreshPartitions());
+        Collections.sort(months);
+        List<String> tables = new ArrayList<>(months.size());
+        for (YearMonth month : months) {
+            tables.add(tableName(month));
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("partitionCount", tables.size());
+        stats.put("partitions", tables);
+        return stats;
+    }
+    
+    /**
+     * 重新读取库中的月表并同步到本地集合（其他实例创建或删除的月表对本实例同样可见）
+     */
+    private Set<YearMonth> refreshPartitions() {
+        Set<YearMonth> found = discoverPartitions();
+        partitions.addAll(found);
+        partitions.retainAll(found);
+        return found;
+    }
+    
+    private long countBetween(String table, LocalDateTime startTime, LocalDateTime endTime) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table +
+            " WHERE visit_time BETWEEN ? AND ?", Long.class, Timestamp.valueOf(startTime), Timestamp.valueOf(endTime));
+        return count != null ? count : 0;
+    }
+    
+    private void ensurePartition(YearMonth month) {
+        if (partitions.contains(month)) {
+            return;
+        }
+        synchronized (partitions) {
+            if (partitions.contains(month)) {
+                return;
+            }
+            String table = tableName(month);
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + " (" +
+                "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                "ip_address VARCHAR(45) NOT NULL, " +
+                "user_agent VARCHAR(500), " +
+                "page_path VARCHAR(500) NOT NULL, " +
+                "page_type VARCHAR(30) NOT NULL, " +
+                "referer VARCHAR(500), " +
+                "visit_time DATETIME NOT NULL, " +
+                "session_id VARCHAR(100))");
+            try {
+                jdbcTemplate.execute("CREATE INDEX idx_" + table + "_time ON " + table + " (visit_time)");
+            } catch (DataAccessException e) {
+                // 其他实例已建好索引
+                log.debug("月表索引已存在: {}", table);
+            }
+            partitions.add(month);
+            log.info("📦 创建访问记录月表: {}", table);
+        }
+    }
+    
+    private Set<YearMonth> discoverPartitions() {
+        Set<YearMonth> found = new HashSet<>();
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            // MySQL 返回小写表名，H2 返回大写表名
+            for (String pattern : new String[]{"visit_records_%", "VISIT_RECORDS_%"}) {
+                try (ResultSet rs = metaData.getTables(connection.getCatalog(), null, pattern, new String[]{"TABLE"})) {
+                    while (rs.next()) {
+                        String name = rs.getString("TABLE_NAME").toLowerCase(Locale.ROOT);
+                        if (TABLE_PATTERN.matcher(name).matches()) {
+                            found.add(YearMonth.parse(name.substring(TABLE_PREFIX.length()), SUFFIX_FORMAT));
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+        return found;
+    }
+    
+    private static String truncate(String value) {
+        return value != null && value.length() > MAX_FIELD_LENGTH ? value.substring(0, MAX_FIELD_LENGTH) : value;
+    }
+    
+    private static String tableName(YearMonth month) {
+        return TABLE_PREFIX + month.format(SUFFIX_FORMAT);
+    }
+}
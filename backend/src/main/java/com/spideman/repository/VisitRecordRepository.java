@@ -1,7 +1,9 @@
 package com.spideman.repository;
 
 import com.spideman.entity.VisitRecord;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -9,6 +11,11 @@ import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
 import java.util.List;
 
+/**
+ * 旧版单表访问记录（visit_records）
+ * 
+ * 新访问记录写入按月分表，见 VisitRecordPartitionRepository；此表只保留历史数据直至过期清理。
+ */
 @Repository
 public interface VisitRecordRepository extends JpaRepository<VisitRecord, Long> {
     
@@ -46,11 +53,12 @@ public interface VisitRecordRepository extends JpaRepository<VisitRecord, Long>
      * 获取最近的访问记录
      */
     @Query("SELECT v FROM VisitRecord v ORDER BY v.visitTime DESC")
-    List<VisitRecord> findRecentVisits();
+    List<VisitRecord> findRecentVisits(Pageable pageable);
     
     /**
      * 删除指定日期之前的访问记录（用于数据清理）
      */
+    @Modifying
     @Query("DELETE FROM VisitRecord v WHERE v.visitTime < :cutoffTime")
-    void deleteOldRecords(@Param("cutoffTime") LocalDateTime cutoffTime);
+    int deleteOldRecords(@Param("cutoffTime") LocalDateTime cutoffTime);
 } 
\ No newline at end of file
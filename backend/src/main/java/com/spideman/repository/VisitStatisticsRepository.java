@@ -53,4 +53,11 @@ public interface VisitStatisticsRepository extends JpaRepository<VisitStatistics
      */
     @Query("SELECT v FROM VisitStatistics v WHERE v.visitDate >= :startDate ORDER BY v.visitDate DESC")
     List<VisitStatistics> findLast30Days(@Param("startDate") LocalDate startDate);
+    
+    /**
+     * 获取指定日期范围内的每日计数（不加载访客草图）
+     */
+    @Query("SELECT v.visitDate, v.pageViews, v.uniqueVisitors, v.homeVisits, v.reportVisits, v.articleVisits " +
+           "FROM VisitStatistics v WHERE v.visitDate BETWEEN :startDate AND :endDate")
+    List<Object[]> findDailyCountersBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
 } 
\ No newline at end of file
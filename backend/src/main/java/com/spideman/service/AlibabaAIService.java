@@ -3,21 +3,44 @@ package com.spideman.service;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spideman.entity.Article;
+import com.spideman.service.ai.AiCallException;
+import com.spideman.service.ai.AiResponseCache;
+import com.spideman.service.crawler.PageFetcher;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.jsoup.Jsoup;
+import okhttp3.OkHttpClient;
 import org.jsoup.nodes.Document;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
+import org.springframework.http.client.OkHttp3ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import javax.annotation.PostConstruct;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class AlibabaAIService {
 
@@ -27,28 +50,123 @@ public class AlibabaAIService {
     @Value("${alibaba.ai.base-url}")
     private String baseUrl;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    /**
+     * 文章数不超过该值时使用单次提示词生成日报，超过时使用分组汇总（map-reduce）
+     */
+    @Value("${ai.report.single-prompt-max-articles:20}")
+    private int singlePromptMaxArticles;
+
+    /**
+     * 分组汇总时每组文章的估算 token 上限
+     */
+    @Value("${ai.report.chunk-max-tokens:3000}")
+    private int chunkMaxTokens;
+
+    /**
+     * 每组最多保留的候选文章数
+     */
+    @Value("${ai.report.candidates-per-chunk:3}")
+    private int candidatesPerChunk;
+
+    /**
+     * 分组汇总使用的模型
+     */
+    @Value("${ai.report.map-model:qwen-turbo}")
+    private String mapModel;
+
+    /**
+     * 单组汇总超时时间（秒），从该组开始执行时计时，超时后取消 HTTP 请求并释放 aiExecutor 线程
+     */
+    @Value("${ai.report.map-timeout-seconds:60}")
+    private long mapTimeoutSeconds;
+
+    /**
+     * 一轮分组筛选的总期限（秒），包含在 aiExecutor 队列中排队的时间；到期仍未完成的组按失败处理
+     */
+    @Value("${ai.report.map-round-deadline-seconds:300}")
+    private long mapRoundDeadlineSeconds;
+
+    /**
+     * 分组筛选后进入 reduce 阶段的候选文章上限，超过时对候选再筛选一轮
+     */
+    @Value("${ai.report.max-reduce-candidates:30}")
+    private int maxReduceCandidates;
+
+    @Qualifier("aiExecutor")
+    private final Executor aiExecutor;
+
+    private final AiResponseCache aiResponseCache;
+
+    private final PageFetcher pageFetcher;
+
+    /**
+     * 提示词模板版本（修改对应提示词时需递增，使旧缓存失效）
+     */
+    private static final String TRANSLATE_TITLE_TEMPLATE = "translate-title:v1";
+    private static final String SUMMARIZE_ARTICLE_TEMPLATE = "summarize-article:v1";
+    private static final String REPORT_CHUNK_TEMPLATE = "report-chunk:v1";
+
+    private static final String GENERATION_PATH = "/api/v1/services/aigc/text-generation/generation";
+
+    private static final int MAX_MAP_ROUNDS = 3;
+
+    private final RestTemplate restTemplate;
+    private final OkHttpClient okHttpClient;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    /**
+     * 分组筛选专用的 RestTemplate：整次调用超时（callTimeout）从请求开始执行时计时，超时即取消请求
+     */
+    private RestTemplate mapRestTemplate;
+
+    @PostConstruct
+    public void init() {
+        OkHttpClient mapClient = okHttpClient.newBuilder()
+            .callTimeout(mapTimeoutSeconds, TimeUnit.SECONDS)
+            .build();
+        mapRestTemplate = new RestTemplate(new OkHttp3ClientHttpRequestFactory(mapClient));
+    }
+
     /**
      * 翻译文章标题
+     *
+     * @throws AiCallException 调用失败（异常信息可直接展示给用户）
      */
     public String translateTitle(String title) {
-        try {
-            String prompt = String.format(
-                "请将以下英文标题翻译成中文，保持专业性和准确性：\n\n%s\n\n" +
-                "要求：\n" +
-                "1. 翻译要准确、自然\n" +
-                "2. 保持技术术语的专业性\n" +
-                "3. 只返回翻译结果，不要其他内容", 
-                title
-            );
+        String prompt = String.format(
+            "请将以下英文标题翻译成中文，保持专业性和准确性：\n\n%s\n\n" +
+            "要求：\n" +
+            "1. 翻译要准确、自然\n" +
+            "2. 保持技术术语的专业性\n" +
+            "3. 只返回翻译结果，不要其他内容", 
+            title
+        );
 
-            return callAlibabaAI("qwen-turbo", prompt);
-        } catch (Exception e) {
-            log.error("翻译标题失败: title={}", title, e);
-            return "翻译失败：" + e.getMessage();
-        }
+        return aiResponseCache.getOrLoad("qwen-turbo", TRANSLATE_TITLE_TEMPLATE, title,
+            () -> callAlibabaAI("qwen-turbo", prompt));
+    }
+
+    /**
+     * 批量翻译文章标题和摘要
+     *
+     * 输入为带编号的 JSON 数组 [{"id", "title", "summary"}]，模型输出放在起止标记之间，
+     * 由调用方解析和校验。
+     *
+     * @return 模型原始输出
+     * @throws AiCallException 调用失败
+     */
+    public String translateBatch(String itemsJson, String beginMarker, String endMarker) {
+        String prompt = String.format(
+            "请将下面 JSON 数组中每一项的 title 和 summary 翻译成中文：\n\n%s\n\n" +
+            "要求：\n" +
+            "1. 翻译要准确、自然，保持技术术语的专业性\n" +
+            "2. 每个输入项都必须有一个输出项，id 保持不变，不要合并或遗漏\n" +
+            "3. summary 为空时 summaryZh 返回空字符串\n" +
+            "4. 只返回 JSON 数组，放在 %s 和 %s 之间，格式为：\n" +
+            "%s\n[{\"id\": 1, \"titleZh\": \"中文标题\", \"summaryZh\": \"中文摘要\"}]\n%s",
+            itemsJson, beginMarker, endMarker, beginMarker, endMarker
+        );
+        return callAlibabaAI("qwen-turbo", prompt, 4000);
     }
 
     /**
@@ -64,40 +182,24 @@ public class AlibabaAIService {
                 return "## 📰 今日技术日报\n\n### 📝 概况\n今日暂无新文章采集，请稍后查看。\n\n### 💡 建议\n可以访问管理后台手动触发爬虫任务。";
             }
 
+            List<Article> articles = new ArrayList<>();
+            for (Object articleObj : todayArticles) {
+                if (articleObj instanceof Article) {
+                    articles.add((Article) articleObj);
+                }
+            }
+
             log.info("📊 输入数据统计:");
-            log.info("   - 文章总数: {}", todayArticles.size());
-            log.info("   - 预处理文章数量: {}", Math.min(todayArticles.size(), 20));
+            log.info("   - 文章总数: {}", articles.size());
 
-            StringBuilder articlesText = new StringBuilder();
-            int processedCount = 0;
-            
-            for (int i = 0; i < Math.min(todayArticles.size(), 20); i++) {
-                Object articleObj = todayArticles.get(i);
-                if (articleObj instanceof com.spideman.entity.Article) {
-                    com.spideman.entity.Article article = (com.spideman.entity.Article) articleObj;
-                    
-                    String articleEntry = String.format(
-                        "%d. 【%s】%s\n   来源：%s | 作者：%s\n   链接：%s\n   摘要：%s\n\n",
-                        i + 1, article.getSource(), article.getTitle(),
-                        article.getSource(), article.getAuthor() != null ? article.getAuthor() : "未知",
-                        article.getUrl(), article.getSummary() != null ? article.getSummary() : "暂无摘要"
-                    );
-                    
-                    articlesText.append(articleEntry);
-                    processedCount++;
-                    
-                    // 记录处理的文章信息
-                    if (i < 5) { // 只记录前5篇的详细信息
-                        log.info("   📄 处理文章 {}: [{}] {}", 
-                            i + 1, 
-                            article.getSource(),
-                            article.getTitle().length() > 60 ? 
-                                article.getTitle().substring(0, 60) + "..." : article.getTitle());
-                    }
-                }
+            String articlesText;
+            if (articles.size() <= singlePromptMaxArticles) {
+                articlesText = formatArticles(articles);
+                log.info("✅ 文章预处理完成，实际处理: {} 篇", articles.size());
+            } else {
+                // 文章较多时先分组并行筛选，再用筛选出的候选文章生成日报
+                articlesText = mapArticlesToCandidates(articles);
             }
-            
-            log.info("✅ 文章预处理完成，实际处理: {} 篇", processedCount);
 
             String currentDate = java.time.LocalDate.now().toString();
             String dayOfWeek = java.time.LocalDate.now().getDayOfWeek().getDisplayName(
@@ -140,7 +242,7 @@ public class AlibabaAIService {
                 "5. 返回的必须是有效的JSON格式\n" +
                 "6. 文章链接必须使用原文章的真实URL\n" +
                 "7. 不要在reason字段中重复'推荐理由'这个词\n",
-                articlesText.toString(),
+                articlesText,
                 currentDate, dayOfWeek, solarTerm,
                 solarTerm
             );
@@ -198,46 +300,290 @@ public class AlibabaAIService {
     }
 
     /**
-     * 总结文章内容
+     * 格式化文章列表（序号从1开始）
      */
-    public String summarizeArticle(String articleUrl, String title) {
+    private String formatArticles(List<Article> articles) {
+        StringBuilder articlesText = new StringBuilder();
+        for (int i = 0; i < articles.size(); i++) {
+            articlesText.append(formatArticle(i + 1, articles.get(i), articles.get(i).getSummary()));
+        }
+        return articlesText.toString();
+    }
+
+    private static String formatArticle(int index, Article article, String summary) {
+        return String.format(
+            "%d. 【%s】%s\n   来源：%s | 作者：%s\n   链接：%s\n   摘要：%s\n\n",
+            index, article.getSource(), article.getTitle(),
+            article.getSource(), article.getAuthor() != null ? article.getAuthor() : "未知",
+            article.getUrl(), summary != null ? summary : "暂无摘要"
+        );
+    }
+
+    /**
+     * 分组汇总（map 阶段）：按估算 token 数把文章分组，在 aiExecutor 上并行让模型从每组中挑选候选文章；
+     * 候选仍多于上限时对候选再分组筛选一轮，最终候选数有上限，reduce 阶段的提示词不会随文章数线性增长。
+     * 返回候选文章列表文本，作为最终日报提示词的输入（reduce 阶段）
+     */
+    private String mapArticlesToCandidates(List<Article> articles) {
+        long mapStart = System.currentTimeMillis();
+        List<Candidate> candidates = new ArrayList<>(articles.size());
+        for (int i = 0; i < articles.size(); i++) {
+            candidates.add(new Candidate(i, articles.get(i).getSummary()));
+        }
+
+        int round = 0;
+        do {
+            round++;
+            List<Candidate> selected = selectCandidates(articles, candidates, round);
+            if (selected.size() >= candidates.size()) {
+                break; // 每组都已不超过保留数，无法继续收缩
+            }
+            candidates = selected;
+        } while (candidates.size() > maxReduceCandidates && round < MAX_MAP_ROUNDS);
+        if (candidates.size() > maxReduceCandidates) {
+            candidates = new ArrayList<>(candidates.subList(0, maxReduceCandidates));
+        }
+
+        StringBuilder candidatesText = new StringBuilder();
+        candidatesText.append(String.format("（今日共采集 %d 篇文章，以下为分组筛选出的候选文章）\n\n", articles.size()));
+        for (int i = 0; i < candidates.size(); i++) {
+            Candidate candidate = candidates.get(i);
+            candidatesText.append(formatArticle(i + 1, articles.get(candidate.articleIndex), candidate.summary));
+        }
+
+        log.info("✅ 分组筛选完成: {} 轮，候选文章 {} 篇，耗时 {} ms",
+            round, candidates.size(), System.currentTimeMillis() - mapStart);
+        return candidatesText.toString();
+    }
+
+    /**
+     * 一轮分组筛选：每组并行调用模型挑选候选，某组失败时保留组内前几篇，不整组丢弃
+     */
+    private List<Candidate> selectCandidates(List<Article> articles, List<Candidate> inputs, int round) {
+        List<List<Candidate>> chunks = chunkByTokens(articles, inputs, chunkMaxTokens);
+        log.info("🧩 第 {} 轮筛选：{} 篇分 {} 组并行处理（每组约 {} tokens）", round, inputs.size(), chunks.size(), chunkMaxTokens);
+
+        // 并发调用数由 aiExecutor 的线程数限制；单次调用的超时从该组开始执行时计时
+        List<CompletableFuture<List<Candidate>>> futures = new ArrayList<>();
+        for (List<Candidate> chunk : chunks) {
+            CompletableFuture<List<Candidate>> future;
+            try {
+                future = CompletableFuture.supplyAsync(() -> summarizeChunk(articles, chunk), aiExecutor);
+            } catch (RejectedExecutionException e) {
+                future = CompletableFuture.completedFuture(null);
+            }
+            futures.add(future);
+        }
+
+        List<Candidate> selected = new ArrayList<>();
+        int failedChunks = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(mapRoundDeadlineSeconds);
+        for (int i = 0; i < chunks.size(); i++) {
+            List<Candidate> picked = awaitCandidates(futures.get(i), deadline);
+            if (picked == null || picked.isEmpty()) {
+                failedChunks++;
+                picked = fallbackCandidates(chunks.get(i));
+            }
+            selected.addAll(picked);
+        }
+        if (failedChunks > 0) {
+            log.warn("⚠️ 第 {} 轮筛选有 {} 组失败，已保留组内前 {} 篇", round, failedChunks, candidatesPerChunk);
+        }
+        return selected;
+    }
+
+    /**
+     * 在本轮总期限内等待一组的结果；超时后取消该组（尚在排队的组不会再调用模型）
+     */
+    private List<Candidate> awaitCandidates(CompletableFuture<List<Candidate>> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("⚠️ 分组筛选超过本轮期限 {} 秒，按失败处理", mapRoundDeadlineSeconds);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            log.warn("⚠️ 分组筛选失败: {}", e.getCause().getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 按估算 token 数分组，单篇超过上限时独占一组
+     */
+    static List<List<Candidate>> chunkByTokens(List<Article> articles, List<Candidate> items, int maxTokens) {
+        List<List<Candidate>> chunks = new ArrayList<>();
+        List<Candidate> current = new ArrayList<>();
+        int currentTokens = 0;
+        for (Candidate item : items) {
+            int tokens = estimateTokens(formatArticle(current.size() + 1, articles.get(item.articleIndex), item.summary));
+            if (!current.isEmpty() && currentTokens + tokens > maxTokens) {
+                chunks.add(current);
+                current = new ArrayList<>();
+                currentTokens = 0;
+            }
+            current.add(item);
+            currentTokens += tokens;
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+
+    /**
+     * 粗略估算 token 数：中日韩字符按 1 个 token，其余字符按 4 个字符 1 个 token
+     */
+    static int estimateTokens(String text) {
+        int cjk = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.UnicodeScript.of(text.charAt(i)) == Character.UnicodeScript.HAN) {
+                cjk++;
+            }
+        }
+        return cjk + (text.length() - cjk) / 4 + 1;
+    }
+
+    /**
+     * 让模型从一组文章中挑选候选文章并给出简短摘要
+     */
+    private List<Candidate> summarizeChunk(List<Article> articles, List<Candidate> chunk) {
+        StringBuilder chunkText = new StringBuilder();
+        for (int i = 0; i < chunk.size(); i++) {
+            Candidate item = chunk.get(i);
+            chunkText.append(formatArticle(i + 1, articles.get(item.articleIndex), item.summary));
+        }
+
+        String prompt = String.format(
+            "以下是一组技术文章，请从中挑选最多%d篇最有价值的文章，并为每篇写一句不超过80字的中文摘要。\n\n" +
+            "%s" +
+            "请严格按照以下JSON格式返回，不要返回其他内容：\n" +
+            "[{\"index\": 文章序号, \"summary\": \"中文摘要\"}]\n",
+            candidatesPerChunk, chunkText
+        );
+
+        String result = aiResponseCache.getOrLoad(mapModel, REPORT_CHUNK_TEMPLATE, prompt,
+            () -> callAlibabaAI(mapRestTemplate, mapModel, prompt, 2000));
+        List<Candidate> candidates = new ArrayList<>();
         try {
-            // 1. 抓取文章内容
-            String articleContent = fetchArticleContent(articleUrl);
-            if (articleContent == null || articleContent.trim().isEmpty()) {
-                return "无法获取文章内容，请检查链接是否有效";
+            String json = result.trim();
+            int start = json.indexOf('[');
+            int end = json.lastIndexOf(']');
+            if (start < 0 || end <= start) {
+                log.warn("⚠️ 分组筛选结果不是JSON数组: {}", result.length() > 200 ? result.substring(0, 200) : result);
+                return candidates;
+            }
+            for (JsonNode node : objectMapper.readTree(json.substring(start, end + 1))) {
+                int position = node.path("index").asInt(0);
+                if (position < 1 || position > chunk.size() || candidates.size() >= candidatesPerChunk) {
+                    continue;
+                }
+                Candidate item = chunk.get(position - 1);
+                String summary = node.path("summary").asText("");
+                candidates.add(new Candidate(item.articleIndex, summary.isEmpty() ? item.summary : summary));
             }
+        } catch (JsonProcessingException e) {
+            log.warn("⚠️ 解析分组筛选结果失败: {}", e.getMessage());
+        }
+        return candidates;
+    }
 
-            // 2. 调用AI进行总结
-            String prompt = String.format(
-                "请对以下技术文章进行详细的阅读和分析，并提供一个结构化的总结：\n\n" +
-                "文章标题：%s\n" +
-                "文章链接：%s\n\n" +
-                "文章内容：\n%s\n\n" +
-                "请按照以下格式提供总结：\n\n" +
-                "## 📋 内容概述\n" +
-                "[3-4句话概述文章主要内容]\n\n" +
-                "## 🔍 核心要点\n" +
-                "• [要点1]\n" +
-                "• [要点2]\n" +
-                "• [要点3]\n" +
-                "• [要点4]\n\n" +
-                "## 💡 技术亮点\n" +
-                "[介绍文章中的技术创新、解决方案或最佳实践]\n\n" +
-                "## 🎯 适用场景\n" +
-                "[说明这些技术或方法适用于什么场景]\n\n" +
-                "## 📚 价值评估\n" +
-                "[评估这篇文章对读者的价值和重要性]",
-                title, articleUrl, truncateContent(articleContent, 8000)
-            );
+    private List<Candidate> fallbackCandidates(List<Candidate> chunk) {
+        return new ArrayList<>(chunk.subList(0, Math.min(candidatesPerChunk, chunk.size())));
+    }
 
-            return callAlibabaAI("qwen-plus", prompt);
-        } catch (Exception e) {
-            log.error("总结文章失败: url={}", articleUrl, e);
-            return "总结失败：" + e.getMessage();
+    /**
+     * 分组筛选出的候选文章（文章在原列表中的下标和用于下一轮的摘要）
+     */
+    static final class Candidate {
+        final int articleIndex;
+        final String summary;
+
+        Candidate(int articleIndex, String summary) {
+            this.articleIndex = articleIndex;
+            this.summary = summary;
         }
     }
 
+    /**
+     * 总结文章内容
+     *
+     * 每次都重新抓取文章（条件请求，未变化时使用缓存的页面），以包含正文的提示词为缓存输入，
+     * 文章内容更新后不会返回旧的总结。
+     *
+     * @throws AiCallException 无法获取文章内容或调用失败（异常信息可直接展示给用户）
+     */
+    public String summarizeArticle(String articleUrl, String title) {
+        String prompt = buildSummaryPrompt(title, articleUrl, fetchRequiredContent(articleUrl));
+        return aiResponseCache.getOrLoad("qwen-plus", SUMMARIZE_ARTICLE_TEMPLATE, prompt,
+            () -> callAlibabaAI("qwen-plus", prompt));
+    }
+
+    /**
+     * 流式总结文章内容：每收到一段模型输出即回调 onDelta，命中缓存时一次性回调完整结果
+     *
+     * @return 完整总结
+     * @throws AiCallException 无法获取文章内容
+     * @throws IllegalStateException AI 调用失败
+     */
+    public String summarizeArticleStreaming(String articleUrl, String title, Consumer<String> onDelta) {
+        String prompt = buildSummaryPrompt(title, articleUrl, fetchRequiredContent(articleUrl));
+        String cached = aiResponseCache.get("qwen-plus", SUMMARIZE_ARTICLE_TEMPLATE, prompt);
+        if (cached != null) {
+            onDelta.accept(cached);
+            return cached;
+        }
+
+        String summary = streamAlibabaAI("qwen-plus", prompt, 2000, onDelta);
+        if (summary.trim().isEmpty()) {
+            throw new IllegalStateException("AI未返回内容");
+        }
+        aiResponseCache.put("qwen-plus", SUMMARIZE_ARTICLE_TEMPLATE, prompt, summary);
+        return summary;
+    }
+
+    private String fetchRequiredContent(String articleUrl) {
+        String articleContent = fetchArticleContent(articleUrl);
+        if (articleContent == null || articleContent.trim().isEmpty()) {
+            throw new AiCallException("无法获取文章内容，请检查链接是否有效");
+        }
+        return articleContent;
+    }
+
+    private String buildSummaryPrompt(String title, String articleUrl, String articleContent) {
+        return String.format(
+            "请对以下技术文章进行详细的阅读和分析，并提供一个结构化的总结：\n\n" +
+            "文章标题：%s\n" +
+            "文章链接：%s\n\n" +
+            "文章内容：\n%s\n\n" +
+            "请按照以下格式提供总结：\n\n" +
+            "## 📋 内容概述\n" +
+            "[3-4句话概述文章主要内容]\n\n" +
+            "## 🔍 核心要点\n" +
+            "• [要点1]\n" +
+            "• [要点2]\n" +
+            "• [要点3]\n" +
+            "• [要点4]\n\n" +
+            "## 💡 技术亮点\n" +
+            "[介绍文章中的技术创新、解决方案或最佳实践]\n\n" +
+            "## 🎯 适用场景\n" +
+            "[说明这些技术或方法适用于什么场景]\n\n" +
+            "## 📚 价值评估\n" +
+            "[评估这篇文章对读者的价值和重要性]",
+            title, articleUrl, truncateContent(articleContent, 8000)
+        );
+    }
+
+    /**
+     * 获取 AI 响应缓存命中统计
+     */
+    public Map<String, Object> getCacheStatistics() {
+        return aiResponseCache.getStatistics();
+    }
+
     /**
      * 获取文章内容
      */
@@ -245,10 +591,9 @@ public class AlibabaAIService {
         try {
             log.info("开始抓取文章内容: {}", url);
             
-            Document doc = Jsoup.connect(url)
+            Document doc = pageFetcher.fetch(url, connection -> connection
                     .userAgent("Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36")
-                    .timeout(15000)
-                    .get();
+                    .timeout(15000)).parse();
 
             // 移除不需要的元素
             doc.select("script, style, nav, header, footer, .advertisement, .ad, .sidebar").remove();
@@ -303,59 +648,138 @@ public class AlibabaAIService {
      * 调用阿里云百炼大模型 HTTP API
      */
     private String callAlibabaAI(String model, String prompt) {
-        try {
-            // 检查API Key
-            if ("your-api-key-here".equals(apiKey)) {
-                return "请先配置阿里云百炼大模型的API Key";
-            }
+        return callAlibabaAI(model, prompt, 2000);
+    }
 
-            String url = baseUrl + "/api/v1/services/aigc/text-generation/generation";
-            
-            // 构建请求体
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", model);
-            
-            Map<String, Object> input = new HashMap<>();
-            input.put("prompt", prompt);
-            requestBody.put("input", input);
-            
-            Map<String, Object> parameters = new HashMap<>();
-            parameters.put("max_tokens", 2000);
-            parameters.put("temperature", 0.7);
-            requestBody.put("parameters", parameters);
-
-            // 设置请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + apiKey);
-            headers.set("X-DashScope-SSE", "disable");
-
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+    /**
+     * 调用阿里云百炼大模型 HTTP API（指定最大输出 token 数）
+     */
+    private String callAlibabaAI(String model, String prompt, int maxTokens) {
+        return callAlibabaAI(restTemplate, model, prompt, maxTokens);
+    }
+
+    /**
+     * 使用指定的 RestTemplate 调用（分组筛选使用带整体超时的客户端）
+     *
+     * @return 模型输出文本
+     * @throws AiCallException 未配置、HTTP 错误、响应格式异常或网络异常
+     */
+    private String callAlibabaAI(RestTemplate template, String model, String prompt, int maxTokens) {
+        // 检查API Key
+        if ("your-api-key-here".equals(apiKey)) {
+            throw new AiCallException("请先配置阿里云百炼大模型的API Key");
+        }
+
+        ResponseEntity<String> response;
+        JsonNode jsonResponse;
+        try {
+            String url = baseUrl + GENERATION_PATH;
+            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(buildRequestBody(model, prompt, maxTokens, false),
+                buildHeaders(false));
             
             log.info("调用阿里云AI API: model={}, url={}", model, url);
             
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.POST, entity, String.class);
-            
-            if (response.getStatusCode() == HttpStatus.OK) {
-                JsonNode jsonResponse = objectMapper.readTree(response.getBody());
-                
-                if (jsonResponse.has("output") && jsonResponse.get("output").has("text")) {
-                    return jsonResponse.get("output").get("text").asText();
-                } else {
-                    log.error("AI API响应格式异常: {}", response.getBody());
-                    return "AI响应格式异常";
-                }
-            } else {
+            response = template.exchange(url, HttpMethod.POST, entity, String.class);
+            if (response.getStatusCode() != HttpStatus.OK) {
                 log.error("AI API调用失败: status={}, body={}", response.getStatusCode(), response.getBody());
-                return "AI API调用失败：" + response.getStatusCode();
+                throw new AiCallException("AI API调用失败：" + response.getStatusCode());
             }
-            
+            jsonResponse = objectMapper.readTree(response.getBody());
+        } catch (AiCallException e) {
+            throw e;
         } catch (Exception e) {
             log.error("调用阿里云AI失败", e);
-            return "AI调用异常：" + e.getMessage();
+            throw new AiCallException("AI调用异常：" + e.getMessage(), e);
         }
+
+        if (jsonResponse == null || !jsonResponse.path("output").has("text")) {
+            log.error("AI API响应格式异常: {}", response.getBody());
+            throw new AiCallException("AI响应格式异常");
+        }
+        return jsonResponse.get("output").get("text").asText();
     }
     
+    /**
+     * 以 SSE 方式调用阿里云百炼大模型，逐段读取增量输出并回调 onDelta
+     *
+     * @return 完整输出
+     */
+    private String streamAlibabaAI(String model, String prompt, int maxTokens, Consumer<String> onDelta) {
+        if ("your-api-key-here".equals(apiKey)) {
+            throw new IllegalStateException("请先配置阿里云百炼大模型的API Key");
+        }
+
+        String url = baseUrl + GENERATION_PATH;
+        Map<String, Object> requestBody = buildRequestBody(model, prompt, maxTokens, true);
+        HttpHeaders headers = buildHeaders(true);
+
+        log.info("流式调用阿里云AI API: model={}, url={}", model, url);
+        return restTemplate.execute(url, HttpMethod.POST, request -> {
+            request.getHeaders().putAll(headers);
+            objectMapper.writeValue(request.getBody(), requestBody);
+        }, response -> readStream(response.getBody(), onDelta));
+    }
+
+    /**
+     * 解析 DashScope SSE 响应：data 行中的 output.text 为增量文本，event:error 表示调用失败
+     */
+    private String readStream(InputStream body, Consumer<String> onDelta) throws IOException {
+        StringBuilder output = new StringBuilder();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String event = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith("event:")) {
+                event = line.substring("event:".length()).trim();
+                continue;
+            }
+            if (!line.startsWith("data:")) {
+                continue;
+            }
+            JsonNode data = objectMapper.readTree(line.substring("data:".length()));
+            if ("error".equals(event)) {
+                log.error("AI流式调用失败: {}", data);
+                throw new IllegalStateException("AI调用失败：" + data.path("message").asText(data.toString()));
+            }
+            String delta = data.path("output").path("text").asText("");
+            if (!delta.isEmpty()) {
+                output.append(delta);
+                onDelta.accept(delta);
+            }
+        }
+        return output.toString();
+    }
+
+    private Map<String, Object> buildRequestBody(String model, String prompt, int maxTokens, boolean stream) {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", model);
+
+        Map<String, Object> input = new HashMap<>();
+        input.put("prompt", prompt);
+        requestBody.put("input", input);
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("max_tokens", maxTokens);
+        parameters.put("temperature", 0.7);
+        if (stream) {
+            // 每个事件只返回新增的文本
+            parameters.put("incremental_output", true);
+        }
+        requestBody.put("parameters", parameters);
+        return requestBody;
+    }
+
+    private HttpHeaders buildHeaders(boolean stream) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("Authorization", "Bearer " + apiKey);
+        headers.set("X-DashScope-SSE", stream ? "enable" : "disable");
+        if (stream) {
+            headers.setAccept(Collections.singletonList(MediaType.TEXT_EVENT_STREAM));
+        }
+        return headers;
+    }
+
     /**
      * 获取当前节气
      */
@@ -1,20 +1,40 @@
 package com.spideman.service;
 
 import com.spideman.dto.ArticleDTO;
+import com.spideman.dto.ArticleSaveResult;
+import com.spideman.dto.CursorPage;
+import com.spideman.dto.KeysetCursor;
 import com.spideman.entity.Article;
+import com.spideman.entity.ArticleContent;
+import com.spideman.repository.ArticleContentRepository;
 import com.spideman.repository.ArticleRepository;
+import com.spideman.service.counter.PopularArticleRanking;
+import com.spideman.service.counter.ViewCountBuffer;
+import com.spideman.service.crawler.SeenUrlIndex;
+import com.spideman.service.search.ArticleSearchIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,18 +42,58 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ArticleService {
     
+    private static final int URL_LOOKUP_CHUNK_SIZE = 500;
+    
+    private static final int POPULAR_ARTICLE_LIMIT = 10;
+    
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    
     private final ArticleRepository articleRepository;
+    private final ArticleContentRepository articleContentRepository;
+    private final SeenUrlIndex seenUrlIndex;
+    private final ArticleSearchIndex searchIndex;
+    private final ViewCountBuffer viewCountBuffer;
+    private final PopularArticleRanking popularArticleRanking;
     
     /**
      * 获取文章列表（分页）
      */
     public Page<ArticleDTO> getArticles(int page, int size, Article.ArticleStatus status) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<Article> articles = status != null ? 
-            articleRepository.findByStatusOrderByPublishTimeDesc(status, pageable) :
-            articleRepository.findAll(pageable);
+        Page<ArticleDTO> articles = status != null ? 
+            articleRepository.findCardsByStatus(status, pageable) :
+            articleRepository.findCards(pageable);
         
-        return articles.map(this::convertToDTO);
+        return articles.map(this::withPendingViews);
+    }
+    
+    /**
+     * 游标分页获取文章列表（按发布时间倒序，不统计总数，任意页的查询开销相同）
+     * 
+     * @throws IllegalArgumentException 游标无效
+     */
+    public CursorPage<ArticleDTO> getArticlesAfter(String cursor, int size, Article.ArticleStatus status) {
+        return findArticlesAfter(true, status, null, cursor, size);
+    }
+    
+    /**
+     * 游标分页获取管理后台文章表格（不读取摘要）
+     * 
+     * @throws IllegalArgumentException 游标无效
+     */
+    public CursorPage<ArticleDTO> getArticleRowsAfter(String cursor, int size, String source) {
+        return findArticlesAfter(false, null, source, cursor, size);
+    }
+    
+    private CursorPage<ArticleDTO> findArticlesAfter(boolean withSummary, Article.ArticleStatus status, String source,
+                                                     String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int limit = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        // 多取一条判断是否还有下一页
+        List<ArticleDTO> rows = articleRepository.findArticlesAfter(withSummary, status, source,
+            after != null ? after.getTime() : null, after != null ? after.getId() : null, limit + 1);
+        rows.forEach(this::withPendingViews);
+        return CursorPage.of(rows, limit, article -> KeysetCursor.of(article.getPublishTime(), article.getId()));
     }
     
     /**
@@ -49,36 +109,158 @@ public class ArticleService {
      */
     @Transactional
     public ArticleDTO saveArticle(Article article) {
-        // 检查URL是否已存在
-        Optional<Article> existing = articleRepository.findByUrl(article.getUrl());
-        if (existing.isPresent()) {
-            log.warn("文章已存在: {}", article.getUrl());
-            return convertToDTO(existing.get());
+        // 检查URL是否已存在（布隆过滤器确定为新URL时跳过查库）
+        if (!seenUrlIndex.isDefinitelyNew(article.getUrl())) {
+            seenUrlIndex.recordDatabaseLookups(1);
+            Optional<Article> existing = articleRepository.findByUrl(article.getUrl());
+            if (existing.isPresent()) {
+                log.warn("文章已存在: {}", article.getUrl());
+                seenUrlIndex.markSeen(article.getUrl());
+                return convertToDTO(existing.get());
+            }
         }
         
         Article saved = articleRepository.save(article);
+        if (saved.getContent() != null || saved.getContentZh() != null) {
+            articleContentRepository.save(new ArticleContent(saved.getId(), saved.getContent(), saved.getContentZh()));
+        }
+        seenUrlIndex.markSeen(saved.getUrl());
+        searchIndex.index(saved);
+        popularArticleRanking.updateStatus(saved.getId(), saved.getStatus(), saved.getViews());
         log.info("保存文章: {} - {}", saved.getId(), saved.getTitle());
         return convertToDTO(saved);
     }
     
     /**
-     * 更新文章浏览量
+     * 批量保存文章：先经已见URL索引过滤，剩余不确定的URL一次 IN 查询完成去重，
+     * 新文章通过JDBC批处理插入，返回与入参顺序一致的逐条处理结果
      */
     @Transactional
+    public List<ArticleSaveResult> saveArticles(List<Article> articles) {
+        ArticleSaveResult[] results = new ArticleSaveResult[articles.size()];
+        Map<String, Integer> candidates = new LinkedHashMap<>();
+        
+        // 校验并剔除批次内重复的URL
+        for (int i = 0; i < articles.size(); i++) {
+            Article article = articles.get(i);
+            String url = article.getUrl();
+            if (url == null || url.trim().isEmpty() || article.getTitle() == null) {
+                results[i] = new ArticleSaveResult(url, ArticleSaveResult.Outcome.FAILED, null, "缺少标题或URL");
+            } else if (candidates.containsKey(url)) {
+                results[i] = new ArticleSaveResult(url, ArticleSaveResult.Outcome.DUPLICATE, null, "批次内重复");
+            } else {
+                candidates.put(url, i);
+            }
+        }
+        
+        // 已见URL索引：LRU命中即为重复，布隆过滤器未命中即为新URL，其余才需要查库
+        List<String> uncertainUrls = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : candidates.entrySet()) {
+            String url = entry.getKey();
+            if (seenUrlIndex.isConfirmedSeen(url)) {
+                results[entry.getValue()] = new ArticleSaveResult(url, ArticleSaveResult.Outcome.DUPLICATE, null, "文章已存在");
+            } else if (!seenUrlIndex.isDefinitelyNew(url)) {
+                uncertainUrls.add(url);
+            }
+        }
+        
+        // 一次查询找出库中已存在的URL
+        seenUrlIndex.recordDatabaseLookups(uncertainUrls.size());
+        Set<String> existingUrls = uncertainUrls.isEmpty() ? Collections.<String>emptySet() : findExistingUrls(uncertainUrls);
+        List<Article> toInsert = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : candidates.entrySet()) {
+            if (results[entry.getValue()] != null) {
+                continue;
+            }
+            if (existingUrls.contains(entry.getKey())) {
+                results[entry.getValue()] = new ArticleSaveResult(entry.getKey(), ArticleSaveResult.Outcome.DUPLICATE, null, "文章已存在");
+            } else {
+                toInsert.add(articles.get(entry.getValue()));
+            }
+        }
+        
+        if (!toInsert.isEmpty()) {
+            // 批处理失败时仓库层会回滚整批后逐条重试，重试中的唯一约束冲突才计为重复
+            for (ArticleSaveResult result : articleRepository.batchInsert(toInsert)) {
+                results[candidates.get(result.getUrl())] = result;
+            }
+            
+            // 回填新文章的ID
+            List<String> savedUrls = new ArrayList<>();
+            for (ArticleSaveResult result : results) {
+                if (result.getOutcome() == ArticleSaveResult.Outcome.SAVED) {
+                    savedUrls.add(result.getUrl());
+                }
+            }
+            if (!savedUrls.isEmpty()) {
+                List<Article> savedArticles = articleRepository.findByUrlIn(savedUrls);
+                // 正文不随实体加载，建索引时从入参回填
+                for (Article saved : savedArticles) {
+                    Integer index = candidates.get(saved.getUrl());
+                    if (index != null) {
+                        saved.setContent(articles.get(index).getContent());
+                        saved.setContentZh(articles.get(index).getContentZh());
+                    }
+                }
+                searchIndex.index(savedArticles);
+                for (Article saved : savedArticles) {
+                    popularArticleRanking.updateStatus(saved.getId(), saved.getStatus(), saved.getViews());
+                }
+                Map<String, Long> idsByUrl = savedArticles.stream()
+                    .collect(Collectors.toMap(Article::getUrl, Article::getId));
+                for (ArticleSaveResult result : results) {
+                    if (result.getOutcome() == ArticleSaveResult.Outcome.SAVED) {
+                        result.setArticleId(idsByUrl.get(result.getUrl()));
+                    }
+                }
+            }
+        }
+        
+        // 新增和已存在的URL都记入索引（事务提交后生效），后续批次无需再查库
+        for (ArticleSaveResult result : results) {
+            if (result.getOutcome() != ArticleSaveResult.Outcome.FAILED) {
+                seenUrlIndex.markSeen(result.getUrl());
+            }
+        }
+        
+        log.info("批量保存文章: 共 {} 篇，新增 {} 篇，重复 {} 篇，失败 {} 篇", articles.size(),
+            countOutcome(results, ArticleSaveResult.Outcome.SAVED),
+            countOutcome(results, ArticleSaveResult.Outcome.DUPLICATE),
+            countOutcome(results, ArticleSaveResult.Outcome.FAILED));
+        return Arrays.asList(results);
+    }
+    
+    /**
+     * 分批执行 IN 查询，避免单条SQL参数过多
+     */
+    private Set<String> findExistingUrls(Collection<String> urls) {
+        Set<String> existing = new HashSet<>();
+        List<String> urlList = new ArrayList<>(urls);
+        for (int i = 0; i < urlList.size(); i += URL_LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = urlList.subList(i, Math.min(i + URL_LOOKUP_CHUNK_SIZE, urlList.size()));
+            existing.addAll(articleRepository.findExistingUrls(chunk));
+        }
+        return existing;
+    }
+    
+    private long countOutcome(ArticleSaveResult[] results, ArticleSaveResult.Outcome outcome) {
+        return Arrays.stream(results).filter(result -> result.getOutcome() == outcome).count();
+    }
+    
+    /**
+     * 更新文章浏览量（内存累加，定时批量落库）
+     */
     public void incrementViews(Long articleId) {
-        articleRepository.findById(articleId).ifPresent(article -> {
-            article.setViews(article.getViews() + 1);
-            articleRepository.save(article);
-        });
+        viewCountBuffer.incrementArticleViews(articleId);
+        popularArticleRanking.recordView(articleId);
     }
     
     /**
-     * 搜索文章
+     * 搜索文章（按相关度排序）
      */
     public Page<ArticleDTO> searchArticles(String keyword, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<Article> articles = articleRepository.searchArticles(keyword, pageable);
-        return articles.map(this::convertToDTO);
+        return searchArticles(keyword, pageable, articleRepository::findCardsByIdIn, articleRepository::searchCards);
     }
     
     /**
@@ -92,13 +274,24 @@ public class ArticleService {
     }
     
     /**
-     * 获取热门文章
+     * 获取热门文章（累计浏览量）
      */
     public List<ArticleDTO> getPopularArticles() {
-        List<Article> articles = articleRepository.findTop10ByStatusOrderByViewsDesc(Article.ArticleStatus.PUBLISHED);
-        return articles.stream()
-            .map(this::convertToDTO)
-            .collect(Collectors.toList());
+        return getPopularArticles(PopularArticleRanking.Window.ALL_TIME);
+    }
+    
+    /**
+     * 获取指定榜单的热门文章，直接读取内存排行快照
+     */
+    public List<ArticleDTO> getPopularArticles(PopularArticleRanking.Window window) {
+        if (popularArticleRanking.isReady()) {
+            return popularArticleRanking.getTop(window, POPULAR_ARTICLE_LIMIT);
+        }
+        // 排行尚未构建完成时退回数据库查询（按累计浏览量）
+        List<ArticleDTO> articles = articleRepository.findPopularCards(
+            Article.ArticleStatus.PUBLISHED, PageRequest.of(0, POPULAR_ARTICLE_LIMIT));
+        articles.forEach(this::withPendingViews);
+        return articles;
     }
     
     /**
@@ -151,7 +344,9 @@ public class ArticleService {
             article3.setViews(234);
             article3.setLikes(45);
             
-            articleRepository.saveAll(Arrays.asList(article1, article2, article3));
+            for (Article saved : articleRepository.saveAll(Arrays.asList(article1, article2, article3))) {
+                popularArticleRanking.updateStatus(saved.getId(), saved.getStatus(), saved.getViews());
+            }
             log.info("模拟数据创建完成");
         }
     }
@@ -164,24 +359,35 @@ public class ArticleService {
     }
     
     /**
-     * 获取文章列表（分页，支持Pageable参数）
+     * 获取文章列表（分页，支持Pageable参数，管理后台表格使用，不读取摘要和正文）
      */
-    public Page<Article> getArticles(Pageable pageable) {
-        return articleRepository.findAll(pageable);
+    public Page<ArticleDTO> getArticles(Pageable pageable) {
+        return articleRepository.findRows(pageable).map(this::withPendingViews);
     }
     
     /**
-     * 根据来源分页查询文章
+     * 搜索文章（支持Pageable参数，管理后台表格使用）
      */
-    public Page<Article> getArticlesBySource(String source, Pageable pageable) {
-        return articleRepository.findBySource(source, pageable);
+    public Page<ArticleDTO> searchArticles(String keyword, Pageable pageable) {
+        return searchArticles(keyword, pageable, articleRepository::findRowsByIdIn, articleRepository::searchRows);
     }
     
     /**
-     * 搜索文章（支持Pageable参数）
+     * 优先使用全文索引按相关度排序，命中的ID通过投影查询取回；索引未就绪或查询失败时退回 LIKE 查询
      */
-    public Page<Article> searchArticles(String keyword, Pageable pageable) {
-        return articleRepository.searchArticles(keyword, pageable);
+    private Page<ArticleDTO> searchArticles(String keyword, Pageable pageable,
+                                            Function<Collection<Long>, List<ArticleDTO>> loader,
+                                            BiFunction<String, Pageable, Page<ArticleDTO>> likeSearch) {
+        if (searchIndex.isReady() && keyword != null && !keyword.trim().isEmpty()) {
+            try {
+                ArticleSearchIndex.SearchHits hits = searchIndex.search(keyword, pageable.getPageNumber(), pageable.getPageSize());
+                List<ArticleDTO> ordered = orderByIds(hits.getArticleIds(), loader);
+                return new PageImpl<>(ordered, pageable, hits.getTotalHits());
+            } catch (Exception e) {
+                log.warn("全文索引查询失败，退回数据库查询: {} - {}", keyword, e.getMessage());
+            }
+        }
+        return likeSearch.apply(keyword, pageable).map(this::withPendingViews);
     }
     
     /**
@@ -189,7 +395,13 @@ public class ArticleService {
      */
     @Transactional
     public void deleteArticle(Long id) {
+        articleRepository.findById(id).ifPresent(article -> seenUrlIndex.forget(article.getUrl()));
         articleRepository.deleteById(id);
+        if (articleContentRepository.existsById(id)) {
+            articleContentRepository.deleteById(id);
+        }
+        searchIndex.delete(id);
+        popularArticleRanking.remove(id);
         log.info("删除文章: {}", id);
     }
     
@@ -311,6 +523,57 @@ public class ArticleService {
         }
     }
     
+    /**
+     * 按ID批量获取文章（一次 IN 查询），按传入ID的顺序返回，不存在的ID跳过
+     */
+    public List<ArticleDTO> getArticlesByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return orderByIds(ids, articleRepository::findCardsByIdIn);
+    }
+    
+    /**
+     * 根据日期范围获取文章DTO（最多 limit 篇，只读取卡片展示的列）
+     */
+    public List<ArticleDTO> getArticleDTOsByDateRange(LocalDateTime startTime, LocalDateTime endTime, int limit) {
+        List<ArticleDTO> articles = articleRepository.findCardsCreatedBetween(startTime, endTime, PageRequest.of(0, limit));
+        articles.forEach(this::withPendingViews);
+        return articles;
+    }
+    
+    /**
+     * 一次 IN 查询取回投影，按传入ID的顺序返回，不存在的ID跳过
+     */
+    private List<ArticleDTO> orderByIds(List<Long> ids, Function<Collection<Long>, List<ArticleDTO>> loader) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, ArticleDTO> byId = new HashMap<>();
+        for (ArticleDTO article : loader.apply(ids)) {
+            byId.put(article.getId(), article);
+        }
+        List<ArticleDTO> articles = new ArrayList<>(byId.size());
+        for (Long id : ids) {
+            ArticleDTO article = byId.get(id);
+            if (article != null) {
+                articles.add(withPendingViews(article));
+            }
+        }
+        return articles;
+    }
+    
+    /**
+     * 投影查询不经过实体监听器，在这里附加内存中尚未落库的浏览量
+     */
+    private ArticleDTO withPendingViews(ArticleDTO article) {
+        long pending = viewCountBuffer.pendingArticleViews(article.getId());
+        if (pending > 0 && article.getViews() != null) {
+            article.setViews(article.getViews() + (int) pending);
+        }
+        return article;
+    }
+    
     /**
      * 转换为DTO
      */
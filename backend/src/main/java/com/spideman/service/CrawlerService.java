@@ -1,19 +1,37 @@
 package com.spideman.service;
 
+import com.spideman.dto.ArticleSaveResult;
 import com.spideman.entity.Article;
 import com.spideman.entity.CrawlRecord;
 import com.spideman.repository.CrawlRecordRepository;
+import com.spideman.service.crawler.PageFetcher;
+import com.spideman.service.crawler.SeenUrlIndex;
+import com.spideman.service.crawler.SourceCircuitBreaker;
 import com.spideman.service.crawler.WebCrawler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -23,6 +41,18 @@ public class CrawlerService {
     private final List<WebCrawler> crawlers;
     private final ArticleService articleService;
     private final CrawlRecordRepository crawlRecordRepository;
+    private final SeenUrlIndex seenUrlIndex;
+    private final PageFetcher pageFetcher;
+    private final SourceCircuitBreaker circuitBreaker;
+    
+    @Qualifier("crawlerExecutor")
+    private final Executor crawlerExecutor;
+    
+    @Value("${crawler.parallel.enabled:true}")
+    private boolean parallelEnabled;
+    
+    @Value("${crawler.parallel.source-timeout-seconds:300}")
+    private long sourceTimeoutSeconds;
     
     /**
      * 从所有源爬取文章
@@ -30,66 +60,228 @@ public class CrawlerService {
     @Async
     public CompletableFuture<Map<String, Object>> crawlAllSources(int articlesPerSource) {
         Map<String, Object> result = new HashMap<>();
-        int totalArticles = 0;
-        int totalSuccess = 0;
+        long startTime = System.currentTimeMillis();
+        
+        log.info("🚀 开始从所有源爬取文章，每个源 {} 篇，模式: {}", 
+            articlesPerSource, parallelEnabled ? "并行" : "串行");
         
-        log.info("🚀 开始从所有源爬取文章，每个源 {} 篇", articlesPerSource);
+        List<CrawlRecord> records = parallelEnabled ? 
+            crawlSourcesInParallel(articlesPerSource) : 
+            crawlSourcesSequentially(articlesPerSource);
+        
+        int totalArticles = records.stream().mapToInt(CrawlRecord::getTotalCrawled).sum();
+        int totalSuccess = records.stream().mapToInt(CrawlRecord::getSuccessCount).sum();
+        int totalDuplicate = records.stream().mapToInt(CrawlRecord::getDuplicateCount).sum();
+        int totalFailed = records.stream().mapToInt(CrawlRecord::getErrorCount).sum();
+        long duration = System.currentTimeMillis() - startTime;
+        
+        result.put("totalAttempted", totalArticles);
+        result.put("totalSuccess", totalSuccess);
+        result.put("totalDuplicate", totalDuplicate);
+        result.put("totalFailed", totalFailed);
+        result.put("crawlTime", LocalDateTime.now());
+        result.put("parallel", parallelEnabled);
+        result.put("duration", duration);
+        
+        log.info("🎉 爬取完成！总计: {} 篇，成功: {} 篇，重复: {} 篇，失败: {} 篇，耗时: {} ms", 
+            totalArticles, totalSuccess, totalDuplicate, totalFailed, duration);
+        return CompletableFuture.completedFuture(result);
+    }
+    
+    /**
+     * 串行爬取：逐个源依次执行
+     */
+    private List<CrawlRecord> crawlSourcesSequentially(int articlesPerSource) {
+        List<CrawlRecord> records = new ArrayList<>();
         
         for (WebCrawler crawler : crawlers) {
-            if (!crawler.isAvailable()) {
-                log.warn("爬虫 {} 不可用，跳过", crawler.getName());
+            if (!circuitBreaker.allowRequest(crawler.getSource())) {
+                log.warn("爬虫 {} 已熔断，跳过", crawler.getName());
                 continue;
             }
             
-            CrawlRecord record = new CrawlRecord();
-            record.setSource(crawler.getSource());
-            record.setCrawlTime(LocalDateTime.now());
-            record.setStatus(CrawlRecord.CrawlStatus.RUNNING);
-            
-            try {
-                log.info("📡 正在爬取 {}...", crawler.getSource());
-                
-                List<Article> articles = crawler.crawlArticles(articlesPerSource);
-                int successCount = 0;
-                int errorCount = 0;
-                
-                for (Article article : articles) {
-                    try {
-                        articleService.saveArticle(article);
-                        successCount++;
-                        totalSuccess++;
-                    } catch (Exception e) {
-                        errorCount++;
-                        log.warn("保存文章失败: {}", e.getMessage());
+            CrawlRecord record = crawlSource(crawler, articlesPerSource, new AtomicBoolean());
+            crawlRecordRepository.save(record);
+            records.add(record);
+        }
+        
+        return records;
+    }
+    
+    /**
+     * 并行爬取：每个源作为独立任务提交到 crawlerExecutor，
+     * 哪个源先完成就先合并其爬取记录。每个源从开始执行时单独计时，超时的源设置取消标记并中断，
+     * 爬虫即使吞掉了中断，取消标记也会阻止其结果落库
+     */
+    private List<CrawlRecord> crawlSourcesInParallel(int articlesPerSource) {
+        List<CrawlRecord> records = new ArrayList<>();
+        CompletionService<CrawlRecord> completionService = new ExecutorCompletionService<>(crawlerExecutor);
+        Map<Future<CrawlRecord>, SourceTask> pending = new HashMap<>();
+        
+        for (WebCrawler crawler : crawlers) {
+            if (!circuitBreaker.allowRequest(crawler.getSource())) {
+                log.warn("爬虫 {} 已熔断，跳过", crawler.getName());
+                continue;
+            }
+            SourceTask task = new SourceTask(crawler);
+            Future<CrawlRecord> future = completionService.submit(() -> {
+                task.startedAt = System.nanoTime();
+                return crawlSource(crawler, articlesPerSource, task.cancelled);
+            });
+            task.future = future;
+            pending.put(future, task);
+        }
+        
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(sourceTimeoutSeconds);
+        
+        try {
+            while (!pending.isEmpty()) {
+                // 取消已超时的源，并找出最近的超时时间（仍在排队的源尚未开始计时）
+                long now = System.nanoTime();
+                long wait = timeoutNanos;
+                for (Iterator<SourceTask> it = pending.values().iterator(); it.hasNext(); ) {
+                    SourceTask task = it.next();
+                    if (task.startedAt == 0) {
+                        continue;
+                    }
+                    long remaining = task.startedAt + timeoutNanos - now;
+                    if (remaining <= 0) {
+                        it.remove();
+                        records.add(cancelTimedOut(task));
+                    } else {
+                        wait = Math.min(wait, remaining);
                     }
-                    totalArticles++;
+                }
+                if (pending.isEmpty()) {
+                    break;
                 }
                 
-                // 更新爬取记录
-                record.setTotalCrawled(articles.size());
-                record.setSuccessCount(successCount);
-                record.setErrorCount(errorCount);
-                record.setStatus(CrawlRecord.CrawlStatus.COMPLETED);
+                Future<CrawlRecord> future = completionService.poll(wait, TimeUnit.NANOSECONDS);
+                SourceTask task = future != null ? pending.remove(future) : null;
+                if (task == null) {
+                    continue; // 等待超时，或该源已作为超时处理
+                }
                 
-                log.info("✅ {}: 爬取 {} 篇，成功 {} 篇，失败 {} 篇", 
-                    crawler.getSource(), articles.size(), successCount, errorCount);
+                WebCrawler crawler = task.crawler;
+                CrawlRecord record;
+                try {
+                    record = future.get();
+                } catch (ExecutionException e) {
+                    record = failedRecord(crawler, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+                    circuitBreaker.recordFailure(crawler.getSource(), record.getErrorMessage());
+                    log.error("❌ {} 爬取失败: {}", crawler.getSource(), record.getErrorMessage());
+                }
                 
-            } catch (Exception e) {
-                record.setStatus(CrawlRecord.CrawlStatus.FAILED);
-                record.setErrorMessage(e.getMessage());
-                log.error("❌ {} 爬取失败: {}", crawler.getSource(), e.getMessage());
-            } finally {
-                crawlRecordRepository.save(record);
+                if (record != null) {
+                    crawlRecordRepository.save(record);
+                    records.add(record);
+                }
+                log.info("📥 {} 已完成，剩余 {} 个源", crawler.getSource(), pending.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("并行爬取等待被中断，取消剩余 {} 个源", pending.size());
+            for (SourceTask task : pending.values()) {
+                records.add(cancelTimedOut(task));
             }
         }
         
-        result.put("totalAttempted", totalArticles);
-        result.put("totalSuccess", totalSuccess);
-        result.put("totalFailed", totalArticles - totalSuccess);
-        result.put("crawlTime", LocalDateTime.now());
+        return records;
+    }
+    
+    /**
+     * 取消超时的源并记录失败
+     */
+    private CrawlRecord cancelTimedOut(SourceTask task) {
+        task.cancelled.set(true);
+        task.future.cancel(true);
+        WebCrawler crawler = task.crawler;
+        CrawlRecord record = failedRecord(crawler,
+            String.format("爬取超时（超过 %d 秒），已取消", sourceTimeoutSeconds));
+        crawlRecordRepository.save(record);
+        circuitBreaker.recordFailure(crawler.getSource(), record.getErrorMessage());
+        log.warn("⏱️ {} 爬取超时，已取消", crawler.getSource());
+        return record;
+    }
+    
+    /**
+     * 爬取单个源并保存文章，返回未持久化的爬取记录；cancelled 被设置后不再保存文章
+     */
+    private CrawlRecord crawlSource(WebCrawler crawler, int limit, AtomicBoolean cancelled) {
+        CrawlRecord record = new CrawlRecord();
+        record.setSource(crawler.getSource());
+        record.setCrawlTime(LocalDateTime.now());
+        record.setStatus(CrawlRecord.CrawlStatus.RUNNING);
         
-        log.info("🎉 爬取完成！总计: {} 篇，成功: {} 篇", totalArticles, totalSuccess);
-        return CompletableFuture.completedFuture(result);
+        try {
+            log.info("📡 正在爬取 {}...", crawler.getSource());
+            
+            List<Article> articles = crawler.crawlArticles(limit);
+            
+            // 任务已被取消时不再落库，避免记录与实际保存数量不一致（爬虫可能吞掉了中断，以取消标记为准）
+            if (cancelled.get() || Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("爬取任务已取消");
+            }
+            
+            List<ArticleSaveResult> saveResults = articleService.saveArticles(articles);
+            int successCount = countOutcome(saveResults, ArticleSaveResult.Outcome.SAVED);
+            int duplicateCount = countOutcome(saveResults, ArticleSaveResult.Outcome.DUPLICATE);
+            int errorCount = countOutcome(saveResults, ArticleSaveResult.Outcome.FAILED);
+            
+            // 更新爬取记录
+            record.setTotalCrawled(articles.size());
+            record.setSuccessCount(successCount);
+            record.setDuplicateCount(duplicateCount);
+            record.setErrorCount(errorCount);
+            record.setStatus(CrawlRecord.CrawlStatus.COMPLETED);
+            recordCrawlSuccess(crawler, articles);
+            
+            log.info("✅ {}: 爬取 {} 篇，成功 {} 篇，重复 {} 篇，失败 {} 篇", 
+                crawler.getSource(), articles.size(), successCount, duplicateCount, errorCount);
+            
+        } catch (CancellationException e) {
+            // 超时取消由调用方统一记录
+            record.setStatus(CrawlRecord.CrawlStatus.FAILED);
+            record.setErrorMessage(e.getMessage());
+        } catch (Exception e) {
+            record.setStatus(CrawlRecord.CrawlStatus.FAILED);
+            record.setErrorMessage(e.getMessage());
+            circuitBreaker.recordFailure(crawler.getSource(), e.getMessage());
+            log.error("❌ {} 爬取失败: {}", crawler.getSource(), e.getMessage());
+        }
+        
+        return record;
+    }
+    
+    /**
+     * 爬虫会吞掉自身异常并返回空列表，且页面未变化(304)时也为空，
+     * 因此只有拿到文章才视为成功，空结果不改变熔断状态（但结束半开试探）
+     */
+    private void recordCrawlSuccess(WebCrawler crawler, List<Article> articles) {
+        if (!articles.isEmpty()) {
+            circuitBreaker.recordSuccess(crawler.getSource());
+        } else {
+            circuitBreaker.recordInconclusive(crawler.getSource());
+        }
+    }
+    
+    /**
+     * 统计指定处理结果的文章数
+     */
+    private int countOutcome(List<ArticleSaveResult> results, ArticleSaveResult.Outcome outcome) {
+        return (int) results.stream().filter(result -> result.getOutcome() == outcome).count();
+    }
+    
+    /**
+     * 创建失败的爬取记录
+     */
+    private CrawlRecord failedRecord(WebCrawler crawler, String errorMessage) {
+        CrawlRecord record = new CrawlRecord();
+        record.setSource(crawler.getSource());
+        record.setCrawlTime(LocalDateTime.now());
+        record.setStatus(CrawlRecord.CrawlStatus.FAILED);
+        record.setErrorMessage(errorMessage);
+        return record;
     }
     
     /**
@@ -118,33 +310,31 @@ public class CrawlerService {
             log.info("📡 正在从 {} 爬取 {} 篇文章...", sourceName, limit);
             
             List<Article> articles = targetCrawler.crawlArticles(limit);
-            int successCount = 0;
-            
-            for (Article article : articles) {
-                try {
-                    articleService.saveArticle(article);
-                    successCount++;
-                } catch (Exception e) {
-                    log.warn("保存文章失败: {}", e.getMessage());
-                }
-            }
+            List<ArticleSaveResult> saveResults = articleService.saveArticles(articles);
+            int successCount = countOutcome(saveResults, ArticleSaveResult.Outcome.SAVED);
+            int duplicateCount = countOutcome(saveResults, ArticleSaveResult.Outcome.DUPLICATE);
+            int errorCount = countOutcome(saveResults, ArticleSaveResult.Outcome.FAILED);
             
             record.setTotalCrawled(articles.size());
             record.setSuccessCount(successCount);
-            record.setErrorCount(articles.size() - successCount);
+            record.setDuplicateCount(duplicateCount);
+            record.setErrorCount(errorCount);
             record.setStatus(CrawlRecord.CrawlStatus.COMPLETED);
+            recordCrawlSuccess(targetCrawler, articles);
             
             result.put("success", true);
             result.put("source", sourceName);
             result.put("totalCrawled", articles.size());
             result.put("successCount", successCount);
-            result.put("errorCount", articles.size() - successCount);
+            result.put("duplicateCount", duplicateCount);
+            result.put("errorCount", errorCount);
             
             log.info("✅ {} 爬取完成: {} 篇，成功 {} 篇", sourceName, articles.size(), successCount);
             
         } catch (Exception e) {
             record.setStatus(CrawlRecord.CrawlStatus.FAILED);
             record.setErrorMessage(e.getMessage());
+            circuitBreaker.recordFailure(targetCrawler.getSource(), e.getMessage());
             
             result.put("success", false);
             result.put("message", "爬取失败: " + e.getMessage());
@@ -158,13 +348,54 @@ public class CrawlerService {
     }
     
     /**
-     * 获取可用的爬虫列表
+     * 获取可用的爬虫列表（读取熔断器缓存状态，不发起网络请求）
      */
     public List<String> getAvailableCrawlers() {
         return crawlers.stream()
-            .filter(WebCrawler::isAvailable)
             .map(WebCrawler::getSource)
-            .collect(java.util.stream.Collectors.toList());
+            .filter(circuitBreaker::isAvailable)
+            .collect(Collectors.toList());
+    }
+    
+    /**
+     * 获取各爬虫源的熔断状态
+     */
+    public List<Map<String, Object>> getCrawlerHealth() {
+        return crawlers.stream()
+            .map(crawler -> circuitBreaker.getStatus(crawler.getSource()))
+            .collect(Collectors.toList());
+    }
+    
+    /**
+     * 后台健康检查：在爬虫线程池中并行探测各源，结果写入熔断器
+     */
+    @Scheduled(initialDelayString = "${crawler.health-check.initial-delay-ms:30000}",
+               fixedDelayString = "${crawler.health-check.interval-ms:300000}")
+    public void checkCrawlerHealth() {
+        for (WebCrawler crawler : crawlers) {
+            // 没有真实探测的爬虫只依据爬取结果判断
+            if (!crawler.hasAvailabilityProbe()) {
+                continue;
+            }
+            CompletableFuture.runAsync(() -> {
+                try {
+                    if (crawler.isAvailable()) {
+                        circuitBreaker.recordSuccess(crawler.getSource());
+                    } else {
+                        circuitBreaker.recordFailure(crawler.getSource(), "健康检查失败");
+                    }
+                } catch (Exception e) {
+                    circuitBreaker.recordFailure(crawler.getSource(), "健康检查异常: " + e.getMessage());
+                }
+            }, crawlerExecutor);
+        }
+    }
+    
+    /**
+     * 获取已见URL索引的命中统计
+     */
+    public Map<String, Object> getSeenUrlIndexStatistics() {
+        return seenUrlIndex.getStatistics();
     }
     
     /**
@@ -184,8 +415,28 @@ public class CrawlerService {
         stats.put("todayCrawls", todayCrawls);
         stats.put("todaySuccess", todaySuccess);
         stats.put("availableCrawlers", getAvailableCrawlers());
+        stats.put("crawlerHealth", getCrawlerHealth());
         stats.put("sourceStatistics", sourceStats);
+        stats.put("seenUrlIndex", seenUrlIndex.getStatistics());
+        stats.put("httpCache", pageFetcher.getStatistics());
         
         return stats;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 并行爬取中的单个源
+     */
+    private static final class SourceTask {
+        private final WebCrawler crawler;
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private Future<CrawlRecord> future;
+        /**
+         * 开始执行的时间（System.nanoTime），0 表示仍在排队
+         */
+        private volatile long startedAt;
+        
+        SourceTask(WebCrawler crawler) {
+            this.crawler = crawler;
+        }
+    }
+}
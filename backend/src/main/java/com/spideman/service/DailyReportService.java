@@ -1,21 +1,34 @@
 package com.spideman.service;
 
+import com.spideman.dto.CursorPage;
+import com.spideman.dto.KeysetCursor;
 import com.spideman.entity.Article;
 import com.spideman.entity.DailyReport;
 import com.spideman.repository.DailyReportRepository;
+import com.spideman.service.counter.ViewCountBuffer;
+import com.spideman.service.report.ReportChangedEvent;
+import com.spideman.service.report.ReportGenerationCoordinator;
+import com.spideman.service.report.ReportLeaseLostException;
+import com.spideman.service.report.ReportProgressListener;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -24,9 +37,17 @@ import java.util.stream.Collectors;
 @Slf4j
 public class DailyReportService {
     
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    
+    private static final int MAX_SAVE_ATTEMPTS = 3;
+    
     private final DailyReportRepository dailyReportRepository;
     private final ArticleService articleService;
     private final AlibabaAIService aiService;
+    private final ViewCountBuffer viewCountBuffer;
+    private final ReportGenerationCoordinator reportGenerationCoordinator;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
     
     /**
      * 获取今日日报
@@ -57,6 +78,27 @@ public class DailyReportService {
         return dailyReportRepository.findAll(pageable);
     }
     
+    /**
+     * 游标分页获取日报列表（按日期倒序，不统计总数）
+     * 
+     * @throws IllegalArgumentException 游标无效
+     */
+    public CursorPage<DailyReport> getReportsAfter(String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int limit = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        // 多取一条判断是否还有下一页
+        Pageable pageable = PageRequest.of(0, limit + 1);
+        List<DailyReport> rows;
+        if (after == null) {
+            rows = dailyReportRepository.findFirstReports(pageable);
+        } else if (after.getDate() != null) {
+            rows = dailyReportRepository.findReportsAfter(after.getDate(), after.getId(), pageable);
+        } else {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        return CursorPage.of(rows, limit, report -> KeysetCursor.of(report.getReportDate(), report.getId()));
+    }
+    
     /**
      * 根据状态分页获取日报
      */
@@ -79,49 +121,50 @@ public class DailyReportService {
     
     /**
      * 生成指定日期的技术日报
+     * 
+     * 同一日期的并发调用（启动初始化、定时任务、接口、后台）共享同一次生成，见 ReportGenerationCoordinator
      */
-    @Transactional
     public DailyReport generateDailyReport(LocalDate targetDate) {
+        return generateDailyReport(targetDate, ReportProgressListener.NONE);
+    }
+    
+    /**
+     * 生成指定日期的技术日报，并回调生成进度（共享他人进行中的生成时不回调）
+     */
+    public DailyReport generateDailyReport(LocalDate targetDate, ReportProgressListener listener) {
+        return reportGenerationCoordinator.generate(targetDate, () -> doGenerateDailyReport(targetDate, listener));
+    }
+    
+    /**
+     * 实际生成日报（由协调器保证同一日期同时只有一个调用）
+     * 
+     * 分三个阶段，AI 调用期间不占用数据库连接和行锁：
+     * 1. 短事务：查找或创建日报记录，读取当日文章；
+     * 2. 无事务：调用 AI 生成内容；
+     * 3. 短事务：写回日报，依靠版本号检测生成期间的并发修改。
+     */
+    private DailyReport doGenerateDailyReport(LocalDate targetDate, ReportProgressListener listener) {
         long startTime = System.currentTimeMillis();
         log.info("🚀 开始生成 {} 的技术日报", targetDate);
         
-        DailyReport report = null;
         try {
-            // 检查是否已存在该日期的日报
-            Optional<DailyReport> existingReport = dailyReportRepository.findByReportDate(targetDate);
-            if (existingReport.isPresent()) {
-                report = existingReport.get();
-                log.info("📄 发现已存在的日报，将更新内容: {} (ID: {})", targetDate, report.getId());
-            } else {
-                // 创建新日报
-                report = new DailyReport();
-                report.setReportDate(targetDate);
-                report.setTitle(String.format("%s 技术日报", targetDate.toString()));
-                report.setStatus(DailyReport.ReportStatus.DRAFT);
-                report.setCreatedAt(LocalDateTime.now());
-                report.setReadCount(0);
-                
-                // 先保存基本信息
-                try {
-                    report = dailyReportRepository.save(report);
-                    log.info("📝 创建新日报记录: {} (ID: {})", targetDate, report.getId());
-                } catch (Exception e) {
-                    // 如果保存失败，可能是并发创建，重新查询
-                    log.warn("创建日报时发生异常，尝试重新查询: {}", e.getMessage());
-                    Optional<DailyReport> retryReport = dailyReportRepository.findByReportDate(targetDate);
-                    if (retryReport.isPresent()) {
-                        report = retryReport.get();
-                        log.info("📄 重新查询到已存在的日报: {} (ID: {})", targetDate, report.getId());
-                    } else {
-                        throw e; // 如果还是没有，抛出原异常
-                    }
-                }
+            // 阶段一：读取
+            listener.onStage("读取文章", 10);
+            DailyReport report;
+            try {
+                report = transactionTemplate.execute(status -> findOrCreateReport(targetDate));
+            } catch (DataIntegrityViolationException e) {
+                // 并发创建了同一日期的日报，重新查询
+                log.warn("创建日报时发生冲突，重新查询: {}", e.getMessage());
+                report = dailyReportRepository.findByReportDate(targetDate).orElseThrow(() -> e);
             }
-            
-            // 获取指定日期的文章
+            // 记下生成前可手动编辑的内容，写回冲突时据此判断是否有人手动修改过
+            EditableContent before = EditableContent.of(report);
             List<Article> articles = getArticlesForDate(targetDate);
             log.info("📊 找到 {} 篇文章用于生成日报", articles.size());
             
+            // 阶段二：生成内容（不在事务中）
+            listener.onStage(articles.isEmpty() ? "生成空日报" : "AI 生成内容", 30);
             if (articles.isEmpty()) {
                 // 生成空日报
                 generateEmptyReport(report, targetDate);
@@ -131,10 +174,12 @@ public class DailyReportService {
                 generateAIReport(report, articles, targetDate);
             }
             
-            // 更新状态为已发布
+            // 阶段三：写回并发布
+            listener.onStage("保存日报", 90);
             report.setStatus(DailyReport.ReportStatus.PUBLISHED);
             report.setUpdatedAt(LocalDateTime.now());
-            report = dailyReportRepository.save(report);
+            report = saveGeneratedReport(report, before, targetDate);
+            eventPublisher.publishEvent(new ReportChangedEvent(report.getId(), "generated"));
             
             long duration = System.currentTimeMillis() - startTime;
             log.info("✅ {} 的技术日报生成完成，耗时: {} ms", targetDate, duration);
@@ -145,13 +190,91 @@ public class DailyReportService {
             long duration = System.currentTimeMillis() - startTime;
             log.error("❌ 生成 {} 的技术日报失败，耗时: {} ms", targetDate, duration, e);
             
-            // 在新的事务中处理失败状态
-            handleReportGenerationFailure(targetDate, e.getMessage());
+            // 单独记录失败状态；写回冲突或租约被接管时库中已是他人的最新版本，不再覆盖
+            if (!(e instanceof ObjectOptimisticLockingFailureException || e instanceof ReportLeaseLostException)) {
+                handleReportGenerationFailure(targetDate, e.getMessage());
+            }
             
             throw new RuntimeException("日报生成失败: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * 查找或创建指定日期的日报记录
+     */
+    private DailyReport findOrCreateReport(LocalDate targetDate) {
+        // 检查是否已存在该日期的日报
+        Optional<DailyReport> existingReport = dailyReportRepository.findByReportDate(targetDate);
+        if (existingReport.isPresent()) {
+            DailyReport report = existingReport.get();
+            log.info("📄 发现已存在的日报，将更新内容: {} (ID: {})", targetDate, report.getId());
+            return report;
+        }
+        
+        // 创建新日报
+        DailyReport report = new DailyReport();
+        report.setReportDate(targetDate);
+        report.setTitle(String.format("%s 技术日报", targetDate.toString()));
+        report.setStatus(DailyReport.ReportStatus.DRAFT);
+        report.setCreatedAt(LocalDateTime.now());
+        report.setReadCount(0);
+        
+        // 先保存基本信息
+        report = dailyReportRepository.saveAndFlush(report);
+        log.info("📝 创建新日报记录: {} (ID: {})", targetDate, report.getId());
+        return report;
+    }
+    
+    /**
+     * 写回生成结果；生成期间日报已被其他操作修改时重新读取最新版本：
+     * 若修改的是可手动编辑的内容（管理员编辑），保留对方的修改并放弃本次生成结果；
+     * 否则（如仅状态或阅读数变化）把生成内容合并到最新版本后重试，重试次数用尽仍冲突则抛出异常
+     */
+    private DailyReport saveGeneratedReport(DailyReport generated, EditableContent before, LocalDate targetDate) {
+        DailyReport report = generated;
+        for (int attempt = 1; ; attempt++) {
+            DailyReport toSave = report;
+            try {
+                // 锁定租约行确认仍由本实例生成，租约被接管时不覆盖对方的结果
+                return transactionTemplate.execute(status -> {
+                    reportGenerationCoordinator.lockLease(targetDate);
+                    return dailyReportRepository.save(toSave);
+                });
+            } catch (ObjectOptimisticLockingFailureException e) {
+                if (attempt >= MAX_SAVE_ATTEMPTS) {
+                    throw e;
+                }
+                DailyReport latest = dailyReportRepository.findByReportDate(targetDate).orElseThrow(() -> e);
+                if (!before.equals(EditableContent.of(latest))) {
+                    log.warn("⚠️ {} 的日报在生成期间已被手动编辑，保留手动编辑的内容，放弃本次生成结果", targetDate);
+                    return latest;
+                }
+                log.warn("⚠️ {} 的日报在生成期间已被其他操作更新，合并到最新版本后重试（第 {} 次）", targetDate, attempt);
+                copyGeneratedContent(generated, latest);
+                report = latest;
+            }
+        }
+    }
+    
+    /**
+     * 把本次生成的内容字段复制到最新版本上（保留其余字段，如阅读数）
+     */
+    private void copyGeneratedContent(DailyReport source, DailyReport target) {
+        target.setTitle(source.getTitle());
+        target.setSummary(source.getSummary());
+        target.setContent(source.getContent());
+        target.setHighlights(source.getHighlights());
+        target.setTrends(source.getTrends());
+        target.setTotalArticles(source.getTotalArticles());
+        target.setArticleIds(source.getArticleIds());
+        target.setTodayTrends(source.getTodayTrends());
+        target.setRecommendedArticles(source.getRecommendedArticles());
+        target.setDailyQuote(source.getDailyQuote());
+        target.setSolarTerm(source.getSolarTerm());
+        target.setStatus(source.getStatus());
+        target.setUpdatedAt(source.getUpdatedAt());
+    }
+    
     /**
      * 在新事务中处理日报生成失败
      */
@@ -165,6 +288,7 @@ public class DailyReportService {
                 report.setContent("生成失败：" + errorMessage);
                 report.setUpdatedAt(LocalDateTime.now());
                 dailyReportRepository.save(report);
+                eventPublisher.publishEvent(new ReportChangedEvent(report.getId(), "generation-failed"));
                 log.info("📝 已更新失败日报状态: {}", targetDate);
             }
         } catch (Exception e) {
@@ -202,18 +326,16 @@ public class DailyReportService {
         
         log.info("📝 手动更新日报: {} - {}", report.getReportDate(), title);
         
-        return dailyReportRepository.save(report);
+        DailyReport savedReport = dailyReportRepository.save(report);
+        eventPublisher.publishEvent(new ReportChangedEvent(savedReport.getId(), "updated"));
+        return savedReport;
     }
     
     /**
-     * 增加阅读次数
+     * 增加阅读次数（内存累加，定时批量落库）
      */
-    @Transactional
     public void incrementReadCount(Long reportId) {
-        dailyReportRepository.findById(reportId).ifPresent(report -> {
-            report.setReadCount(report.getReadCount() + 1);
-            dailyReportRepository.save(report);
-        });
+        viewCountBuffer.incrementReportReads(reportId);
     }
     
     /**
@@ -222,6 +344,7 @@ public class DailyReportService {
     @Transactional
     public void deleteReport(Long reportId) {
         dailyReportRepository.deleteById(reportId);
+        eventPublisher.publishEvent(new ReportChangedEvent(reportId, "deleted"));
         log.info("🗑️ 删除日报: {}", reportId);
     }
     
@@ -543,6 +666,7 @@ public class DailyReportService {
         report.setUpdatedAt(LocalDateTime.now());
         
         DailyReport savedReport = dailyReportRepository.save(report);
+        eventPublisher.publishEvent(new ReportChangedEvent(savedReport.getId(), "saved"));
         log.info("📝 保存日报: {} - {}", savedReport.getReportDate(), savedReport.getTitle());
         return savedReport;
     }
@@ -553,4 +677,46 @@ public class DailyReportService {
     public Optional<DailyReport> getReportById(Long id) {
         return dailyReportRepository.findById(id);
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 日报中可手动编辑的字段（与 updateReport 修改的字段一致）
+     */
+    private static final class EditableContent {
+        private final String title;
+        private final String summary;
+        private final String content;
+        private final String highlights;
+        private final String trends;
+        
+        private EditableContent(DailyReport report) {
+            this.title = report.getTitle();
+            this.summary = report.getSummary();
+            this.content = report.getContent();
+            this.highlights = report.getHighlights();
+            this.trends = report.getTrends();
+        }
+        
+        static EditableContent of(DailyReport report) {
+            return new EditableContent(report);
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof EditableContent)) {
+                return false;
+            }
+            EditableContent other = (EditableContent) o;
+            return Objects.equals(title, other.title) && Objects.equals(summary, other.summary)
+                && Objects.equals(content, other.content) && Objects.equals(highlights, other.highlights)
+                && Objects.equals(trends, other.trends);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(title, summary, content, highlights, trends);
+        }
+    }
+}
@@ -1,24 +1,33 @@
 package com.spideman.service;
 
+import com.spideman.entity.VisitHourlyRollup;
 import com.spideman.entity.VisitRecord;
 import com.spideman.entity.VisitStatistics;
+import com.spideman.repository.VisitHourlyRollupRepository;
+import com.spideman.repository.VisitRecordPartitionRepository;
 import com.spideman.repository.VisitRecordRepository;
 import com.spideman.repository.VisitStatisticsRepository;
+import com.spideman.service.visit.UniqueVisitorTracker;
+import com.spideman.service.visit.VisitRecordWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.TreeMap;
 
 @Service
 @RequiredArgsConstructor
@@ -26,70 +35,36 @@ import java.util.Optional;
 public class VisitStatisticsService {
     
     private final VisitRecordRepository visitRecordRepository;
+    private final VisitRecordPartitionRepository visitRecordPartitionRepository;
     private final VisitStatisticsRepository visitStatisticsRepository;
+    private final VisitHourlyRollupRepository visitHourlyRollupRepository;
+    private final VisitRecordWriter visitRecordWriter;
+    private final UniqueVisitorTracker uniqueVisitorTracker;
+    private final TransactionTemplate transactionTemplate;
     
     /**
-     * 记录访问
+     * 记录访问：只在请求线程中采集请求信息并放入写入队列，落库由 VisitRecordWriter 异步批量完成
      */
-    @Async
-    @Transactional
     public void recordVisit(HttpServletRequest request, VisitRecord.PageType pageType) {
         try {
             String ipAddress = getClientIpAddress(request);
             String userAgent = request.getHeader("User-Agent");
             String pagePath = request.getRequestURI();
             String referer = request.getHeader("Referer");
-            String sessionId = request.getSession().getId();
+            // 不为统计而创建会话
+            HttpSession session = request.getSession(false);
+            String sessionId = session != null ? session.getId() : null;
             
-            // 创建访问记录
             VisitRecord visitRecord = new VisitRecord(ipAddress, userAgent, pagePath, pageType, referer, sessionId);
-            visitRecordRepository.save(visitRecord);
-            
-            // 更新当日统计
-            updateDailyStatistics(LocalDate.now(), pageType, ipAddress);
-            
-            log.debug("记录访问: IP={}, 页面类型={}, 路径={}", ipAddress, pageType, pagePath);
+            if (!visitRecordWriter.offer(visitRecord)) {
+                log.debug("访问记录队列已满，丢弃: IP={}, 路径={}", ipAddress, pagePath);
+            }
             
         } catch (Exception e) {
             log.error("记录访问失败", e);
         }
     }
     
-    /**
-     * 更新当日统计数据
-     */
-    @Transactional
-    public void updateDailyStatistics(LocalDate date, VisitRecord.PageType pageType, String ipAddress) {
-        VisitStatistics statistics = visitStatisticsRepository.findByVisitDate(date)
-            .orElse(new VisitStatistics(date));
-        
-        // 增加页面访问量
-        statistics.setPageViews(statistics.getPageViews() + 1);
-        
-        // 根据页面类型增加对应的访问量
-        switch (pageType) {
-            case HOME:
-                statistics.setHomeVisits(statistics.getHomeVisits() + 1);
-                break;
-            case REPORT_DETAIL:
-                statistics.setReportVisits(statistics.getReportVisits() + 1);
-                break;
-            case ARTICLE_DETAIL:
-                statistics.setArticleVisits(statistics.getArticleVisits() + 1);
-                break;
-        }
-        
-        // 检查是否为新的独立访客（当天首次访问）
-        LocalDateTime startOfDay = date.atStartOfDay();
-        LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
-        
-        if (!visitRecordRepository.existsByIpAddressAndVisitTimeBetween(ipAddress, startOfDay, endOfDay.minusSeconds(1))) {
-            statistics.setUniqueVisitors(statistics.getUniqueVisitors() + 1);
-        }
-        
-        visitStatisticsRepository.save(statistics);
-    }
-    
     /**
      * 获取今日统计数据
      */
@@ -102,16 +77,100 @@ public class VisitStatisticsService {
      * 获取最近7天的统计数据
      */
     public List<VisitStatistics> getLast7DaysStatistics() {
-        LocalDate startDate = LocalDate.now().minusDays(6);
-        return visitStatisticsRepository.findLast7Days(startDate);
+        LocalDate today = LocalDate.now();
+        return getDailyStatistics(today.minusDays(6), today);
     }
     
     /**
      * 获取最近30天的统计数据
      */
     public List<VisitStatistics> getLast30DaysStatistics() {
-        LocalDate startDate = LocalDate.now().minusDays(29);
-        return visitStatisticsRepository.findLast30Days(startDate);
+        LocalDate today = LocalDate.now();
+        return getDailyStatistics(today.minusDays(29), today);
+    }
+    
+    /**
+     * 由小时汇总推导每日统计（按日期倒序）
+     * 
+     * UV 取自每日统计行（由访客草图估计）；没有小时汇总的历史日期沿用每日统计行中的计数。
+     */
+    public List<VisitStatistics> getDailyStatistics(LocalDate startDate, LocalDate endDate) {
+        Map<LocalDate, VisitStatistics> days = new TreeMap<>(Comparator.reverseOrder());
+        for (Object[] row : visitStatisticsRepository.findDailyCountersBetween(startDate, endDate)) {
+            VisitStatistics stats = new VisitStatistics((LocalDate) row[0]);
+            stats.setPageViews((Long) row[1]);
+            stats.setUniqueVisitors((Long) row[2]);
+            stats.setHomeVisits((Long) row[3]);
+            stats.setReportVisits((Long) row[4]);
+            stats.setArticleVisits((Long) row[5]);
+            days.put(stats.getVisitDate(), stats);
+        }
+        
+        for (Map.Entry<LocalDate, long[]> entry : sumRollups(startDate, endDate).entrySet()) {
+            long[] counts = entry.getValue();
+            VisitStatistics stats = days.computeIfAbsent(entry.getKey(), VisitStatistics::new);
+            stats.setPageViews(counts[0]);
+            stats.setHomeVisits(counts[1]);
+            stats.setReportVisits(counts[2]);
+            stats.setArticleVisits(counts[3]);
+        }
+        return new ArrayList<>(days.values());
+    }
+    
+    /**
+     * 获取某日按小时的访问量
+     */
+    public Map<String, Object> getHourlyStatistics(LocalDate date) {
+        long[] pageViews = new long[24];
+        long[] homeVisits = new long[24];
+        long[] reportVisits = new long[24];
+        long[] articleVisits = new long[24];
+        for (VisitHourlyRollup rollup : visitHourlyRollupRepository.findHourlyByDate(date)) {
+            int hour = rollup.getBucketStart().getHour();
+            long views = rollup.getPageViews();
+            pageViews[hour] += views;
+            switch (rollup.getPageType()) {
+                case HOME:
+                    homeVisits[hour] += views;
+                    break;
+                case REPORT_DETAIL:
+                    reportVisits[hour] += views;
+                    break;
+                case ARTICLE_DETAIL:
+                    articleVisits[hour] += views;
+                    break;
+                default:
+                    break;
+            }
+        }
+        
+        List<String> hours = new ArrayList<>();
+        for (int hour = 0; hour < 24; hour++) {
+            hours.add(String.format("%02d:00", hour));
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("date", date.toString());
+        result.put("hours", hours);
+        result.put("pageViews", toList(pageViews));
+        result.put("homeVisits", toList(homeVisits));
+        result.put("reportVisits", toList(reportVisits));
+        result.put("articleVisits", toList(articleVisits));
+        return result;
+    }
+    
+    /**
+     * 获取指定日期范围内访问量最高的页面
+     */
+    public List<Map<String, Object>> getTopPages(LocalDate startDate, LocalDate endDate, int limit) {
+        List<Map<String, Object>> pages = new ArrayList<>();
+        for (Object[] row : visitHourlyRollupRepository.findTopPaths(startDate, endDate, PageRequest.of(0, limit))) {
+            Map<String, Object> page = new HashMap<>();
+            page.put("path", row[0]);
+            page.put("pageType", row[1]);
+            page.put("pageViews", row[2]);
+            pages.add(page);
+        }
+        return pages;
     }
     
     /**
@@ -144,6 +203,13 @@ public class VisitStatisticsService {
         stats.put("yesterdayPageViews", yesterdayStats.getPageViews());
         stats.put("yesterdayUniqueVisitors", yesterdayStats.getUniqueVisitors());
         
+        // 多日独立访客（合并每日草图，同一访客跨天只计一次）
+        LocalDate today = LocalDate.now();
+        stats.put("last7DaysUniqueVisitors", uniqueVisitorTracker.estimateBetween(today.minusDays(6), today));
+        stats.put("last30DaysUniqueVisitors", uniqueVisitorTracker.estimateBetween(today.minusDays(29), today));
+        stats.put("visitWriter", visitRecordWriter.getStatistics());
+        stats.put("visitPartitions", visitRecordPartitionRepository.getStatistics());
+        
         return stats;
     }
     
@@ -151,8 +217,19 @@ public class VisitStatisticsService {
      * 获取最近访问记录
      */
     public List<VisitRecord> getRecentVisits(int limit) {
-        List<VisitRecord> records = visitRecordRepository.findRecentVisits();
-        return records.size() > limit ? records.subList(0, limit) : records;
+        List<VisitRecord> records = visitRecordPartitionRepository.findRecentVisits(limit);
+        if (records.size() < limit) {
+            // 月表数据不足时补充旧表中的历史记录
+            records.addAll(visitRecordRepository.findRecentVisits(PageRequest.of(0, limit - records.size())));
+        }
+        return records;
+    }
+    
+    /**
+     * 获取指定日期的访问记录（按时间倒序，最多 limit 条，包含月表和旧表）
+     */
+    public List<VisitRecord> getVisitsByDate(LocalDate date, int limit) {
+        return visitRecordPartitionRepository.findByVisitTimeBetween(date.atStartOfDay(), date.atTime(LocalTime.MAX), limit);
     }
     
     /**
@@ -163,8 +240,6 @@ public class VisitStatisticsService {
     public void dailyStatisticsTask() {
         try {
             LocalDate yesterday = LocalDate.now().minusDays(1);
-            LocalDateTime startOfDay = yesterday.atStartOfDay();
-            LocalDateTime endOfDay = yesterday.atTime(LocalTime.MAX);
             
             log.info("开始统计 {} 的访问数据", yesterday);
             
@@ -172,18 +247,23 @@ public class VisitStatisticsService {
             VisitStatistics statistics = visitStatisticsRepository.findByVisitDate(yesterday)
                 .orElse(new VisitStatistics(yesterday));
             
-            // 重新计算统计数据（确保准确性）
-            Long pageViews = visitRecordRepository.countPageViewsBetween(startOfDay, endOfDay);
-            Long uniqueVisitors = visitRecordRepository.countUniqueVisitorsByIpBetween(startOfDay, endOfDay);
-            Long homeVisits = visitRecordRepository.countPageViewsByTypeBetween(startOfDay, endOfDay, VisitRecord.PageType.HOME);
-            Long reportVisits = visitRecordRepository.countPageViewsByTypeBetween(startOfDay, endOfDay, VisitRecord.PageType.REPORT_DETAIL);
-            Long articleVisits = visitRecordRepository.countPageViewsByTypeBetween(startOfDay, endOfDay, VisitRecord.PageType.ARTICLE_DETAIL);
-            
-            statistics.setPageViews(pageViews);
+            // 优先由小时汇总重新核对计数（只读取当天的汇总行，不扫描访问记录）
+            long[] counts = sumRollups(yesterday, yesterday).get(yesterday);
+            Long uniqueVisitors = uniqueVisitorTracker.estimate(yesterday);
+            Long pageViews;
+            if (counts == null) {
+                // 没有小时汇总时直接统计访问记录（月表与旧表）
+                pageViews = visitRecordPartitionRepository.countPageViewsBetween(
+                    yesterday.atStartOfDay(), yesterday.atTime(LocalTime.MAX));
+                statistics.setPageViews(pageViews);
+            } else {
+                pageViews = counts[0];
+                statistics.setPageViews(counts[0]);
+                statistics.setHomeVisits(counts[1]);
+                statistics.setReportVisits(counts[2]);
+                statistics.setArticleVisits(counts[3]);
+            }
             statistics.setUniqueVisitors(uniqueVisitors);
-            statistics.setHomeVisits(homeVisits);
-            statistics.setReportVisits(reportVisits);
-            statistics.setArticleVisits(articleVisits);
             
             visitStatisticsRepository.save(statistics);
             
@@ -195,20 +275,61 @@ public class VisitStatisticsService {
     }
     
     /**
-     * 定时任务：清理旧的访问记录（保留90天）
+     * 定时任务：清理旧的访问记录（保留90天，按月分表整表删除）
      */
     @Scheduled(cron = "0 30 2 * * ?") // 每天凌晨02:30执行
-    @Transactional
     public void cleanupOldRecords() {
         try {
             LocalDateTime cutoffTime = LocalDateTime.now().minusDays(90);
-            visitRecordRepository.deleteOldRecords(cutoffTime);
-            log.info("清理了90天前的访问记录");
+            // DROP TABLE 在 MySQL 中会隐式提交事务，必须在事务之外执行
+            int droppedTables = visitRecordPartitionRepository.dropPartitionsBefore(cutoffTime.toLocalDate());
+            int[] removed = transactionTemplate.execute(status -> new int[]{
+                visitRecordRepository.deleteOldRecords(cutoffTime),
+                visitHourlyRollupRepository.deletePathRollupsBefore(cutoffTime.toLocalDate())
+            });
+            int removedLegacy = removed != null ? removed[0] : 0;
+            int removedRollups = removed != null ? removed[1] : 0;
+            log.info("清理了90天前的访问记录: 删除月表 {} 张，旧表记录 {} 条，按路径小时汇总 {} 行",
+                droppedTables, removedLegacy, removedRollups);
         } catch (Exception e) {
             log.error("清理旧访问记录失败", e);
         }
     }
     
+    /**
+     * 按日期汇总小时汇总行：PV、首页/日报/文章访问量
+     */
+    private Map<LocalDate, long[]> sumRollups(LocalDate startDate, LocalDate endDate) {
+        Map<LocalDate, long[]> result = new HashMap<>();
+        for (Object[] row : visitHourlyRollupRepository.sumDailyByPageType(startDate, endDate)) {
+            long[] counts = result.computeIfAbsent((LocalDate) row[0], key -> new long[4]);
+            long views = ((Number) row[2]).longValue();
+            counts[0] += views;
+            switch ((VisitRecord.PageType) row[1]) {
+                case HOME:
+                    counts[1] += views;
+                    break;
+                case REPORT_DETAIL:
+                    counts[2] += views;
+                    break;
+                case ARTICLE_DETAIL:
+                    counts[3] += views;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return result;
+    }
+    
+    private List<Long> toList(long[] values) {
+        List<Long> list = new ArrayList<>(values.length);
+        for (long value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+    
     /**
      * 获取客户端真实IP地址
      */
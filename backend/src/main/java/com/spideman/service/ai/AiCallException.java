@@ -0,0 +1,17 @@
+package com.spideman.service.ai;
+
+/**
+ * 大模型调用失败（未配置 API Key、HTTP 错误、响应格式异常或网络异常）
+ * 
+ * 异常信息可直接展示给用户；失败结果不会写入 AI 响应缓存。
+ */
+public class AiCallException extends RuntimeException {
+    
+    public AiCallException(String message) {
+        super(message);
+    }
+    
+    public AiCallException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,240 @@
+package com.spideman.service.ai;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * AI 响应缓存（内容寻址）
+ *
+ * 键为（模型, 提示词模板, 输入）的 SHA-256，两级存储：进程内 LRU 和 ai_response_cache 表。
+ * 只缓存成功的响应（loader 抛出异常时不缓存），两级都按写入时间加 ttl-days 过期；
+ * 模板内容变化时应修改模板版本号，使旧缓存自然失效。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AiResponseCache {
+    
+    private static final String SELECT_SQL = "SELECT response, created_at FROM ai_response_cache WHERE cache_key = ? AND created_at >= ?";
+    private static final String INSERT_SQL = "INSERT INTO ai_response_cache (cache_key, model, template, response, created_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL = "UPDATE ai_response_cache SET response = ?, created_at = ? WHERE cache_key = ?";
+    private static final String CLEANUP_SQL = "DELETE FROM ai_response_cache WHERE created_at < ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Value("${ai.cache.memory-entries:2000}")
+    private int memoryEntries;
+    
+    @Value("${ai.cache.ttl-days:90}")
+    private int ttlDays;
+    
+    private Map<String, CachedResponse> memory;
+    
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder databaseHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    
+    @PostConstruct
+    public void init() {
+        this.memory = Collections.synchronizedMap(new LinkedHashMap<String, CachedResponse>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > memoryEntries;
+            }
+        });
+    }
+    
+    /**
+     * 读取缓存，未命中时调用 loader 并缓存结果
+     * 
+     * loader 抛出的异常原样抛给调用方，返回 null 时同样不缓存。
+     */
+    public String getOrLoad(String model, String template, String input, Supplier<String> loader) {
+        String key = key(model, template, input);
+        String cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+    
+        String response = loader.get();
+        if (response != null) {
+            remember(key, response, LocalDateTime.now());
+            store(key, model, template, response);
+        }
+        return response;
+    }
+    
+    /**
+     * 只读取缓存，未命中时返回 null（用于流式调用等无法使用 getOrLoad 的场景）
+     */
+    public String get(String model, String template, String input) {
+        return lookup(key(model, template, input));
+    }
+    
+    /**
+     * 写入缓存
+     */
+    public void put(String model, String template, String input, String response) {
+        String key = key(model, template, input);
+        remember(key, response, LocalDateTime.now());
+        store(key, model, template, response);
+    }
+    
+    /**
+     * 删除指定缓存项（例如需要强制重新生成时）
+     */
+    public void evict(String model, String template, String input) {
+        String key = key(model, template, input);
+        memory.remove(key);
+        try {
+            jdbcTemplate.update("DELETE FROM ai_response_cache WHERE cache_key = ?", key);
+        } catch (DataAccessException e) {
+            log.warn("删除AI缓存失败: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * 获取缓存命中统计
+     */
+    public Map<String, Object> getStatistics() {
+        long memory = memoryHits.sum();
+        long database = databaseHits.sum();
+        long miss = misses.sum();
+        long total = memory + database + miss;
+    
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("memoryEntries", this.memory.size());
+        stats.put("memoryCapacity", memoryEntries);
+        stats.put("memoryHits", memory);
+        stats.put("databaseHits", database);
+        stats.put("misses", miss);
+        stats.put("stores", stores.sum());
+        stats.put("hitRate", total == 0 ? 0.0 : Math.round((memory + database) * 10000.0 / total) / 100.0);
+        return stats;
+    }
+    
+    /**
+     * 定时清理过期缓存
+     */
+    @Scheduled(cron = "0 50 2 * * ?") // 每天凌晨02:50执行
+    public void cleanupExpired() {
+        try {
+            int removed = jdbcTemplate.update(CLEANUP_SQL, Timestamp.valueOf(LocalDateTime.now().minusDays(ttlDays)));
+            if (removed > 0) {
+                log.info("🗑️ 清理过期AI缓存: {} 条", removed);
+            }
+        } catch (DataAccessException e) {
+            log.warn("清理过期AI缓存失败: {}", e.getMessage());
+        }
+    }
+    
+    private String lookup(String key) {
+        CachedResponse cached = memory.get(key);
+        if (cached != null) {
+            if (!cached.isExpired()) {
+                memoryHits.increment();
+                return cached.response;
+            }
+            // 进程内条目与数据库记录使用同一过期时间，过期后按未命中处理
+            memory.remove(key, cached);
+        }
+    
+        cached = loadFromDatabase(key);
+        if (cached != null) {
+            databaseHits.increment();
+            memory.put(key, cached);
+            return cached.response;
+        }
+    
+        misses.increment();
+        return null;
+    }
+    
+    private void remember(String key, String response, LocalDateTime createdAt) {
+        memory.put(key, new CachedResponse(response, createdAt.plusDays(ttlDays)));
+    }
+    
+    private CachedResponse loadFromDatabase(String key) {
+        try {
+            List<CachedResponse> rows = jdbcTemplate.query(SELECT_SQL,
+                (rs, rowNum) -> new CachedResponse(rs.getString("response"),
+                    rs.getTimestamp("created_at").toLocalDateTime().plusDays(ttlDays)),
+                key, Timestamp.valueOf(LocalDateTime.now().minusDays(ttlDays)));
+            return rows.isEmpty() ? null : rows.get(0);
+        } catch (DataAccessException e) {
+            log.warn("读取AI缓存失败: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    private void store(String key, String model, String template, String response) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            jdbcTemplate.update(INSERT_SQL, key, model, template, response, now);
+            stores.increment();
+        } catch (DuplicateKeyException e) {
+            // 已过期的旧记录或并发写入，覆盖为最新结果
+            jdbcTemplate.update(UPDATE_SQL, response, now, key);
+            stores.increment();
+        } catch (DataAccessException e) {
+            log.warn("写入AI缓存失败: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * 进程内缓存条目（响应和过期时间）
+     */
+    private static final class CachedResponse {
+        
+        private final String response;
+        private final LocalDateTime expiresAt;
+        
+        private CachedResponse(String response, LocalDateTime expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+        
+        private boolean isExpired() {
+            return !LocalDateTime.now().isBefore(expiresAt);
+        }
+    }
+    
+    private static String key(String model, String template, String input) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(model.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(template.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            byte[] hash = digest.digest(input.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.spideman.service.ai;
+
+import com.spideman.dto.ArticleDTO;
+import com.spideman.service.AlibabaAIService;
+import com.spideman.service.ArticleService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 文章总结流式输出（SSE）
+ *
+ * 请求线程只创建 SseEmitter 后立即返回，抓取文章和流式调用在独立的流式总结线程池中执行
+ * （不占用日报生成的 AI 线程池），模型的增量输出逐段转发给浏览器。事件：meta（文章信息）、delta（增量文本）、done、failed。
+ * 客户端断开后停止读取模型输出。
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SummaryStreamService {
+    
+    private final ArticleService articleService;
+    private final AlibabaAIService aiService;
+    @Qualifier("summaryStreamExecutor")
+    private final Executor summaryStreamExecutor;
+    
+    @Value("${ai.stream.sse-timeout-ms:180000}")
+    private long sseTimeoutMillis;
+    
+    /**
+     * 流式总结指定文章
+     */
+    public SseEmitter summarize(Long articleId) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMillis);
+        Optional<ArticleDTO> article = articleService.getArticleById(articleId);
+        if (!article.isPresent()) {
+            fail(emitter, "文章不存在");
+            return emitter;
+        }
+    
+        AtomicBoolean closed = new AtomicBoolean();
+        Runnable close = () -> closed.set(true);
+        emitter.onCompletion(close);
+        emitter.onTimeout(close);
+        emitter.onError(e -> close.run());
+    
+        try {
+            summaryStreamExecutor.execute(() -> run(emitter, closed, article.get()));
+        } catch (RejectedExecutionException e) {
+            log.warn("⚠️ 流式总结线程池已满，拒绝流式总结: {}", articleId);
+            fail(emitter, "AI服务繁忙，请稍后重试");
+        }
+        return emitter;
+    }
+    
+    private void run(SseEmitter emitter, AtomicBoolean closed, ArticleDTO article) {
+        long startTime = System.currentTimeMillis();
+        try {
+            Map<String, Object> meta = new HashMap<>();
+            meta.put("title", article.getTitle());
+            meta.put("url", article.getUrl());
+            send(emitter, "meta", meta);
+    
+            String summary = aiService.summarizeArticleStreaming(article.getUrl(), article.getTitle(), delta -> {
+                if (closed.get()) {
+                    throw new CancellationException("客户端已断开");
+                }
+                send(emitter, "delta", Collections.singletonMap("text", delta));
+            });
+    
+            send(emitter, "done", Collections.singletonMap("length", summary.length()));
+            emitter.complete();
+            log.info("✅ 流式总结完成: {} ({} 字符，耗时 {}ms)", article.getTitle(), summary.length(),
+                System.currentTimeMillis() - startTime);
+        } catch (CancellationException e) {
+            log.info("流式总结已取消（客户端断开）: {}", article.getTitle());
+        } catch (Exception e) {
+            log.error("流式总结失败: {}", article.getUrl(), e);
+            fail(emitter, "总结失败: " + e.getMessage());
+        }
+    }
+    
+    private void fail(SseEmitter emitter, String message) {
+        try {
+            send(emitter, "failed", Collections.singletonMap("message", message));
+            emitter.complete();
+        } catch (CancellationException e) {
+            // 客户端已断开
+        }
+    }
+    
+    /**
+     * 发送事件；数据以 JSON 发送，避免文本中的换行破坏 SSE 格式
+     */
+    private void send(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+            throw new CancellationException("客户端已断开");
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.spideman.service.ai;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.spideman.entity.Article;
+import com.spideman.repository.ArticleRepository;
+import com.spideman.service.AlibabaAIService;
+import com.spideman.service.search.ArticleSearchIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 文章标题/摘要批量翻译任务
+ *
+ * 定时取出 PENDING 状态的文章，把多篇文章的标题和摘要编号后放入一次模型请求，
+ * 校验返回的 JSON（编号、数量、非空），写回 titleZh / summaryZh 并把状态推进为 TRANSLATED。
+ * 整批解析失败时二分重试，单篇失败次数记录在 articles.translation_attempts，达到上限后跳过；
+ * 模型服务调用失败时立即结束本轮并指数退避。任务在独立线程中运行，不占用默认的定时任务线程。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TranslationWorker {
+    
+    private static final String BEGIN_MARKER = "<<<BEGIN>>>";
+    private static final String END_MARKER = "<<<END>>>";
+    
+    private static final String UPDATE_SQL = "UPDATE articles SET title_zh = ?, summary_zh = ?, status = ?, updated_at = ? " +
+        "WHERE id = ? AND status = ?";
+    private static final String INCREMENT_ATTEMPTS_SQL = "UPDATE articles SET translation_attempts = translation_attempts + 1 WHERE id = ?";
+    
+    private static final int MAX_TITLE_LENGTH = 500;
+    
+    private final ArticleRepository articleRepository;
+    private final AlibabaAIService aiService;
+    private final ArticleSearchIndex articleSearchIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    @Value("${translation.worker.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${translation.worker.batch-size:10}")
+    private int batchSize;
+    
+    @Value("${translation.worker.max-batches-per-run:5}")
+    private int maxBatchesPerRun;
+    
+    /**
+     * 单次请求中标题和摘要的总字符数上限（摘要整段翻译，不截断）
+     */
+    @Value("${translation.worker.max-batch-chars:4000}")
+    private int maxBatchChars;
+    
+    @Value("${translation.worker.max-attempts:3}")
+    private int maxAttempts;
+    
+    @Value("${translation.worker.backoff-initial-ms:300000}")
+    private long initialBackoffMs;
+    
+    @Value("${translation.worker.backoff-max-ms:3600000}")
+    private long maxBackoffMs;
+    
+    /**
+     * 模型服务连续失败时的退避状态（只在翻译线程内修改）
+     */
+    private volatile long backoffUntil;
+    private long backoffMs;
+    
+    private final LongAdder translated = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failedRequests = new LongAdder();
+    
+    /**
+     * 定时翻译待处理文章（在 translationExecutor 中执行，上一轮未结束时本次触发被丢弃）
+     */
+    @Async("translationExecutor")
+    @Scheduled(initialDelayString = "${translation.worker.initial-delay-ms:60000}",
+               fixedDelayString = "${translation.worker.interval-ms:120000}")
+    public synchronized void translatePending() {
+        if (!enabled || System.currentTimeMillis() < backoffUntil) {
+            return;
+        }
+    
+        int total = 0;
+        try {
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                List<Article> batch = nextBatch();
+                if (batch.isEmpty()) {
+                    break;
+                }
+                total += translateBatch(batch);
+            }
+            backoffMs = 0;
+        } catch (AiCallException e) {
+            // 模型服务不可用时继续请求只会重复失败，本轮结束并延后下一轮
+            failedRequests.increment();
+            backoffMs = backoffMs == 0 ? initialBackoffMs : Math.min(backoffMs * 2, maxBackoffMs);
+            backoffUntil = System.currentTimeMillis() + backoffMs;
+            log.warn("⚠️ 批量翻译调用失败，{} 秒后重试: {}", backoffMs / 1000, e.getMessage());
+        }
+        if (total > 0) {
+            log.info("🌐 批量翻译完成: {} 篇", total);
+        }
+    }
+    
+    /**
+     * 获取翻译任务状态
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("translated", translated.sum());
+        stats.put("requests", requests.sum());
+        stats.put("failedRequests", failedRequests.sum());
+        stats.put("skippedArticles", articleRepository.countByStatusAndTranslationAttemptsGreaterThanEqual(
+            Article.ArticleStatus.PENDING, maxAttempts));
+        long remaining = backoffUntil - System.currentTimeMillis();
+        stats.put("backoffSeconds", remaining > 0 ? remaining / 1000 : 0);
+        return stats;
+    }
+    
+    /**
+     * 取下一批文章：按 ID 顺序，数量不超过 batchSize，字符数不超过 maxBatchChars（至少一篇）
+     */
+    private List<Article> nextBatch() {
+        List<Article> candidates = articleRepository.findByStatusAndTranslationAttemptsLessThanOrderByIdAsc(
+            Article.ArticleStatus.PENDING, maxAttempts, PageRequest.of(0, batchSize));
+        List<Article> batch = new ArrayList<>(batchSize);
+        int chars = 0;
+        for (Article article : candidates) {
+            chars += length(article.getTitle()) + length(article.getSummary());
+            if (!batch.isEmpty() && chars > maxBatchChars) {
+                break;
+            }
+            batch.add(article);
+        }
+        return batch;
+    }
+    
+    private void recordFailures(List<Article> articles) {
+        List<Object[]> ids = new ArrayList<>(articles.size());
+        for (Article article : articles) {
+            ids.add(new Object[]{article.getId()});
+        }
+        jdbcTemplate.batchUpdate(INCREMENT_ATTEMPTS_SQL, ids);
+    }
+    
+    /**
+     * 翻译一批文章；整批结果无法解析时二分后分别重试
+     *
+     * @return 成功翻译的文章数
+     * @throws AiCallException 模型服务调用失败（不计入文章的失败次数）
+     */
+    private int translateBatch(List<Article> batch) {
+        Map<Integer, String[]> results = requestTranslations(batch);
+        if (results == null) {
+            if (batch.size() == 1) {
+                recordFailures(batch);
+                return 0;
+            }
+            int middle = batch.size() / 2;
+            return translateBatch(new ArrayList<>(batch.subList(0, middle)))
+                + translateBatch(new ArrayList<>(batch.subList(middle, batch.size())));
+        }
+    
+        List<Article> completed = new ArrayList<>();
+        List<Article> missing = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int i = 0; i < batch.size(); i++) {
+            Article article = batch.get(i);
+            String[] result = results.get(i + 1);
+            if (result == null) {
+                // 模型遗漏了该项，下次重试
+                missing.add(article);
+                continue;
+            }
+            article.setTitleZh(result[0]);
+            article.setSummaryZh(result[1]);
+            article.setStatus(Article.ArticleStatus.TRANSLATED);
+            completed.add(article);
+            updates.add(new Object[]{result[0], result[1], Article.ArticleStatus.TRANSLATED.name(), now,
+                article.getId(), Article.ArticleStatus.PENDING.name()});
+        }
+    
+        if (!missing.isEmpty()) {
+            recordFailures(missing);
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+            articleSearchIndex.index(completed);
+            translated.add(completed.size());
+        }
+        return completed.size();
+    }
+    
+    /**
+     * 发送一次批量翻译请求并校验结果
+     *
+     * @return 编号 → {titleZh, summaryZh}；输出缺失或格式错误时返回 null
+     * @throws AiCallException 模型服务调用失败
+     */
+    private Map<Integer, String[]> requestTranslations(List<Article> batch) {
+        ArrayNode items = objectMapper.createArrayNode();
+        for (int i = 0; i < batch.size(); i++) {
+            Article article = batch.get(i);
+            ObjectNode item = items.addObject();
+            item.put("id", i + 1);
+            item.put("title", article.getTitle());
+            item.put("summary", article.getSummary() != null ? article.getSummary() : "");
+        }
+    
+        requests.increment();
+        String output;
+        try {
+            output = aiService.translateBatch(objectMapper.writeValueAsString(items), BEGIN_MARKER, END_MARKER);
+        } catch (JsonProcessingException e) {
+            log.warn("构建批量翻译请求失败: {}", e.getMessage());
+            return null;
+        }
+    
+        Map<Integer, String[]> results = parse(output, batch.size());
+        if (results == null) {
+            failedRequests.increment();
+            log.warn("⚠️ 批量翻译结果无效（{} 篇）: {}", batch.size(), output.length() > 200 ? output.substring(0, 200) : output);
+        }
+        return results;
+    }
+    
+    /**
+     * 解析模型输出：取起止标记之间的 JSON 数组，丢弃编号越界、重复或标题为空的项
+     *
+     * @return 编号 → {titleZh, summaryZh（为空时为 null）}；没有任何有效项时返回 null
+     */
+    Map<Integer, String[]> parse(String output, int expected) {
+        int begin = output.indexOf(BEGIN_MARKER);
+        int end = output.lastIndexOf(END_MARKER);
+        String json = begin >= 0 && end > begin ? output.substring(begin + BEGIN_MARKER.length(), end) : output;
+        int start = json.indexOf('[');
+        int stop = json.lastIndexOf(']');
+        if (start < 0 || stop <= start) {
+            return null;
+        }
+    
+        try {
+            JsonNode array = objectMapper.readTree(json.substring(start, stop + 1));
+            if (!array.isArray()) {
+                return null;
+            }
+            Map<Integer, String[]> results = new HashMap<>();
+            for (JsonNode node : array) {
+                int id = node.path("id").asInt(0);
+                String titleZh = node.path("titleZh").asText("").trim();
+                String summaryZh = node.path("summaryZh").asText("").trim();
+                if (id < 1 || id > expected || results.containsKey(id) || titleZh.isEmpty()) {
+                    continue;
+                }
+                results.put(id, new String[]{truncate(titleZh, MAX_TITLE_LENGTH), summaryZh.isEmpty() ? null : summaryZh});
+            }
+            // 一项都没有对上编号视为整批失败
+            return results.isEmpty() ? null : results;
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+    
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+    
+    private String truncate(String value, int maxLength) {
+        if (value == null) {
+            return "";
+        }
+        return value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+}
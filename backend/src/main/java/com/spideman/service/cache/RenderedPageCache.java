@@ -0,0 +1,201 @@
+package com.spideman.service.cache;
+
+import com.spideman.service.report.ReportChangedEvent;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 公开页面的渲染结果缓存
+ *
+ * 按路由缓存渲染好的 HTML 和强 ETag，日报变更事件在事务提交后使首页和对应日报页失效；
+ * TTL 兜底其余变化（文章总数、阅读数、跨日、其他实例上的修改）。
+ * 渲染期间发生失效时（代数变化）不写入渲染结果，避免缓存旧内容。
+ */
+@Component
+@Slf4j
+public class RenderedPageCache {
+    
+    /**
+     * 请求属性：设置后本次渲染结果不缓存（例如错误页）
+     */
+    public static final String SKIP_ATTRIBUTE = RenderedPageCache.class.getName() + ".SKIP";
+    
+    public static final String HOME_KEY = "/";
+    
+    @Value("${page-cache.enabled:true}")
+    @Getter
+    private boolean enabled;
+    
+    @Value("${page-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+    
+    @Value("${page-cache.max-entries:500}")
+    private int maxEntries;
+    
+    private final ConcurrentHashMap<String, CachedPage> pages = new ConcurrentHashMap<>();
+    
+    /**
+     * 失效代数，每次失效递增
+     */
+    private final AtomicLong generation = new AtomicLong();
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    
+    public static String reportKey(Long reportId) {
+        return "/report/" + reportId;
+    }
+    
+    /**
+     * 读取未过期的缓存页面
+     */
+    public CachedPage get(String key) {
+        CachedPage page = pages.get(key);
+        if (page == null || page.isExpired()) {
+            if (page != null) {
+                pages.remove(key, page);
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return page;
+    }
+    
+    /**
+     * 当前失效代数，渲染前读取，写入时传回
+     */
+    public long generation() {
+        return generation.get();
+    }
+    
+    /**
+     * 写入渲染结果；渲染开始后发生过失效或缓存已满时不写入
+     *
+     * @return 写入的缓存页面，未写入时返回 null
+     */
+    public CachedPage put(String key, String contentType, byte[] body, long renderedGeneration) {
+        if (pages.size() >= maxEntries && !pages.containsKey(key)) {
+            return null;
+        }
+        CachedPage page = new CachedPage(body, contentType, etag(body), System.currentTimeMillis() + ttlSeconds * 1000);
+        if (generation.get() != renderedGeneration) {
+            return null;
+        }
+        pages.put(key, page);
+        // 写入与失效并发时以失效为准
+        if (generation.get() != renderedGeneration) {
+            pages.remove(key, page);
+            return null;
+        }
+        return page;
+    }
+    
+    /**
+     * 记录一次 304 响应
+     */
+    public void recordNotModified() {
+        notModified.increment();
+    }
+    
+    /**
+     * 日报变更后（事务提交后）使首页和对应日报页失效
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReportChanged(ReportChangedEvent event) {
+        generation.incrementAndGet();
+        invalidations.increment();
+        if (event.getReportId() == null) {
+            pages.clear();
+        } else {
+            pages.remove(HOME_KEY);
+            pages.remove(reportKey(event.getReportId()));
+        }
+        log.debug("🧹 日报变更（{}），页面缓存已失效: {}", event.getReason(), event.getReportId());
+    }
+    
+    /**
+     * 清空全部缓存
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        pages.clear();
+    }
+    
+    /**
+     * 获取缓存统计
+     */
+    public Map<String, Object> getStatistics() {
+        long hit = hits.sum();
+        long miss = misses.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("entries", pages.size());
+        stats.put("hits", hit);
+        stats.put("notModified", notModified.sum());
+        stats.put("misses", miss);
+        stats.put("invalidations", invalidations.sum());
+        stats.put("hitRate", hit + miss == 0 ? 0.0 : Math.round(hit * 10000.0 / (hit + miss)) / 100.0);
+        return stats;
+    }
+    
+    private static String etag(byte[] body) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+            StringBuilder hex = new StringBuilder(34).append('"');
+            for (int i = 0; i < 16; i++) {
+                hex.append(Character.forDigit((hash[i] >> 4) & 0xf, 16)).append(Character.forDigit(hash[i] & 0xf, 16));
+            }
+            return hex.append('"').toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+    
+    /**
+     * 缓存的页面
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class CachedPage {
+        private final byte[] body;
+        private final String contentType;
+        /** 强 ETag（含引号） */
+        private final String etag;
+        private final long expiresAt;
+    
+        public boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String tag : ifNoneMatch.split(",")) {
+                String candidate = tag.trim();
+                if (candidate.startsWith("W/")) {
+                    candidate = candidate.substring(2);
+                }
+                if ("*".equals(candidate) || etag.equals(candidate)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
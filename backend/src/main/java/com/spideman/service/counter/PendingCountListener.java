@@ -0,0 +1,29 @@
+package com.spideman.service.counter;
+
+import com.spideman.entity.Article;
+import com.spideman.entity.DailyReport;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostLoad;
+
+/**
+ * 实体加载后附加内存中尚未落库的计数增量，使读取结果包含最新访问
+ */
+@Component
+@RequiredArgsConstructor
+public class PendingCountListener {
+    
+    private final ViewCountBuffer viewCountBuffer;
+    
+    @PostLoad
+    public void applyPendingCounts(Object entity) {
+        if (entity instanceof Article) {
+            Article article = (Article) entity;
+            article.setPendingViews(viewCountBuffer.pendingArticleViews(article.getId()));
+        } else if (entity instanceof DailyReport) {
+            DailyReport report = (DailyReport) entity;
+            report.setPendingReadCount(viewCountBuffer.pendingReportReads(report.getId()));
+        }
+    }
+}
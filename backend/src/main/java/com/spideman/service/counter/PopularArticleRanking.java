@@ -0,0 +1,508 @@
+package com.spideman.service.counter;
+
+import com.spideman.dto.ArticleDTO;
+import com.spideman.entity.Article;
+import com.spideman.entity.VisitRecord;
+import com.spideman.repository.ArticleRepository;
+import com.spideman.repository.VisitHourlyRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 热门文章排行（内存中增量维护）
+ * 
+ * 只跟踪已发布文章：累计榜按总浏览量排序，今日热榜、本周热榜按指数衰减后的浏览量排序。
+ * 衰减采用前向衰减：每次浏览记入 e^(λ·(t - 基准时间))，所有文章的分数同比例衰减、相对顺序不随时间变化，
+ * 因此每次浏览只需 O(log n) 更新有序集合。
+ * 启动时由文章浏览量和按路径的小时访问汇总重建，之后定期与数据库重新同步（覆盖其他实例的访问和状态变更），
+ * 重建期间的浏览先记入旧榜单并暂存，新榜单替换后补记；读取时直接返回定时刷新的前 K 名快照。
+ * 累计榜同时充当已发布文章的集合，保存全部文章；衰减榜只保留前 K 名加余量，其余在刷新时淘汰，
+ * 被淘汰的文章再次被浏览时从新的浏览重新累计（淘汰前的分数低于榜单末位，对前 K 名的影响有限）。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PopularArticleRanking {
+    
+    /**
+     * 文章浏览的访问路径：详情页和文章详情接口（与 recordView 的来源一致）
+     */
+    private static final Pattern ARTICLE_PATH = Pattern.compile("(?:/article|/api/articles)/(\\d{1,18})");
+    
+    /**
+     * 重建衰减榜时读取的访问汇总天数
+     */
+    private static final int HISTORY_DAYS = 7;
+    
+    /**
+     * 衰减指数超过该值时整体缩放分数，避免溢出
+     */
+    private static final double MAX_EXPONENT = 50;
+    
+    private final ArticleRepository articleRepository;
+    private final VisitHourlyRollupRepository visitHourlyRollupRepository;
+    private final ViewCountBuffer viewCountBuffer;
+    
+    /**
+     * 每个榜单保留的前 K 名
+     */
+    @Value("${popular.top-k:50}")
+    private int topK;
+    
+    /**
+     * 衰减榜在前 K 名之外额外保留的条目数，避免刚跌出前 K 名的文章丢失累计分数
+     */
+    @Value("${popular.window-margin:150}")
+    private int windowMargin;
+    
+    @Value("${popular.today-half-life-hours:6}")
+    private double todayHalfLifeHours;
+    
+    @Value("${popular.week-half-life-hours:48}")
+    private double weekHalfLifeHours;
+    
+    private volatile Map<Window, Ranking> rankings = Collections.emptyMap();
+    
+    private volatile Map<Window, List<ArticleDTO>> snapshots = Collections.emptyMap();
+    
+    private volatile boolean ready = false;
+    
+    /**
+     * 重建期间的浏览暂存，重建完成后补记到新榜单
+     */
+    private volatile ReplayLog replay;
+    
+    /**
+     * 榜单文章的卡片数据，只在刷新快照时读写
+     */
+    private final Map<Long, ArticleDTO> cards = new ConcurrentHashMap<>();
+    
+    /**
+     * 排行榜类型
+     */
+    public enum Window {
+        ALL_TIME,   // 累计浏览量
+        TODAY,      // 今日热榜（小时级半衰期）
+        WEEK;       // 本周热榜（天级半衰期）
+        
+        /**
+         * 解析请求参数（all / today / week），无法识别时按累计榜处理
+         */
+        public static Window fromParam(String value) {
+            if ("today".equalsIgnoreCase(value)) {
+                return TODAY;
+            }
+            if ("week".equalsIgnoreCase(value)) {
+                return WEEK;
+            }
+            return ALL_TIME;
+        }
+    }
+    
+    /**
+     * 启动后从数据库构建排行
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        rebuild();
+    }
+    
+    /**
+     * 定期与数据库重新同步
+     */
+    @Scheduled(initialDelayString = "${popular.resync-interval-ms:1800000}",
+               fixedDelayString = "${popular.resync-interval-ms:1800000}")
+    public void resync() {
+        if (ready) {
+            rebuild();
+        }
+    }
+    
+    /**
+     * 记录一次文章浏览（未发布的文章忽略）
+     */
+    public void recordView(Long articleId) {
+        // 先读暂存再读榜单，保证记入旧榜单的浏览都能补记到新榜单
+        ReplayLog pending = replay;
+        Map<Window, Ranking> current = rankings;
+        Ranking allTime = current.get(Window.ALL_TIME);
+        if (articleId == null || allTime == null || !allTime.contains(articleId)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (Ranking ranking : current.values()) {
+            ranking.add(articleId, 1, now);
+        }
+        if (pending != null && pending.source == current) {
+            pending.add(articleId, now);
+        }
+    }
+    
+    /**
+     * 文章新增或状态变化：已发布的文章加入排行，其余移出
+     */
+    public void updateStatus(Long articleId, Article.ArticleStatus status, Integer views) {
+        if (articleId == null) {
+            return;
+        }
+        if (status != Article.ArticleStatus.PUBLISHED) {
+            remove(articleId);
+            return;
+        }
+        Map<Window, Ranking> current = rankings;
+        Ranking allTime = current.get(Window.ALL_TIME);
+        if (allTime == null || allTime.contains(articleId)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Window, Ranking> entry : current.entrySet()) {
+            double initial = entry.getKey() == Window.ALL_TIME && views != null ? views : 0;
+            entry.getValue().add(articleId, initial, now);
+        }
+    }
+    
+    /**
+     * 文章删除后移出排行
+     */
+    public void remove(Long articleId) {
+        for (Ranking ranking : rankings.values()) {
+            ranking.remove(articleId);
+        }
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    /**
+     * 获取各榜单当前跟踪的文章数
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        for (Map.Entry<Window, Ranking> entry : rankings.entrySet()) {
+            stats.put(entry.getKey().name(), entry.getValue().size());
+        }
+        stats.put("ready", ready);
+        return stats;
+    }
+    
+    /**
+     * 读取榜单前 limit 名（定时刷新的快照）
+     */
+    public List<ArticleDTO> getTop(Window window, int limit) {
+        List<ArticleDTO> top = snapshots.get(window);
+        if (top == null) {
+            return Collections.emptyList();
+        }
+        return top.size() > limit ? top.subList(0, limit) : top;
+    }
+    
+    /**
+     * 从数据库重建排行：累计榜取文章浏览量（含未落库增量），衰减榜取最近几天按路径的小时访问汇总
+     */
+    public synchronized void rebuild() {
+        long startTime = System.currentTimeMillis();
+        ReplayLog pending = new ReplayLog(rankings);
+        replay = pending;
+        try {
+            Ranking allTime = new Ranking(0, startTime);
+            for (Object[] row : articleRepository.findViewsByStatus(Article.ArticleStatus.PUBLISHED)) {
+                Long id = (Long) row[0];
+                long views = row[1] != null ? ((Number) row[1]).longValue() : 0;
+                allTime.add(id, views + viewCountBuffer.pendingArticleViews(id), startTime);
+            }
+            
+            List<Object[]> history = visitHourlyRollupRepository.findPathViewsSince(
+                VisitRecord.PageType.ARTICLE_DETAIL, LocalDate.now().minusDays(HISTORY_DAYS));
+            Map<Window, Ranking> rebuilt = new EnumMap<>(Window.class);
+            rebuilt.put(Window.ALL_TIME, allTime);
+            rebuilt.put(Window.TODAY, decayed(todayHalfLifeHours, allTime, history, startTime));
+            rebuilt.put(Window.WEEK, decayed(weekHalfLifeHours, allTime, history, startTime));
+            
+            rankings = rebuilt;
+            int replayed = pending.replayInto(rebuilt);
+            cards.clear();
+            refresh();
+            ready = true;
+            log.info("🔥 热门文章排行已重建: {} 篇已发布文章，{} 条访问汇总，补记 {} 次浏览，耗时 {} ms",
+                allTime.size(), history.size(), replayed, System.currentTimeMillis() - startTime);
+        } catch (DataAccessException e) {
+            log.warn("重建热门文章排行失败，暂时使用数据库查询: {}", e.getMessage());
+        } finally {
+            replay = null;
+        }
+    }
+    
+    /**
+     * 刷新各榜单前 K 名的快照；榜单文章的卡片数据只在首次进入时查询一次
+     */
+    @Scheduled(fixedDelayString = "${popular.refresh-interval-ms:5000}")
+    public synchronized void refresh() {
+        Map<Window, Ranking> current = rankings;
+        Ranking allTime = current.get(Window.ALL_TIME);
+        if (allTime == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        
+        Map<Window, List<Long>> topIds = new EnumMap<>(Window.class);
+        Set<Long> missing = new HashSet<>();
+        for (Map.Entry<Window, Ranking> entry : current.entrySet()) {
+            entry.getValue().rescale(now);
+            if (entry.getKey() != Window.ALL_TIME) {
+                entry.getValue().trim(topK + windowMargin);
+            }
+            List<Long> ids = entry.getValue().top(topK);
+            topIds.put(entry.getKey(), ids);
+            for (Long id : ids) {
+                if (!cards.containsKey(id)) {
+                    missing.add(id);
+                }
+            }
+        }
+        
+        if (!missing.isEmpty()) {
+            try {
+                for (ArticleDTO card : articleRepository.findCardsByIdIn(missing)) {
+                    cards.put(card.getId(), card);
+                    missing.remove(card.getId());
+                }
+            } catch (DataAccessException e) {
+                log.warn("刷新热门文章排行失败: {}", e.getMessage());
+                return;
+            }
+            // 数据库中已不存在的文章移出排行
+            for (Long id : missing) {
+                remove(id);
+            }
+        }
+        
+        Map<Window, List<ArticleDTO>> rebuilt = new EnumMap<>(Window.class);
+        Set<Long> retained = new HashSet<>();
+        for (Map.Entry<Window, List<Long>> entry : topIds.entrySet()) {
+            List<ArticleDTO> articles = new ArrayList<>(entry.getValue().size());
+            for (Long id : entry.getValue()) {
+                ArticleDTO card = cards.get(id);
+                if (card != null) {
+                    articles.add(withViews(card, (int) allTime.score(id)));
+                    retained.add(id);
+                }
+            }
+            rebuilt.put(entry.getKey(), Collections.unmodifiableList(articles));
+        }
+        cards.keySet().retainAll(retained);
+        snapshots = rebuilt;
+    }
+    
+    /**
+     * 构建衰减榜：先记入访问汇总，再以 0 分补入其余已发布文章（同分时较新的在前），最后只保留前 K 名加余量
+     */
+    private Ranking decayed(double halfLifeHours, Ranking allTime, List<Object[]> history, long now) {
+        Ranking ranking = new Ranking(Math.log(2) / (halfLifeHours * 3600_000L), now);
+        for (Object[] row : history) {
+            Matcher matcher = ARTICLE_PATH.matcher((String) row[0]);
+            if (!matcher.matches()) {
+                continue;
+            }
+            Long id = Long.valueOf(matcher.group(1));
+            if (allTime.contains(id) && row[2] != null) {
+                long bucketStart = ((LocalDateTime) row[1]).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                ranking.add(id, ((Number) row[2]).longValue(), bucketStart);
+            }
+        }
+        for (Long id : allTime.ids()) {
+            if (!ranking.contains(id)) {
+                ranking.add(id, 0, now);
+            }
+        }
+        ranking.trim(topK + windowMargin);
+        return ranking;
+    }
+    
+    /**
+     * 复制卡片并替换为排行中的实时浏览量
+     */
+    private static ArticleDTO withViews(ArticleDTO card, int views) {
+        return new ArticleDTO(card.getId(), card.getTitle(), card.getTitleZh(), card.getSummary(), card.getSummaryZh(),
+            card.getUrl(), card.getSource(), card.getAuthor(), card.getPublishTime(), card.getCreatedAt(),
+            card.getLikes(), views, card.getTags(), card.getStatus());
+    }
+    
+    /**
+     * 单个榜单：文章ID到分数的映射，加上按分数排序的有序集合
+     */
+    private static class Ranking {
+        /** 每毫秒的衰减率，0 表示不衰减 */
+        private final double lambda;
+        /** 前向衰减的基准时间 */
+        private long landmark;
+        private final Map<Long, Score> scores = new HashMap<>();
+        private final TreeSet<Score> order = new TreeSet<>();
+    
+        Ranking(double lambda, long landmark) {
+            this.lambda = lambda;
+            this.landmark = landmark;
+        }
+    
+        synchronized boolean contains(Long id) {
+            return scores.containsKey(id);
+        }
+    
+        synchronized int size() {
+            return scores.size();
+        }
+    
+        synchronized List<Long> ids() {
+            return new ArrayList<>(scores.keySet());
+        }
+    
+        synchronized double score(Long id) {
+            Score score = scores.get(id);
+            return score != null ? score.value : 0;
+        }
+    
+        /**
+         * 在 time 时刻记入 views 次浏览
+         */
+        synchronized void add(Long id, double views, long time) {
+            double value = lambda == 0 ? views : views * Math.exp(lambda * (time - landmark));
+            Score old = scores.get(id);
+            if (old != null) {
+                order.remove(old);
+                value += old.value;
+            }
+            Score score = new Score(id, value);
+            scores.put(id, score);
+            order.add(score);
+        }
+    
+        synchronized void remove(Long id) {
+            Score old = scores.remove(id);
+            if (old != null) {
+                order.remove(old);
+            }
+        }
+    
+        synchronized List<Long> top(int k) {
+            List<Long> ids = new ArrayList<>(Math.min(k, order.size()));
+            Iterator<Score> iterator = order.iterator();
+            while (iterator.hasNext() && ids.size() < k) {
+                ids.add(iterator.next().id);
+            }
+            return ids;
+        }
+    
+        /**
+         * 只保留分数最高的 capacity 个条目
+         */
+        synchronized void trim(int capacity) {
+            while (order.size() > capacity) {
+                scores.remove(order.pollLast().id);
+            }
+        }
+    
+        /**
+         * 距基准时间过久时把分数整体换算到新的基准时间，相对顺序不变
+         */
+        synchronized void rescale(long now) {
+            if (lambda == 0 || lambda * (now - landmark) < MAX_EXPONENT) {
+                return;
+            }
+            double factor = Math.exp(-lambda * (now - landmark));
+            List<Score> rescaled = new ArrayList<>(scores.size());
+            for (Score score : scores.values()) {
+                rescaled.add(new Score(score.id, score.value * factor));
+            }
+            scores.clear();
+            order.clear();
+            for (Score score : rescaled) {
+                scores.put(score.id, score);
+                order.add(score);
+            }
+            landmark = now;
+        }
+    }
+    
+    /**
+     * 重建期间记入旧榜单的浏览（文章ID和时间），新榜单替换后按原时间补记
+     * 
+     * 补记后关闭，之后仍然读到旧榜单的浏览直接记入新榜单，不会丢失。
+     * 累计榜的初始值已包含读库时缓冲区中的增量，读库期间的浏览可能被多记一次，下次同步时校正。
+     */
+    private static class ReplayLog {
+        private final Map<Window, Ranking> source;
+        private final List<long[]> views = new ArrayList<>();
+        private Map<Window, Ranking> target;
+    
+        ReplayLog(Map<Window, Ranking> source) {
+            this.source = source;
+        }
+    
+        synchronized void add(Long id, long time) {
+            if (target == null) {
+                views.add(new long[]{id, time});
+                return;
+            }
+            Ranking allTime = target.get(Window.ALL_TIME);
+            if (allTime != null && allTime.contains(id)) {
+                for (Ranking ranking : target.values()) {
+                    ranking.add(id, 1, time);
+                }
+            }
+        }
+    
+        synchronized int replayInto(Map<Window, Ranking> rebuilt) {
+            target = rebuilt;
+            for (long[] view : views) {
+                add(view[0], view[1]);
+            }
+            int replayed = views.size();
+            views.clear();
+            return replayed;
+        }
+    }
+    
+    /**
+     * 排行条目：分数高的在前，分数相同时ID大（较新）的在前
+     */
+    private static class Score implements Comparable<Score> {
+        private final Long id;
+        private final double value;
+    
+        Score(Long id, double value) {
+            this.id = id;
+            this.value = value;
+        }
+    
+        @Override
+        public int compareTo(Score other) {
+            int byValue = Double.compare(other.value, value);
+            return byValue != 0 ? byValue : Long.compare(other.id, id);
+        }
+    }
+}
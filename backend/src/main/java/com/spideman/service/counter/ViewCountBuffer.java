@@ -0,0 +1,88 @@
+package com.spideman.service.counter;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 文章浏览量、日报阅读数的写回缓冲
+ * 
+ * 访问时只在内存中累加，定时以批量 UPDATE ... SET views = views + ? 刷入数据库，
+ * 避免每次访问都开启事务、读改写实体以及热点行锁竞争。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ViewCountBuffer {
+    
+    private static final String ARTICLE_VIEWS_SQL = "UPDATE articles SET views = COALESCE(views, 0) + ? WHERE id = ?";
+    private static final String REPORT_READS_SQL = "UPDATE daily_reports SET read_count = COALESCE(read_count, 0) + ? WHERE id = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    private final WriteBehindCounter articleViews = new WriteBehindCounter();
+    private final WriteBehindCounter reportReads = new WriteBehindCounter();
+    
+    public void incrementArticleViews(Long articleId) {
+        articleViews.increment(articleId);
+    }
+    
+    public void incrementReportReads(Long reportId) {
+        reportReads.increment(reportId);
+    }
+    
+    public long pendingArticleViews(Long articleId) {
+        return articleViews.pending(articleId);
+    }
+    
+    public long pendingReportReads(Long reportId) {
+        return reportReads.pending(reportId);
+    }
+    
+    /**
+     * 定时刷入数据库
+     */
+    @Scheduled(fixedDelayString = "${counter.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        flush(articleViews, ARTICLE_VIEWS_SQL, "文章浏览量");
+        flush(reportReads, REPORT_READS_SQL, "日报阅读数");
+    }
+    
+    /**
+     * 应用关闭前刷入剩余增量
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+    
+    private void flush(WriteBehindCounter counter, String sql, String name) {
+        Map<Long, Long> deltas = counter.drain();
+        if (deltas.isEmpty()) {
+            return;
+        }
+        
+        // 按ID排序，保证多实例并发刷新时的加锁顺序一致
+        List<Object[]> batchArgs = new ArrayList<>(deltas.size());
+        for (Map.Entry<Long, Long> entry : new TreeMap<>(deltas).entrySet()) {
+            batchArgs.add(new Object[]{entry.getValue(), entry.getKey()});
+        }
+        
+        try {
+            jdbcTemplate.batchUpdate(sql, batchArgs);
+            log.debug("💾 刷入{}: {} 条记录", name, batchArgs.size());
+        } catch (DataAccessException e) {
+            counter.restore(deltas);
+            log.warn("刷入{}失败，将在下次重试: {}", name, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.spideman.service.counter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按ID分段累加的内存计数器（写回缓冲）
+ * 
+ * 每个ID一个 LongAdder，高并发累加无锁竞争；drain() 取走当前增量，
+ * 采用 sum() 后 add(-sum) 的方式，取走期间的新增量不会丢失。
+ * 条目不会被移除，数量以被访问过的ID数为上限。
+ */
+public class WriteBehindCounter {
+    
+    private final ConcurrentHashMap<Long, LongAdder> counters = new ConcurrentHashMap<>();
+    
+    /**
+     * 累加一次
+     */
+    public void increment(Long id) {
+        counters.computeIfAbsent(id, key -> new LongAdder()).increment();
+    }
+    
+    /**
+     * 获取尚未落库的增量
+     */
+    public long pending(Long id) {
+        LongAdder adder = counters.get(id);
+        return adder != null ? adder.sum() : 0;
+    }
+    
+    /**
+     * 取走所有非零增量
+     */
+    public Map<Long, Long> drain() {
+        Map<Long, Long> deltas = new HashMap<>();
+        for (Map.Entry<Long, LongAdder> entry : counters.entrySet()) {
+            long delta = entry.getValue().sum();
+            if (delta != 0) {
+                entry.getValue().add(-delta);
+                deltas.put(entry.getKey(), delta);
+            }
+        }
+        return deltas;
+    }
+    
+    /**
+     * 落库失败时归还增量，等待下次刷新
+     */
+    public void restore(Map<Long, Long> deltas) {
+        for (Map.Entry<Long, Long> entry : deltas.entrySet()) {
+            counters.computeIfAbsent(entry.getKey(), key -> new LongAdder()).add(entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.spideman.service.crawler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按主机划分的令牌桶限流器
+ * 
+ * 采用"预约"方式：每次请求先预约一个令牌，返回需要等待的时长，
+ * 调用方自行决定阻塞等待还是非阻塞延迟（如 Mono.delay），避免占用线程。
+ */
+@Component
+@Slf4j
+public class HostRateLimiter {
+    
+    @Value("${crawler.rate-limit.permits-per-second:5}")
+    private double permitsPerSecond;
+    
+    @Value("${crawler.rate-limit.burst:5}")
+    private int burst;
+    
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    
+    /**
+     * 为指定主机预约一个令牌，返回发起请求前需要等待的时长
+     */
+    public Duration reserve(String host) {
+        TokenBucket bucket = buckets.computeIfAbsent(host, key -> new TokenBucket(permitsPerSecond, burst));
+        return Duration.ofNanos(bucket.reserve());
+    }
+    
+    /**
+     * 为URL所属主机预约一个令牌
+     */
+    public Duration reserveForUrl(String url) {
+        return reserve(hostOf(url));
+    }
+    
+    /**
+     * 阻塞等待直到获得令牌（供同步爬虫使用）
+     */
+    public void acquire(String host) throws InterruptedException {
+        long waitNanos = reserve(host).toNanos();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+    
+    private String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host : url;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+    
+    /**
+     * 令牌桶：令牌数允许为负，表示已被预约的未来令牌
+     */
+    private static final class TokenBucket {
+        
+        private final double permitsPerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefillNanos;
+        
+        TokenBucket(double permitsPerSecond, int burst) {
+            this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = Math.max(1, burst);
+            this.tokens = capacity;
+            this.lastRefillNanos = System.nanoTime();
+        }
+        
+        synchronized long reserve() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * permitsPerNano);
+            lastRefillNanos = now;
+            
+            tokens -= 1;
+            return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / permitsPerNano);
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package com.spideman.service.crawler;
+
+import com.spideman.util.HashUtils;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.jsoup.Connection;
+import org.jsoup.HttpStatusException;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 爬虫共享的页面抓取层
+ * 
+ * 记录每个URL的 ETag / Last-Modified，后续请求携带 If-None-Match / If-Modified-Since；
+ * 服务端返回 304 时直接使用磁盘缓存的响应体。校验值在收到 200 时即保存，此时文章尚未入库，
+ * 因此调用方收到 304 仍应解析缓存内容，由已见URL索引跳过已保存的文章。
+ * 磁盘缓存按总大小限制，超出时淘汰最久未使用的条目。
+ * 
+ * 请求通过共享的 OkHttpClient 发出（连接池、keep-alive、gzip）；调用方仍通过 Jsoup Connection
+ * 设置 UA、超时、Referer 等参数，这里只读取其请求配置。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PageFetcher {
+    
+    private static final String BODY_SUFFIX = ".body";
+    private static final String META_SUFFIX = ".meta";
+    
+    private final OkHttpClient httpClient;
+    
+    @Value("${crawler.http-cache.dir:${java.io.tmpdir}/techdaily-http-cache}")
+    private String cacheDir;
+    
+    @Value("${crawler.http-cache.max-size-mb:50}")
+    private long maxSizeMb;
+    
+    private Path cachePath;
+    private final AtomicLong cachedBytes = new AtomicLong();
+    
+    private final LongAdder fullFetches = new LongAdder();
+    private final LongAdder notModifiedFetches = new LongAdder();
+    private final LongAdder savedBytes = new LongAdder();
+    
+    @PostConstruct
+    public void init() {
+        try {
+            cachePath = Paths.get(cacheDir);
+            Files.createDirectories(cachePath);
+            long total = 0;
+            for (File file : listCacheFiles()) {
+                total += file.length();
+            }
+            cachedBytes.set(total);
+            log.info("🗂️ 爬虫HTTP缓存目录: {}，已缓存 {} KB", cachePath, total / 1024);
+        } catch (IOException e) {
+            log.warn("⚠️ 无法创建爬虫HTTP缓存目录 {}，条件请求将被禁用: {}", cacheDir, e.getMessage());
+            cachePath = null;
+        }
+    }
+    
+    /**
+     * 抓取页面，customizer 用于设置 UA、超时、Referer 等请求参数
+     */
+    public FetchResult fetch(String url, Consumer<Connection> customizer) throws IOException {
+        String key = cacheKey(url);
+        Properties meta = cachePath != null ? readMeta(key) : null;
+        Path bodyFile = cachePath != null ? cachePath.resolve(key + BODY_SUFFIX) : null;
+        boolean hasCachedBody = meta != null && Files.exists(bodyFile);
+        
+        Connection connection = Jsoup.connect(url);
+        customizer.accept(connection);
+        Request.Builder request = toRequest(connection.request());
+        
+        if (hasCachedBody) {
+            if (meta.getProperty("etag") != null) {
+                request.header("If-None-Match", meta.getProperty("etag"));
+            }
+            if (meta.getProperty("lastModified") != null) {
+                request.header("If-Modified-Since", meta.getProperty("lastModified"));
+            }
+        }
+        
+        try (Response response = clientFor(connection.request()).newCall(request.build()).execute()) {
+            return handle(url, key, meta, bodyFile, hasCachedBody, response);
+        }
+    }
+    
+    private FetchResult handle(String url, String key, Properties meta, Path bodyFile, boolean hasCachedBody,
+                               Response response) throws IOException {
+        int status = response.code();
+        
+        if (status == 304 && hasCachedBody) {
+            byte[] body = Files.readAllBytes(bodyFile);
+            touch(key);
+            notModifiedFetches.increment();
+            savedBytes.add(body.length);
+            log.debug("📭 页面未变化(304)，使用缓存: {}", url);
+            return new FetchResult(url, status, true, body, meta.getProperty("charset"));
+        }
+        
+        if (status < 200 || status >= 300) {
+            throw new HttpStatusException("HTTP error fetching URL", status, url);
+        }
+        
+        ResponseBody responseBody = response.body();
+        byte[] body = responseBody != null ? responseBody.bytes() : new byte[0];
+        MediaType contentType = responseBody != null ? responseBody.contentType() : null;
+        String charset = contentType != null && contentType.charset() != null ? contentType.charset().name() : null;
+        fullFetches.increment();
+        String etag = response.header("ETag");
+        String lastModified = response.header("Last-Modified");
+        if (cachePath != null && (etag != null || lastModified != null)) {
+            store(key, url, etag, lastModified, charset, body);
+        }
+        return new FetchResult(url, status, false, body, charset);
+    }
+    
+    /**
+     * 获取缓存统计
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("fullFetches", fullFetches.sum());
+        stats.put("notModifiedFetches", notModifiedFetches.sum());
+        stats.put("savedBytes", savedBytes.sum());
+        stats.put("cachedBytes", cachedBytes.get());
+        stats.put("maxCacheBytes", maxCacheBytes());
+        stats.put("pooledConnections", httpClient.connectionPool().connectionCount());
+        stats.put("idleConnections", httpClient.connectionPool().idleConnectionCount());
+        return stats;
+    }
+    
+    /**
+     * 把 Jsoup 请求配置转换为 OkHttp 请求
+     */
+    private Request.Builder toRequest(Connection.Request settings) {
+        Request.Builder request = new Request.Builder().url(settings.url());
+        for (Map.Entry<String, List<String>> header : settings.multiHeaders().entrySet()) {
+            // 由 OkHttp 自动协商压缩并透明解压，显式设置会关闭自动解压
+            if ("Accept-Encoding".equalsIgnoreCase(header.getKey())) {
+                continue;
+            }
+            for (String value : header.getValue()) {
+                request.addHeader(header.getKey(), value);
+            }
+        }
+        if (!settings.cookies().isEmpty()) {
+            StringBuilder cookie = new StringBuilder();
+            for (Map.Entry<String, String> entry : settings.cookies().entrySet()) {
+                if (cookie.length() > 0) {
+                    cookie.append("; ");
+                }
+                cookie.append(entry.getKey()).append('=').append(entry.getValue());
+            }
+            request.header("Cookie", cookie.toString());
+        }
+        return request;
+    }
+    
+    /**
+     * 按调用方设置的超时和重定向策略派生客户端（共享连接池和调度器）
+     */
+    private OkHttpClient clientFor(Connection.Request settings) {
+        if (settings.timeout() <= 0 && settings.followRedirects()) {
+            return httpClient;
+        }
+        return httpClient.newBuilder()
+            .callTimeout(Math.max(0, settings.timeout()), TimeUnit.MILLISECONDS)
+            .followRedirects(settings.followRedirects())
+            .build();
+    }
+    
+    private void store(String key, String url, String etag, String lastModified, String charset, byte[] body) {
+        Path bodyFile = cachePath.resolve(key + BODY_SUFFIX);
+        Path metaFile = cachePath.resolve(key + META_SUFFIX);
+        try {
+            long previousSize = sizeOf(bodyFile) + sizeOf(metaFile);
+            
+            // 先写临时文件再原子替换，避免并发读到半截内容
+            Path tmpBody = Files.createTempFile(cachePath, key, ".tmp");
+            Files.write(tmpBody, body);
+            Files.move(tmpBody, bodyFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            
+            Properties meta = new Properties();
+            meta.setProperty("url", url);
+            meta.setProperty("storedAt", String.valueOf(System.currentTimeMillis()));
+            if (etag != null) {
+                meta.setProperty("etag", etag);
+            }
+            if (lastModified != null) {
+                meta.setProperty("lastModified", lastModified);
+            }
+            if (charset != null) {
+                meta.setProperty("charset", charset);
+            }
+            Path tmpMeta = Files.createTempFile(cachePath, key, ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmpMeta)) {
+                meta.store(out, null);
+            }
+            Files.move(tmpMeta, metaFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            
+            cachedBytes.addAndGet(sizeOf(bodyFile) + sizeOf(metaFile) - previousSize);
+            evictIfNecessary();
+        } catch (IOException e) {
+            log.warn("写入爬虫HTTP缓存失败: {} - {}", url, e.getMessage());
+        }
+    }
+    
+    /**
+     * 缓存超出上限时，按最近访问时间淘汰最旧的条目，直到回落到上限的80%
+     */
+    private synchronized void evictIfNecessary() {
+        long maxBytes = maxCacheBytes();
+        if (cachedBytes.get() <= maxBytes) {
+            return;
+        }
+        
+        File[] bodies = cachePath.toFile().listFiles((dir, name) -> name.endsWith(BODY_SUFFIX));
+        if (bodies == null) {
+            return;
+        }
+        Arrays.sort(bodies, Comparator.comparingLong(File::lastModified));
+        
+        long target = maxBytes * 8 / 10;
+        int evicted = 0;
+        for (File body : bodies) {
+            if (cachedBytes.get() <= target) {
+                break;
+            }
+            String key = body.getName().substring(0, body.getName().length() - BODY_SUFFIX.length());
+            File meta = new File(body.getParentFile(), key + META_SUFFIX);
+            long size = body.length() + meta.length();
+            if (body.delete()) {
+                meta.delete();
+                cachedBytes.addAndGet(-size);
+                evicted++;
+            }
+        }
+        log.info("🧹 爬虫HTTP缓存超出 {} MB，已淘汰 {} 个条目", maxSizeMb, evicted);
+    }
+    
+    private Properties readMeta(String key) {
+        Path metaFile = cachePath.resolve(key + META_SUFFIX);
+        if (!Files.exists(metaFile)) {
+            return null;
+        }
+        try (InputStream in = Files.newInputStream(metaFile)) {
+            Properties meta = new Properties();
+            meta.load(in);
+            return meta;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+    
+    private void touch(String key) {
+        try {
+            Files.setLastModifiedTime(cachePath.resolve(key + BODY_SUFFIX), FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            log.debug("更新缓存访问时间失败: {}", e.getMessage());
+        }
+    }
+    
+    private File[] listCacheFiles() {
+        File[] files = cachePath.toFile().listFiles((dir, name) -> name.endsWith(BODY_SUFFIX) || name.endsWith(META_SUFFIX));
+        return files != null ? files : new File[0];
+    }
+    
+    private long sizeOf(Path file) {
+        try {
+            return Files.exists(file) ? Files.size(file) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+    
+    private long maxCacheBytes() {
+        return maxSizeMb * 1024 * 1024;
+    }
+    
+    private String cacheKey(String url) {
+        return String.format("%016x", HashUtils.hash64(url));
+    }
+    
+    /**
+     * 抓取结果
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class FetchResult {
+        private final String url;
+        private final int statusCode;
+        /** 服务端返回304，body 来自本地缓存 */
+        private final boolean notModified;
+        private final byte[] body;
+        private final String charset;
+        
+        /**
+         * 解析为HTML文档
+         */
+        public Document parse() throws IOException {
+            return Jsoup.parse(new ByteArrayInputStream(body), charset, url);
+        }
+        
+        /**
+         * 以文本形式读取响应体
+         */
+        public String bodyAsString() {
+            Charset cs = StandardCharsets.UTF_8;
+            if (charset != null && Charset.isSupported(charset)) {
+                cs = Charset.forName(charset);
+            }
+            return new String(body, cs);
+        }
+    }
+}
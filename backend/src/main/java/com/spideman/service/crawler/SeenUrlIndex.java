@@ -0,0 +1,289 @@
+package com.spideman.service.crawler;
+
+import com.spideman.repository.ArticleRepository;
+import com.spideman.util.HashUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 已见URL索引：布隆过滤器 + 精确LRU
+ * 
+ * 布隆过滤器判定"不存在"时一定是新URL，可以跳过数据库查询；
+ * LRU 中命中时一定已存在；其余情况才需要回库确认。
+ * 在事务中记录的URL于提交后才写入索引，回滚的文章不会被当作已存在。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SeenUrlIndex {
+    
+    private static final int WARM_UP_PAGE_SIZE = 5000;
+    
+    private final ArticleRepository articleRepository;
+    
+    @Value("${crawler.seen-index.expected-urls:200000}")
+    private long expectedUrls;
+    
+    @Value("${crawler.seen-index.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+    
+    @Value("${crawler.seen-index.lru-size:5000}")
+    private int lruSize;
+    
+    private volatile BloomFilter bloomFilter;
+    private volatile boolean warmedUp = false;
+    
+    /**
+     * 预热期间正在装载的新过滤器；预热时记录的URL同时写入，替换时不会丢失
+     */
+    private BloomFilter warmingFilter;
+    private final Object swapLock = new Object();
+    private Map<String, Boolean> recentUrls;
+    
+    private final LongAdder bloomNegatives = new LongAdder();
+    private final LongAdder lruHits = new LongAdder();
+    private final LongAdder databaseLookups = new LongAdder();
+    private final LongAdder crawlerSkips = new LongAdder();
+    
+    @PostConstruct
+    public void init() {
+        this.bloomFilter = new BloomFilter(expectedUrls, falsePositiveRate);
+        final int capacity = lruSize;
+        this.recentUrls = Collections.synchronizedMap(new LinkedHashMap<String, Boolean>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+    
+    /**
+     * 应用启动后从 articles.url 预热布隆过滤器
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long startTime = System.currentTimeMillis();
+        try {
+            long articleCount = articleRepository.count();
+            // 容量不足时按现有数据量的两倍重建，保证误判率；装载完成前继续使用旧过滤器
+            BloomFilter filter = articleCount * 2 > expectedUrls ?
+                new BloomFilter(articleCount * 2, falsePositiveRate) : bloomFilter;
+            synchronized (swapLock) {
+                warmingFilter = filter;
+            }
+            
+            long loaded = 0;
+            Long lastId = 0L;
+            while (true) {
+                List<Object[]> rows = articleRepository.findUrlsAfterId(lastId, PageRequest.of(0, WARM_UP_PAGE_SIZE));
+                if (rows.isEmpty()) {
+                    break;
+                }
+                for (Object[] row : rows) {
+                    lastId = (Long) row[0];
+                    filter.put((String) row[1]);
+                }
+                loaded += rows.size();
+            }
+            
+            synchronized (swapLock) {
+                bloomFilter = filter;
+                warmingFilter = null;
+            }
+            warmedUp = true;
+            log.info("🧠 已见URL索引预热完成: {} 条URL，位数组 {} KB，耗时 {} ms", 
+                loaded, filter.sizeInBytes() / 1024, System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            synchronized (swapLock) {
+                warmingFilter = null;
+            }
+            log.error("❌ 已见URL索引预热失败，将退回数据库查询", e);
+        }
+    }
+    
+    /**
+     * 是否可以确定为新URL（布隆过滤器未命中，无需查库）
+     */
+    public boolean isDefinitelyNew(String url) {
+        if (!warmedUp || bloomFilter.mightContain(url)) {
+            return false;
+        }
+        bloomNegatives.increment();
+        return true;
+    }
+    
+    /**
+     * 是否可以确定已存在（LRU精确命中，无需查库）
+     */
+    public boolean isConfirmedSeen(String url) {
+        if (recentUrls.containsKey(url)) {
+            lruHits.increment();
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * 供爬虫在抓取详情页前判断是否已抓取过。
+     * 只有LRU精确命中才直接跳过；布隆过滤器命中只说明可能存在，需回库确认，
+     * 否则误判会丢掉新文章，删除后的文章也永远无法重新抓取
+     */
+    public boolean isLikelySeen(String url) {
+        if (recentUrls.containsKey(url)) {
+            crawlerSkips.increment();
+            return true;
+        }
+        if (warmedUp && !bloomFilter.mightContain(url)) {
+            bloomNegatives.increment();
+            return false;
+        }
+        
+        databaseLookups.increment();
+        if (articleRepository.existsByUrl(url)) {
+            recentUrls.put(url, Boolean.TRUE);
+            crawlerSkips.increment();
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * 记录已确认存在的URL；在事务中调用时于事务提交后记录
+     */
+    public void markSeen(String url) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            doMarkSeen(url);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                doMarkSeen(url);
+            }
+        });
+    }
+    
+    private void doMarkSeen(String url) {
+        synchronized (swapLock) {
+            bloomFilter.put(url);
+            if (warmingFilter != null) {
+                warmingFilter.put(url);
+            }
+        }
+        recentUrls.put(url, Boolean.TRUE);
+    }
+    
+    /**
+     * 文章删除后移出精确缓存（布隆过滤器不支持删除，之后会回库确认）
+     */
+    public void forget(String url) {
+        recentUrls.remove(url);
+    }
+    
+    /**
+     * 记录回库查询的URL数量
+     */
+    public void recordDatabaseLookups(int count) {
+        databaseLookups.add(count);
+    }
+    
+    /**
+     * 获取命中统计
+     */
+    public Map<String, Object> getStatistics() {
+        long negatives = bloomNegatives.sum();
+        long hits = lruHits.sum();
+        long lookups = databaseLookups.sum();
+        long total = negatives + hits + lookups;
+        
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("warmedUp", warmedUp);
+        stats.put("bloomNegatives", negatives);
+        stats.put("lruHits", hits);
+        stats.put("databaseLookups", lookups);
+        stats.put("crawlerSkips", crawlerSkips.sum());
+        stats.put("databaseLookupsSavedRate", total > 0 ? (double) (negatives + hits) / total : 0.0);
+        stats.put("lruSize", recentUrls.size());
+        stats.put("bloomFilterBytes", bloomFilter.sizeInBytes());
+        return stats;
+    }
+    
+    /**
+     * 线程安全的布隆过滤器（位数组基于 AtomicLongArray，双重哈希生成 k 个位置）
+     */
+    private static final class BloomFilter {
+        
+        private final AtomicLongArray bits;
+        private final long bitSize;
+        private final int hashCount;
+        
+        BloomFilter(long expectedInsertions, double falsePositiveRate) {
+            long expected = Math.max(1, expectedInsertions);
+            long optimalBits = (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.max(1, (optimalBits + 63) / 64);
+            this.bits = new AtomicLongArray(words);
+            this.bitSize = words * 64L;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitSize / expected * Math.log(2)));
+        }
+        
+        void put(String value) {
+            long hash = HashUtils.hash64(value);
+            int hash1 = (int) hash;
+            int hash2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long index = bitIndex(hash1 + i * hash2);
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                long current;
+                do {
+                    current = bits.get(word);
+                    if ((current & mask) != 0) {
+                        break;
+                    }
+                } while (!bits.compareAndSet(word, current, current | mask));
+            }
+        }
+        
+        boolean mightContain(String value) {
+            long hash = HashUtils.hash64(value);
+            int hash1 = (int) hash;
+            int hash2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long index = bitIndex(hash1 + i * hash2);
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        long sizeInBytes() {
+            return bitSize / 8;
+        }
+        
+        private long bitIndex(int combinedHash) {
+            if (combinedHash < 0) {
+                combinedHash = ~combinedHash;
+            }
+            return combinedHash % bitSize;
+        }
+    }
+}
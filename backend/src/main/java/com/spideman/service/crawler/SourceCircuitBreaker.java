@@ -0,0 +1,152 @@
+package com.spideman.service.crawler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按爬虫源划分的熔断器
+ * 
+ * 状态由真实爬取结果和后台健康检查驱动，查询可用性时只读取内存状态，不发起网络请求：
+ * CLOSED（正常）→ 连续失败达到阈值 → OPEN（熔断，跳过该源）→ 冷却期结束 → HALF_OPEN（放行一次试探）
+ * → 成功则回到 CLOSED，失败则重新 OPEN。
+ */
+@Component
+@Slf4j
+public class SourceCircuitBreaker {
+    
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+    
+    @Value("${crawler.circuit-breaker.failure-threshold:3}")
+    private int failureThreshold;
+    
+    @Value("${crawler.circuit-breaker.open-seconds:600}")
+    private long openSeconds;
+    
+    private final Map<String, SourceState> states = new ConcurrentHashMap<>();
+    
+    /**
+     * 是否允许向该源发起爬取：冷却期结束后转为半开，只放行一个试探请求，
+     * 试探结束（记录成功、失败或无结论）前其余调用一律拒绝
+     */
+    public boolean allowRequest(String source) {
+        SourceState state = stateOf(source);
+        synchronized (state) {
+            long now = System.nanoTime();
+            if (state.state == State.OPEN && now >= state.openUntilNanos) {
+                state.state = State.HALF_OPEN;
+                log.info("🔁 {} 熔断冷却结束，进入半开状态", source);
+            }
+            if (state.state == State.CLOSED) {
+                return true;
+            }
+            if (state.state == State.OPEN) {
+                return false;
+            }
+            // 试探请求超过一个冷却期仍未回报结果时视为丢失，允许重新试探
+            if (state.probeInFlight && now - state.probeStartedNanos < TimeUnit.SECONDS.toNanos(openSeconds)) {
+                return false;
+            }
+            state.probeInFlight = true;
+            state.probeStartedNanos = now;
+            return true;
+        }
+    }
+    
+    /**
+     * 当前是否可用（仅读取缓存状态）
+     */
+    public boolean isAvailable(String source) {
+        SourceState state = stateOf(source);
+        synchronized (state) {
+            return state.state != State.OPEN || System.nanoTime() >= state.openUntilNanos;
+        }
+    }
+    
+    /**
+     * 记录一次成功
+     */
+    public void recordSuccess(String source) {
+        SourceState state = stateOf(source);
+        synchronized (state) {
+            if (state.state != State.CLOSED) {
+                log.info("✅ {} 已恢复，熔断器关闭", source);
+            }
+            state.state = State.CLOSED;
+            state.probeInFlight = false;
+            state.consecutiveFailures = 0;
+            state.lastSuccessTime = LocalDateTime.now();
+        }
+    }
+    
+    /**
+     * 记录一次失败，达到阈值或半开试探失败时打开熔断器
+     */
+    public void recordFailure(String source, String reason) {
+        SourceState state = stateOf(source);
+        synchronized (state) {
+            state.consecutiveFailures++;
+            state.probeInFlight = false;
+            state.lastFailureTime = LocalDateTime.now();
+            state.lastFailureReason = reason;
+            if (state.state == State.HALF_OPEN || state.consecutiveFailures >= failureThreshold) {
+                if (state.state != State.OPEN) {
+                    log.warn("🚫 {} 连续失败 {} 次，熔断 {} 秒: {}", source, state.consecutiveFailures, openSeconds, reason);
+                }
+                state.state = State.OPEN;
+                state.openUntilNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(openSeconds);
+            }
+        }
+    }
+    
+    /**
+     * 请求已结束但无法判断源是否正常（如返回空结果），不改变状态，仅结束半开试探
+     */
+    public void recordInconclusive(String source) {
+        SourceState state = stateOf(source);
+        synchronized (state) {
+            state.probeInFlight = false;
+        }
+    }
+    
+    /**
+     * 获取各源的熔断状态
+     */
+    public Map<String, Object> getStatus(String source) {
+        SourceState state = stateOf(source);
+        Map<String, Object> status = new LinkedHashMap<>();
+        synchronized (state) {
+            status.put("source", source);
+            status.put("state", state.state.name());
+            status.put("available", isAvailable(source));
+            status.put("consecutiveFailures", state.consecutiveFailures);
+            status.put("lastSuccessTime", state.lastSuccessTime);
+            status.put("lastFailureTime", state.lastFailureTime);
+            status.put("lastFailureReason", state.lastFailureReason);
+        }
+        return status;
+    }
+    
+    private SourceState stateOf(String source) {
+        return states.computeIfAbsent(source, key -> new SourceState());
+    }
+    
+    private static final class SourceState {
+        private State state = State.CLOSED;
+        private int consecutiveFailures;
+        private long openUntilNanos;
+        private boolean probeInFlight;
+        private long probeStartedNanos;
+        private LocalDateTime lastSuccessTime;
+        private LocalDateTime lastFailureTime;
+        private String lastFailureReason;
+    }
+}
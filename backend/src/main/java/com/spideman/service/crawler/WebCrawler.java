@@ -24,9 +24,18 @@ public interface WebCrawler {
     List<Article> crawlArticles(int limit);
     
     /**
-     * 检查是否可用
+     * 检查是否可用（会发起网络请求，仅由后台健康检查调用，
+     * 页面展示请读取 SourceCircuitBreaker 的缓存状态）
      */
     default boolean isAvailable() {
         return true;
     }
+    
+    /**
+     * isAvailable() 是否为真实探测（覆盖 isAvailable() 的爬虫需同时返回 true），
+     * 后台健康检查只探测返回 true 的爬虫
+     */
+    default boolean hasAvailabilityProbe() {
+        return false;
+    }
 } 
\ No newline at end of file
@@ -1,9 +1,11 @@
 package com.spideman.service.crawler.impl;
 
 import com.spideman.entity.Article;
+import com.spideman.service.crawler.PageFetcher;
+import com.spideman.service.crawler.SeenUrlIndex;
 import com.spideman.service.crawler.WebCrawler;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
@@ -16,6 +18,7 @@ import java.util.List;
 import java.util.Random;
 
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class DailyDevCrawler implements WebCrawler {
     
@@ -26,6 +29,8 @@ public class DailyDevCrawler implements WebCrawler {
         "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36"
     };
     
+    private final SeenUrlIndex seenUrlIndex;
+    private final PageFetcher pageFetcher;
     private final Random random = new Random();
     
     @Override
@@ -69,12 +74,16 @@ public class DailyDevCrawler implements WebCrawler {
             String url = "https://daily.dev";
             log.info("📄 爬取 Daily.dev 类型: {} - {}", feedType, url);
             
-            Document doc = Jsoup.connect(url)
+            PageFetcher.FetchResult page = pageFetcher.fetch(url, connection -> connection
                     .userAgent(getRandomUserAgent())
                     .timeout(15000)
                     .followRedirects(true)
-                    .referrer("https://google.com")
-                    .get();
+                    .referrer("https://google.com"));
+            if (page.isNotModified()) {
+                // 仍解析缓存的响应体：上次抓取的文章可能没有保存成功，已保存的由已见URL索引跳过
+                log.info("📭 页面未变化，解析缓存内容: {}", url);
+            }
+            Document doc = page.parse();
             
             // Daily.dev 使用动态加载，我们尝试获取静态内容
             Elements articleElements = doc.select("article, .post-item, [data-testid*='post'], .card");
@@ -85,6 +94,10 @@ public class DailyDevCrawler implements WebCrawler {
                 
                 try {
                     Article article = parseDailyDevArticle(element, feedType);
+                    if (article != null && seenUrlIndex.isLikelySeen(article.getUrl())) {
+                        log.debug("⏭️ 跳过已抓取文章: {}", article.getUrl());
+                        continue;
+                    }
                     if (article != null) {
                         articles.add(article);
                         count++;
@@ -142,10 +155,14 @@ public class DailyDevCrawler implements WebCrawler {
             String url = "https://css-tricks.com";
             log.info("📄 爬取 CSS-Tricks: {}", url);
             
-            Document doc = Jsoup.connect(url)
+            PageFetcher.FetchResult page = pageFetcher.fetch(url, connection -> connection
                     .userAgent(getRandomUserAgent())
-                    .timeout(15000)
-                    .get();
+                    .timeout(15000));
+            if (page.isNotModified()) {
+                // 仍解析缓存的响应体：上次抓取的文章可能没有保存成功，已保存的由已见URL索引跳过
+                log.info("📭 页面未变化，解析缓存内容: {}", url);
+            }
+            Document doc = page.parse();
             
             Elements articleElements = doc.select("article, .post, .entry");
             
@@ -162,6 +179,8 @@ public class DailyDevCrawler implements WebCrawler {
                     
                     if (title.isEmpty() || articleUrl.isEmpty()) continue;
                     
+                    if (seenUrlIndex.isLikelySeen(articleUrl)) continue;
+                    
                     // 获取摘要
                     Element summaryElement = element.select(".entry-summary, .excerpt, p").first();
                     String summary = summaryElement != null ? summaryElement.text().trim() : "";
@@ -203,10 +222,14 @@ public class DailyDevCrawler implements WebCrawler {
             String url = "https://alistapart.com";
             log.info("📄 爬取 A List Apart: {}", url);
             
-            Document doc = Jsoup.connect(url)
+            PageFetcher.FetchResult page = pageFetcher.fetch(url, connection -> connection
                     .userAgent(getRandomUserAgent())
-                    .timeout(15000)
-                    .get();
+                    .timeout(15000));
+            if (page.isNotModified()) {
+                // 仍解析缓存的响应体：上次抓取的文章可能没有保存成功，已保存的由已见URL索引跳过
+                log.info("📭 页面未变化，解析缓存内容: {}", url);
+            }
+            Document doc = page.parse();
             
             Elements articleElements = doc.select("article, .entry-item, .post");
             
@@ -223,6 +246,8 @@ public class DailyDevCrawler implements WebCrawler {
                     
                     if (title.isEmpty() || articleUrl.isEmpty()) continue;
                     
+                    if (seenUrlIndex.isLikelySeen(articleUrl)) continue;
+                    
                     // 获取作者
                     Element authorElement = element.select(".author, .by-author, .entry-author").first();
                     String author = authorElement != null ? authorElement.text().trim() : "A List Apart";
@@ -326,14 +351,18 @@ public class DailyDevCrawler implements WebCrawler {
         }
     }
     
+    @Override
+    public boolean hasAvailabilityProbe() {
+        return true;
+    }
+    
     @Override
     public boolean isAvailable() {
         try {
             // 检查 CSS-Tricks 作为备用可用性检查
-            Document doc = Jsoup.connect("https://css-tricks.com")
+            Document doc = pageFetcher.fetch("https://css-tricks.com", connection -> connection
                     .userAgent(getRandomUserAgent())
-                    .timeout(10000)
-                    .get();
+                    .timeout(10000)).parse();
             
             return doc.title().contains("CSS-Tricks") || doc.title().length() > 0;
             
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.spideman.entity.Article;
 import com.spideman.service.crawler.WebCrawler;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -19,10 +20,11 @@ import java.util.List;
 import java.util.Random;
 
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class DevToCrawler implements WebCrawler {
     
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final Random random = new Random();
     
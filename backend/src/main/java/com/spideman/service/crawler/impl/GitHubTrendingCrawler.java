@@ -1,9 +1,11 @@
 package com.spideman.service.crawler.impl;
 
 import com.spideman.entity.Article;
+import com.spideman.service.crawler.PageFetcher;
+import com.spideman.service.crawler.SeenUrlIndex;
 import com.spideman.service.crawler.WebCrawler;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
@@ -15,6 +17,7 @@ import java.util.List;
 import java.util.Random;
 
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class GitHubTrendingCrawler implements WebCrawler {
     
@@ -26,6 +29,8 @@ public class GitHubTrendingCrawler implements WebCrawler {
         "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36"
     };
     
+    private final SeenUrlIndex seenUrlIndex;
+    private final PageFetcher pageFetcher;
     private final Random random = new Random();
     
     @Override
@@ -66,12 +71,16 @@ public class GitHubTrendingCrawler implements WebCrawler {
         try {
             log.info("📄 爬取 GitHub 今日热门项目: {}", TRENDING_URL);
             
-            Document doc = Jsoup.connect(TRENDING_URL)
+            PageFetcher.FetchResult page = pageFetcher.fetch(TRENDING_URL, connection -> connection
                     .userAgent(getRandomUserAgent())
                     .timeout(15000)
                     .followRedirects(true)
-                    .referrer("https://github.com")
-                    .get();
+                    .referrer("https://github.com"));
+            if (page.isNotModified()) {
+                // 仍解析缓存的响应体：上次抓取的文章可能没有保存成功，已保存的由已见URL索引跳过
+                log.info("📭 页面未变化，解析缓存内容: {}", TRENDING_URL);
+            }
+            Document doc = page.parse();
             
             // GitHub trending 页面的仓库列表
             Elements repoElements = doc.select("article.Box-row, .Box-row");
@@ -82,6 +91,10 @@ public class GitHubTrendingCrawler implements WebCrawler {
                 
                 try {
                     Article article = parseGitHubRepository(element);
+                    if (article != null && seenUrlIndex.isLikelySeen(article.getUrl())) {
+                        log.debug("⏭️ 跳过已抓取文章: {}", article.getUrl());
+                        continue;
+                    }
                     if (article != null) {
                         articles.add(article);
                         count++;
@@ -229,13 +242,17 @@ public class GitHubTrendingCrawler implements WebCrawler {
         }
     }
     
+    @Override
+    public boolean hasAvailabilityProbe() {
+        return true;
+    }
+    
     @Override
     public boolean isAvailable() {
         try {
-            Document doc = Jsoup.connect("https://github.com")
+            Document doc = pageFetcher.fetch("https://github.com", connection -> connection
                     .userAgent(getRandomUserAgent())
-                    .timeout(10000)
-                    .get();
+                    .timeout(10000)).parse();
             
             return doc.title().contains("GitHub") || doc.title().length() > 0;
             
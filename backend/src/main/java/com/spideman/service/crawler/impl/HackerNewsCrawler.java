@@ -3,42 +3,79 @@ package com.spideman.service.crawler.impl;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.spideman.entity.Article;
+import com.spideman.service.crawler.HostRateLimiter;
+import com.spideman.service.crawler.SeenUrlIndex;
 import com.spideman.service.crawler.WebCrawler;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Headers;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Component
 @Slf4j
 public class HackerNewsCrawler implements WebCrawler {
     
-    private final RestTemplate restTemplate;
+    private final OkHttpClient httpClient;
+    private final SeenUrlIndex seenUrlIndex;
+    private final HostRateLimiter rateLimiter;
+    private final int concurrency;
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private final Random random = new Random();
     
-    private static final String BASE_URL = "https://hacker-news.firebaseio.com/v0";
+    private static final String HOST = "hacker-news.firebaseio.com";
+    private static final String BASE_URL = "https://" + HOST + "/v0";
     private static final String TOP_STORIES_URL = BASE_URL + "/topstories.json";
     private static final String ITEM_URL = BASE_URL + "/item/%d.json";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration CRAWL_TIMEOUT = Duration.ofSeconds(120);
+    private static final Headers HEADERS = createHeaders();
+    private static final int STORY_URL_CACHE_SIZE = 2000;
+    private static final String NO_URL = "";
     
-    public HackerNewsCrawler() {
-        // 配置RestTemplate超时设置
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(5000); // 连接超时5秒
-        factory.setReadTimeout(10000);   // 读取超时10秒
-        this.restTemplate = new RestTemplate(factory);
-        log.info("🔧 HackerNewsCrawler 初始化完成，连接超时: 5s, 读取超时: 10s");
+    /**
+     * 已请求过详情的条目ID -> 文章URL（无链接的条目记为空串）。
+     * 条目是否跳过以URL是否已入库为准，保存失败或请求中断的条目下次仍会抓取
+     */
+    private final Map<Long, String> storyUrls = Collections.synchronizedMap(
+        new LinkedHashMap<Long, String>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+                return size() > STORY_URL_CACHE_SIZE;
+            }
+        });
+    
+    public HackerNewsCrawler(OkHttpClient httpClient,
+                             SeenUrlIndex seenUrlIndex,
+                             HostRateLimiter rateLimiter,
+                             @Value("${crawler.hackernews.concurrency:8}") int concurrency) {
+        this.seenUrlIndex = seenUrlIndex;
+        this.rateLimiter = rateLimiter;
+        this.concurrency = Math.max(1, concurrency);
+        // 共享连接池的异步客户端，单次请求整体超时10秒
+        this.httpClient = httpClient.newBuilder()
+            .callTimeout(REQUEST_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)
+            .build();
+        log.info("🔧 HackerNewsCrawler 初始化完成，请求超时: 10s, 并发数: {}", this.concurrency);
     }
     
     @Override
@@ -53,7 +90,6 @@ public class HackerNewsCrawler implements WebCrawler {
     
     @Override
     public List<Article> crawlArticles(int limit) {
-        List<Article> articles = new ArrayList<>();
         long startTime = System.currentTimeMillis();
         
         try {
@@ -61,53 +97,49 @@ public class HackerNewsCrawler implements WebCrawler {
             
             // 获取热门文章ID列表
             log.debug("📡 正在获取热门文章ID列表...");
-            HttpHeaders headers = createHeaders();
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-            
             long requestStart = System.currentTimeMillis();
-            ResponseEntity<String> responseEntity = restTemplate.exchange(TOP_STORIES_URL, HttpMethod.GET, entity, String.class);
+            // 超时只作用于 HTTP 请求本身（见 rateLimitedGet），限流等待不计入
+            String response = rateLimitedGet(TOP_STORIES_URL).block();
             long requestTime = System.currentTimeMillis() - requestStart;
             
-            String response = responseEntity.getBody();
             JsonNode storyIds = objectMapper.readTree(response);
-            
             log.info("✅ 获取热门文章ID列表成功，耗时: {}ms, 总数: {}", requestTime, storyIds.size());
             
-            int count = 0;
-            int successCount = 0;
-            int failCount = 0;
-            
+            // 已抓取过的条目直接跳过，不占用抓取名额，也不请求详情接口
+            List<Long> pendingIds = new ArrayList<>();
+            int skippedCount = 0;
             for (JsonNode storyIdNode : storyIds) {
-                if (count >= limit) break;
-                count++;
-                
-                try {
-                    long storyId = storyIdNode.asLong();
-                    log.debug("📄 正在获取文章详情: ID={}, 进度: {}/{}", storyId, count, limit);
-                    
-                    Article article = fetchStoryDetails(storyId);
-                    
-                    if (article != null && article.getUrl() != null && !article.getUrl().isEmpty()) {
-                        articles.add(article);
-                        successCount++;
-                        log.debug("✅ 文章获取成功: {}", article.getTitle());
-                        
-                        // 添加随机延迟，避免被限制
-                        Thread.sleep(200 + random.nextInt(300)); // 减少延迟时间
-                    } else {
-                        failCount++;
-                        log.debug("⚠️ 文章无效或无URL: ID={}", storyId);
-                    }
-                    
-                } catch (Exception e) {
-                    failCount++;
-                    log.warn("❌ 获取 Hacker News 文章详情失败: {}", e.getMessage());
+                if (pendingIds.size() >= limit) break;
+                long storyId = storyIdNode.asLong();
+                String knownUrl = storyUrls.get(storyId);
+                if (knownUrl != null && (knownUrl.isEmpty() || seenUrlIndex.isLikelySeen(knownUrl))) {
+                    skippedCount++;
+                    continue;
                 }
+                pendingIds.add(storyId);
             }
             
+            // 有界并发获取文章详情，由限流器控制请求节奏；结果保持热门榜顺序
+            AtomicInteger failCount = new AtomicInteger();
+            List<Article> articles = Flux.fromIterable(pendingIds)
+                .flatMapSequential(storyId -> fetchStoryDetails(storyId)
+                    .doOnSuccess(article -> {
+                        if (article == null) {
+                            failCount.incrementAndGet();
+                        }
+                    })
+                    .onErrorResume(e -> {
+                        failCount.incrementAndGet();
+                        log.warn("❌ 获取 Hacker News 文章详情失败: ID={}, error={}", storyId, e.getMessage());
+                        return Mono.empty();
+                    }), concurrency)
+                .collectList()
+                .block(CRAWL_TIMEOUT);
+            
             long totalTime = System.currentTimeMillis() - startTime;
-            log.info("🎉 Hacker News 爬取完成！成功: {}, 失败: {}, 总耗时: {}ms", 
-                successCount, failCount, totalTime);
+            log.info("🎉 Hacker News 爬取完成！成功: {}, 失败: {}, 跳过已抓取: {}, 总耗时: {}ms", 
+                articles.size(), failCount.get(), skippedCount, totalTime);
+            return articles;
             
         } catch (Exception e) {
             long totalTime = System.currentTimeMillis() - startTime;
@@ -116,24 +148,63 @@ public class HackerNewsCrawler implements WebCrawler {
             // 返回空列表而不是抛出异常
             return new ArrayList<>();
         }
-        
-        return articles;
     }
     
-    private Article fetchStoryDetails(long storyId) {
+    /**
+     * 先向限流器预约令牌，延迟到许可时间后再发起请求；请求超时从发起请求时计时，不含限流等待
+     */
+    private Mono<String> rateLimitedGet(String url) {
+        Duration wait = rateLimiter.reserve(HOST);
+        Mono<String> request = get(url).timeout(REQUEST_TIMEOUT);
+        return wait.isZero() ? request : Mono.delay(wait).then(request);
+    }
+    
+    /**
+     * 异步发起 GET 请求，取消订阅时同时取消请求
+     */
+    private Mono<String> get(String url) {
+        return Mono.create(sink -> {
+            Call pending = httpClient.newCall(new Request.Builder().url(url).headers(HEADERS).build());
+            sink.onCancel(pending::cancel);
+            pending.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    sink.error(e);
+                }
+                
+                @Override
+                public void onResponse(Call call, Response response) {
+                    try (ResponseBody body = response.body()) {
+                        if (!response.isSuccessful()) {
+                            sink.error(new IOException("HTTP " + response.code() + " fetching " + url));
+                            return;
+                        }
+                        sink.success(body != null ? body.string() : null);
+                    } catch (IOException e) {
+                        sink.error(e);
+                    }
+                }
+            });
+        });
+    }
+    
+    private Mono<Article> fetchStoryDetails(long storyId) {
+        long requestStart = System.currentTimeMillis();
+        return Mono.defer(() -> rateLimitedGet(String.format(ITEM_URL, storyId)))
+            .flatMap(response -> {
+                long requestTime = System.currentTimeMillis() - requestStart;
+                Article article = parseStory(storyId, response, requestTime);
+                // 只记录条目对应的URL，是否已抓取由保存结果写入的已见索引决定
+                storyUrls.put(storyId, article != null ? article.getUrl() : NO_URL);
+                return article != null ? Mono.just(article) : Mono.<Article>empty();
+            });
+    }
+    
+    private Article parseStory(long storyId, String response, long requestTime) {
         try {
-            String url = String.format(ITEM_URL, storyId);
-            HttpHeaders headers = createHeaders();
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-            
-            long requestStart = System.currentTimeMillis();
-            ResponseEntity<String> responseEntity = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
-            long requestTime = System.currentTimeMillis() - requestStart;
-            
-            String response = responseEntity.getBody();
             JsonNode storyData = objectMapper.readTree(response);
             
-            if (storyData == null || !storyData.has("url")) {
+            if (storyData == null || !storyData.has("url") || storyData.get("url").asText().isEmpty()) {
                 log.debug("⚠️ 文章数据无效或缺少URL: ID={}, 耗时: {}ms", storyId, requestTime);
                 return null;
             }
@@ -173,13 +244,13 @@ public class HackerNewsCrawler implements WebCrawler {
         }
     }
     
-    private HttpHeaders createHeaders() {
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("User-Agent", "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36");
-        headers.set("Accept", "application/json, text/plain, */*");
-        headers.set("Accept-Language", "en-US,en;q=0.9");
-        headers.set("Cache-Control", "no-cache");
-        headers.set("Pragma", "no-cache");
-        return headers;
+    private static Headers createHeaders() {
+        return new Headers.Builder()
+            .set("User-Agent", "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36")
+            .set("Accept", "application/json, text/plain, */*")
+            .set("Accept-Language", "en-US,en;q=0.9")
+            .set("Cache-Control", "no-cache")
+            .set("Pragma", "no-cache")
+            .build();
     }
 } 
\ No newline at end of file
@@ -1,9 +1,11 @@
 package com.spideman.service.crawler.impl;
 
 import com.spideman.entity.Article;
+import com.spideman.service.crawler.PageFetcher;
+import com.spideman.service.crawler.SeenUrlIndex;
 import com.spideman.service.crawler.WebCrawler;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
@@ -16,6 +18,7 @@ import java.util.List;
 import java.util.Random;
 
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class IBMDeveloperCrawler implements WebCrawler {
     
@@ -26,6 +29,8 @@ public class IBMDeveloperCrawler implements WebCrawler {
         "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36"
     };
     
+    private final SeenUrlIndex seenUrlIndex;
+    private final PageFetcher pageFetcher;
     private final Random random = new Random();
     
     @Override
@@ -74,12 +79,16 @@ public class IBMDeveloperCrawler implements WebCrawler {
             String url = String.format("%s/%s", BASE_URL, category);
             log.info("📄 爬取 IBM Developer 分类: {} - {}", category, url);
             
-            Document doc = Jsoup.connect(url)
+            PageFetcher.FetchResult page = pageFetcher.fetch(url, connection -> connection
                     .userAgent(getRandomUserAgent())
                     .timeout(15000)
                     .followRedirects(true)
-                    .referrer("https://developer.ibm.com")
-                    .get();
+                    .referrer("https://developer.ibm.com"));
+            if (page.isNotModified()) {
+                // 仍解析缓存的响应体：上次抓取的文章可能没有保存成功，已保存的由已见URL索引跳过
+                log.info("📭 页面未变化，解析缓存内容: {}", url);
+            }
+            Document doc = page.parse();
             
             // IBM Developer 文章列表选择器
             Elements articleElements = doc.select("article, .card, .content-item, .article-card");
@@ -95,6 +104,10 @@ public class IBMDeveloperCrawler implements WebCrawler {
                 
                 try {
                     Article article = parseIBMDeveloperArticle(element, category);
+                    if (article != null && seenUrlIndex.isLikelySeen(article.getUrl())) {
+                        log.debug("⏭️ 跳过已抓取文章: {}", article.getUrl());
+                        continue;
+                    }
                     if (article != null) {
                         articles.add(article);
                         count++;
@@ -129,10 +142,14 @@ public class IBMDeveloperCrawler implements WebCrawler {
             log.info("📄 使用备用方法爬取 IBM 技术博客");
             
             String url = "https://www.ibm.com/blog/";
-            Document doc = Jsoup.connect(url)
+            PageFetcher.FetchResult page = pageFetcher.fetch(url, connection -> connection
                     .userAgent(getRandomUserAgent())
-                    .timeout(15000)
-                    .get();
+                    .timeout(15000));
+            if (page.isNotModified()) {
+                // 仍解析缓存的响应体：上次抓取的文章可能没有保存成功，已保存的由已见URL索引跳过
+                log.info("📭 页面未变化，解析缓存内容: {}", url);
+            }
+            Document doc = page.parse();
             
             Elements articleElements = doc.select("article, .post, .blog-post");
             
@@ -149,6 +166,8 @@ public class IBMDeveloperCrawler implements WebCrawler {
                     
                     if (title.isEmpty() || articleUrl.isEmpty()) continue;
                     
+                    if (seenUrlIndex.isLikelySeen(articleUrl)) continue;
+                    
                     // 获取摘要
                     Element summaryElement = element.select(".excerpt, .summary, p").first();
                     String summary = summaryElement != null ? summaryElement.text().trim() : "";
@@ -272,13 +291,17 @@ public class IBMDeveloperCrawler implements WebCrawler {
         }
     }
     
+    @Override
+    public boolean hasAvailabilityProbe() {
+        return true;
+    }
+    
     @Override
     public boolean isAvailable() {
         try {
-            Document doc = Jsoup.connect("https://developer.ibm.com")
+            Document doc = pageFetcher.fetch("https://developer.ibm.com", connection -> connection
                     .userAgent(getRandomUserAgent())
-                    .timeout(10000)
-                    .get();
+                    .timeout(10000)).parse();
             
             return doc.title().contains("IBM") || doc.title().length() > 0;
             
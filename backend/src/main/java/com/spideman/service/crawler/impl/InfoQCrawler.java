@@ -1,9 +1,11 @@
 package com.spideman.service.crawler.impl;
 
 import com.spideman.entity.Article;
+import com.spideman.service.crawler.PageFetcher;
+import com.spideman.service.crawler.SeenUrlIndex;
 import com.spideman.service.crawler.WebCrawler;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
@@ -16,6 +18,7 @@ import java.util.List;
 import java.util.Random;
 
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class InfoQCrawler implements WebCrawler {
     
@@ -26,6 +29,8 @@ public class InfoQCrawler implements WebCrawler {
         "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36"
     };
     
+    private final SeenUrlIndex seenUrlIndex;
+    private final PageFetcher pageFetcher;
     private final Random random = new Random();
     
     @Override
@@ -75,11 +80,15 @@ public class InfoQCrawler implements WebCrawler {
             String url = "https://www.infoq.cn/topic/development";
             log.info("📄 爬取 InfoQ 中文版: {}", url);
             
-            Document doc = Jsoup.connect(url)
+            PageFetcher.FetchResult page = pageFetcher.fetch(url, connection -> connection
                     .userAgent(getRandomUserAgent())
                     .timeout(15000)
-                    .followRedirects(true)
-                    .get();
+                    .followRedirects(true));
+            if (page.isNotModified()) {
+                // 仍解析缓存的响应体：上次抓取的文章可能没有保存成功，已保存的由已见URL索引跳过
+                log.info("📭 页面未变化，解析缓存内容: {}", url);
+            }
+            Document doc = page.parse();
             
             Elements articleElements = doc.select(".com_article_list .article-item");
             
@@ -89,6 +98,10 @@ public class InfoQCrawler implements WebCrawler {
                 
                 try {
                     Article article = parseChineseArticle(element);
+                    if (article != null && seenUrlIndex.isLikelySeen(article.getUrl())) {
+                        log.debug("⏭️ 跳过已抓取文章: {}", article.getUrl());
+                        continue;
+                    }
                     if (article != null) {
                         articles.add(article);
                         count++;
@@ -118,11 +131,15 @@ public class InfoQCrawler implements WebCrawler {
             String url = "https://www.infoq.com/articles/";
             log.info("📄 爬取 InfoQ 英文版: {}", url);
             
-            Document doc = Jsoup.connect(url)
+            PageFetcher.FetchResult page = pageFetcher.fetch(url, connection -> connection
                     .userAgent(getRandomUserAgent())
                     .timeout(15000)
-                    .followRedirects(true)
-                    .get();
+                    .followRedirects(true));
+            if (page.isNotModified()) {
+                // 仍解析缓存的响应体：上次抓取的文章可能没有保存成功，已保存的由已见URL索引跳过
+                log.info("📭 页面未变化，解析缓存内容: {}", url);
+            }
+            Document doc = page.parse();
             
             Elements articleElements = doc.select(".news_listing .news_type_article");
             
@@ -132,6 +149,10 @@ public class InfoQCrawler implements WebCrawler {
                 
                 try {
                     Article article = parseEnglishArticle(element);
+                    if (article != null && seenUrlIndex.isLikelySeen(article.getUrl())) {
+                        log.debug("⏭️ 跳过已抓取文章: {}", article.getUrl());
+                        continue;
+                    }
                     if (article != null) {
                         articles.add(article);
                         count++;
@@ -289,13 +310,12 @@ public class InfoQCrawler implements WebCrawler {
      */
     private boolean checkRobotsCompliance() {
         try {
-            // 简单的robots.txt检查
-            Document robotsDoc = Jsoup.connect("https://www.infoq.com/robots.txt")
+            // 简单的robots.txt检查（未变化时直接使用本地缓存内容）
+            PageFetcher.FetchResult robots = pageFetcher.fetch("https://www.infoq.com/robots.txt", connection -> connection
                     .userAgent(getRandomUserAgent())
-                    .timeout(5000)
-                    .get();
+                    .timeout(5000));
             
-            String robotsContent = robotsDoc.text();
+            String robotsContent = robots.bodyAsString();
             log.debug("InfoQ robots.txt: {}", robotsContent);
             
             // InfoQ的robots.txt主要针对特定的爬虫(Baiduspider, Sogou等)和特定路径
@@ -351,14 +371,18 @@ public class InfoQCrawler implements WebCrawler {
         }
     }
     
+    @Override
+    public boolean hasAvailabilityProbe() {
+        return true;
+    }
+    
     @Override
     public boolean isAvailable() {
         try {
             // 简单的可用性检查
-            Document doc = Jsoup.connect("https://www.infoq.com")
+            Document doc = pageFetcher.fetch("https://www.infoq.com", connection -> connection
                     .userAgent(getRandomUserAgent())
-                    .timeout(10000)
-                    .get();
+                    .timeout(10000)).parse();
             
             return doc.title().contains("InfoQ");
             
@@ -0,0 +1,155 @@
+package com.spideman.service.report;
+
+import com.spideman.dto.ArticleDTO;
+import com.spideman.entity.DailyReport;
+import com.spideman.service.ArticleService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 日报相关文章解析
+ *
+ * 按 articleIds 的顺序一次批量加载关联文章；没有关联文章时依次退回到日报日期前后的文章和热门文章。
+ * 结果按（日报ID, 版本号）缓存，日报被修改后版本号变化自然失效，删除时通过变更事件清除。
+ * 加载失败时异常交给调用方处理，不缓存空结果。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RelatedArticlesResolver {
+    
+    private static final int MAX_FALLBACK_ARTICLES = 10;
+    
+    private final ArticleService articleService;
+    
+    @Value("${report.related-articles.cache-entries:200}")
+    private int cacheEntries;
+    
+    /**
+     * 缓存有效期（关联文章的翻译、浏览量等会在日报版本不变时更新）
+     */
+    @Value("${report.related-articles.ttl-seconds:600}")
+    private long ttlSeconds;
+    
+    private Map<Long, CachedArticles> cache;
+    
+    @PostConstruct
+    public void init() {
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<Long, CachedArticles>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedArticles> eldest) {
+                return size() > cacheEntries;
+            }
+        });
+    }
+    
+    /**
+     * 获取日报的相关文章
+     *
+     * @throws org.springframework.dao.DataAccessException 加载失败（结果不缓存）
+     */
+    public List<ArticleDTO> resolve(DailyReport report) {
+        if (report.getId() != null) {
+            CachedArticles cached = cache.get(report.getId());
+            if (cached != null && Objects.equals(cached.version, report.getVersion()) && !cached.isExpired()) {
+                return cached.articles;
+            }
+        }
+    
+        List<ArticleDTO> articles = Collections.unmodifiableList(load(report));
+        if (report.getId() != null) {
+            cache.put(report.getId(), new CachedArticles(report.getVersion(), articles,
+                System.currentTimeMillis() + ttlSeconds * 1000));
+        }
+        return articles;
+    }
+    
+    /**
+     * 日报变更后清除缓存（修改时版本号也会变化，这里主要处理删除）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReportChanged(ReportChangedEvent event) {
+        if (event.getReportId() == null) {
+            cache.clear();
+        } else {
+            cache.remove(event.getReportId());
+        }
+    }
+    
+    private List<ArticleDTO> load(DailyReport report) {
+        List<Long> articleIds = parseArticleIds(report.getArticleIds());
+        if (!articleIds.isEmpty()) {
+            List<ArticleDTO> articles = articleService.getArticlesByIds(articleIds);
+            if (!articles.isEmpty()) {
+                log.info("✅ 通过关联ID找到 {} 篇文章（日报ID: {}）", articles.size(), report.getId());
+                return articles;
+            }
+        }
+    
+        // 获取日报日期前后几天的文章（扩大范围以确保有文章）
+        LocalDate reportDate = report.getReportDate();
+        List<ArticleDTO> articles = articleService.getArticleDTOsByDateRange(
+            reportDate.minusDays(2).atStartOfDay(), reportDate.plusDays(2).atStartOfDay(), MAX_FALLBACK_ARTICLES);
+        if (!articles.isEmpty()) {
+            log.info("✅ 通过日期范围找到 {} 篇文章", articles.size());
+            return articles;
+        }
+    
+        // 最后兜底：返回热门文章
+        List<ArticleDTO> popularArticles = articleService.getPopularArticles();
+        log.info("📄 使用热门文章作为兜底，共 {} 篇", popularArticles.size());
+        return popularArticles.size() > MAX_FALLBACK_ARTICLES
+            ? new ArrayList<>(popularArticles.subList(0, MAX_FALLBACK_ARTICLES)) : popularArticles;
+    }
+    
+    /**
+     * 解析逗号分隔的文章ID，保持顺序并去重，跳过无效项
+     */
+    private List<Long> parseArticleIds(String articleIds) {
+        if (articleIds == null || articleIds.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<Long> ids = new LinkedHashSet<>();
+        for (String idStr : articleIds.split(",")) {
+            if (idStr.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                ids.add(Long.parseLong(idStr.trim()));
+            } catch (NumberFormatException e) {
+                log.warn("跳过无效的文章ID: {}", idStr);
+            }
+        }
+        return new ArrayList<>(ids);
+    }
+    
+    private static class CachedArticles {
+        private final Long version;
+        private final List<ArticleDTO> articles;
+        private final long expiresAt;
+    
+        CachedArticles(Long version, List<ArticleDTO> articles, long expiresAt) {
+            this.version = version;
+            this.articles = articles;
+            this.expiresAt = expiresAt;
+        }
+    
+        boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+}
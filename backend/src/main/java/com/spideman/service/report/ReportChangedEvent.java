@@ -0,0 +1,22 @@
+package com.spideman.service.report;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 日报内容变更事件（保存、更新、生成、删除后发布）
+ */
+@Getter
+@RequiredArgsConstructor
+public class ReportChangedEvent {
+    
+    /**
+     * 变更的日报ID，未知时为 null
+     */
+    private final Long reportId;
+    
+    /**
+     * 变更类型（saved / updated / generated / deleted）
+     */
+    private final String reason;
+}
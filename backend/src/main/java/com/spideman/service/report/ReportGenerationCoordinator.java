@@ -0,0 +1,273 @@
+package com.spideman.service.report;
+
+import com.spideman.entity.DailyReport;
+import com.spideman.repository.DailyReportRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 日报生成协调器（按日期单飞）
+ *
+ * 同一进程内，同一日期的并发生成请求共享同一个进行中的 CompletableFuture，只调用一次 AI；
+ * 跨实例时通过 report_generation_leases 表中的租约行互斥，未拿到租约的实例等待租约释放后
+ * 直接读取对方生成的日报。持有租约期间定时续期；写回日报前在同一事务中锁定租约行并确认
+ * 仍由本实例持有，租约已被接管时放弃写回。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReportGenerationCoordinator {
+    
+    private static final String ACQUIRE_SQL = "UPDATE report_generation_leases SET owner = ?, acquired_at = ?, expires_at = ? " +
+        "WHERE lease_key = ? AND (expires_at < ? OR owner = ?)";
+    private static final String INSERT_SQL = "INSERT INTO report_generation_leases (lease_key, owner, acquired_at, expires_at) " +
+        "VALUES (?, ?, ?, ?)";
+    private static final String RELEASE_SQL = "DELETE FROM report_generation_leases WHERE lease_key = ? AND owner = ?";
+    private static final String HOLDER_SQL = "SELECT COUNT(*) FROM report_generation_leases " +
+        "WHERE lease_key = ? AND expires_at >= ? AND owner <> ?";
+    private static final String RENEW_SQL = "UPDATE report_generation_leases SET expires_at = ? WHERE lease_key = ? AND owner = ?";
+    private static final String LOCK_SQL = "SELECT owner FROM report_generation_leases WHERE lease_key = ? FOR UPDATE";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final DailyReportRepository dailyReportRepository;
+    
+    @Value("${report.generation.lease-seconds:900}")
+    private long leaseSeconds;
+    
+    @Value("${report.generation.lease-poll-ms:2000}")
+    private long leasePollMillis;
+    
+    /**
+     * 当前实例标识
+     */
+    private final String instanceId = ManagementFactory.getRuntimeMXBean().getName() + ":" + UUID.randomUUID().toString().substring(0, 8);
+    
+    private final ConcurrentHashMap<LocalDate, CompletableFuture<DailyReport>> inFlight = new ConcurrentHashMap<>();
+    
+    /**
+     * 本实例当前持有的租约（由定时任务续期）
+     */
+    private final Set<String> heldLeases = ConcurrentHashMap.newKeySet();
+    
+    private final LongAdder generations = new LongAdder();
+    private final LongAdder sharedWaits = new LongAdder();
+    private final LongAdder remoteWaits = new LongAdder();
+    
+    /**
+     * 生成指定日期的日报；同一日期已有生成在进行时，等待并共享其结果
+     */
+    public DailyReport generate(LocalDate date, Supplier<DailyReport> generator) {
+        CompletableFuture<DailyReport> future = new CompletableFuture<>();
+        CompletableFuture<DailyReport> existing = inFlight.putIfAbsent(date, future);
+        if (existing != null) {
+            sharedWaits.increment();
+            log.info("⏳ {} 的日报正在生成，等待共享结果", date);
+            return await(existing);
+        }
+    
+        try {
+            DailyReport report = generateWithLease(date, generator);
+            future.complete(report);
+            return report;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(date, future);
+        }
+    }
+    
+    /**
+     * 指定日期的日报是否正在本实例生成
+     */
+    public boolean isGenerating(LocalDate date) {
+        return inFlight.containsKey(date);
+    }
+    
+    /**
+     * 指定日期的生成租约是否被其他实例持有（即其他实例正在生成）
+     */
+    public boolean isLeasedByOthers(LocalDate date) {
+        return isHeldByOthers(leaseKey(date));
+    }
+    
+    /**
+     * 在调用方的事务中锁定指定日期的租约行，并确认仍由本实例持有；锁持续到事务结束，
+     * 期间其他实例无法接管租约
+     *
+     * @throws ReportLeaseLostException 租约已被其他实例接管或已不存在
+     */
+    public void lockLease(LocalDate date) {
+        String leaseKey = leaseKey(date);
+        List<String> owners = jdbcTemplate.queryForList(LOCK_SQL, String.class, leaseKey);
+        if (owners.isEmpty() || !instanceId.equals(owners.get(0))) {
+            throw new ReportLeaseLostException(date + " 的日报生成租约已被其他实例接管");
+        }
+    }
+    
+    /**
+     * 为本实例持有的租约续期，生成耗时超过租约时长时不会被其他实例接管
+     */
+    @Scheduled(fixedDelayString = "${report.generation.lease-renew-ms:60000}")
+    public void renewLeases() {
+        for (String leaseKey : heldLeases) {
+            try {
+                Timestamp expiresAt = Timestamp.valueOf(LocalDateTime.now().plusSeconds(leaseSeconds));
+                if (jdbcTemplate.update(RENEW_SQL, expiresAt, leaseKey, instanceId) == 0) {
+                    heldLeases.remove(leaseKey);
+                    log.warn("⚠️ 日报生成租约已被其他实例接管，停止续期: {}", leaseKey);
+                }
+            } catch (DataAccessException e) {
+                log.warn("续期日报生成租约失败: {} - {}", leaseKey, e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * 获取协调器状态
+     */
+    public Map<String, Object> getStatistics() {
+        List<String> dates = new ArrayList<>();
+        for (LocalDate date : inFlight.keySet()) {
+            dates.add(date.toString());
+        }
+        Collections.sort(dates);
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("instanceId", instanceId);
+        stats.put("inFlight", dates);
+        stats.put("heldLeases", heldLeases.size());
+        stats.put("generations", generations.sum());
+        stats.put("sharedWaits", sharedWaits.sum());
+        stats.put("remoteWaits", remoteWaits.sum());
+        return stats;
+    }
+    
+    /**
+     * 持有租约时生成；租约被其他实例持有时等待其完成并读取结果
+     */
+    private DailyReport generateWithLease(LocalDate date, Supplier<DailyReport> generator) {
+        String leaseKey = leaseKey(date);
+        LocalDateTime requestedAt = LocalDateTime.now();
+        boolean waited = false;
+        while (true) {
+            if (tryAcquire(leaseKey)) {
+                try {
+                    if (waited) {
+                        // 等待期间其他实例已完成生成，直接使用其结果
+                        Optional<DailyReport> report = findGeneratedSince(date, requestedAt);
+                        if (report.isPresent()) {
+                            return report.get();
+                        }
+                    }
+                    generations.increment();
+                    return generator.get();
+                } finally {
+                    release(leaseKey);
+                }
+            }
+    
+            if (!waited) {
+                remoteWaits.increment();
+                log.info("⏳ {} 的日报正由其他实例生成，等待租约释放", date);
+                waited = true;
+            }
+            waitForRelease(leaseKey);
+    
+            Optional<DailyReport> report = findGeneratedSince(date, requestedAt);
+            if (report.isPresent()) {
+                log.info("📄 使用其他实例生成的日报: {} (ID: {})", date, report.get().getId());
+                return report.get();
+            }
+        }
+    }
+    
+    private Optional<DailyReport> findGeneratedSince(LocalDate date, LocalDateTime since) {
+        return dailyReportRepository.findByReportDate(date)
+            .filter(report -> report.getStatus() == DailyReport.ReportStatus.PUBLISHED)
+            .filter(report -> report.getUpdatedAt() != null && !report.getUpdatedAt().isBefore(since));
+    }
+    
+    private boolean tryAcquire(String leaseKey) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Timestamp expiresAt = Timestamp.valueOf(LocalDateTime.now().plusSeconds(leaseSeconds));
+        try {
+            if (jdbcTemplate.update(ACQUIRE_SQL, instanceId, now, expiresAt, leaseKey, now, instanceId) == 0) {
+                jdbcTemplate.update(INSERT_SQL, leaseKey, instanceId, now, expiresAt);
+            }
+            heldLeases.add(leaseKey);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+    
+    private void release(String leaseKey) {
+        heldLeases.remove(leaseKey);
+        try {
+            jdbcTemplate.update(RELEASE_SQL, leaseKey, instanceId);
+        } catch (DataAccessException e) {
+            // 释放失败时租约到期后自动失效
+            log.warn("释放日报生成租约失败: {} - {}", leaseKey, e.getMessage());
+        }
+    }
+    
+    private void waitForRelease(String leaseKey) {
+        try {
+            while (isHeldByOthers(leaseKey)) {
+                Thread.sleep(leasePollMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待日报生成租约时被中断", e);
+        }
+    }
+    
+    private String leaseKey(LocalDate date) {
+        return "daily-report:" + date;
+    }
+    
+    private boolean isHeldByOthers(String leaseKey) {
+        Long count = jdbcTemplate.queryForObject(HOLDER_SQL, Long.class, leaseKey, Timestamp.valueOf(LocalDateTime.now()), instanceId);
+        return count != null && count > 0;
+    }
+    
+    private DailyReport await(CompletableFuture<DailyReport> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待日报生成时被中断", e);
+        } catch (ExecutionException | CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException("日报生成失败: " + cause.getMessage(), cause);
+        }
+    }
+}
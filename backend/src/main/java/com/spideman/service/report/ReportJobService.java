@@ -0,0 +1,348 @@
+package com.spideman.service.report;
+
+import com.spideman.entity.DailyReport;
+import com.spideman.entity.ReportGenerationJob;
+import com.spideman.entity.ReportGenerationJob.JobStatus;
+import com.spideman.repository.ReportGenerationJobRepository;
+import com.spideman.service.DailyReportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 日报生成任务服务
+ *
+ * 提交生成请求时只创建任务记录并立即返回任务ID，生成在有界线程池中执行；
+ * 进度写入任务记录，可轮询查询，也可通过 SSE 订阅。
+ * 同一日期已有未结束的任务时直接返回该任务，不重复提交（由 active_date 唯一索引保证）。
+ * 启动时及定时巡检时，接管租约已失效、长时间无进展的未结束任务。
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReportJobService {
+    
+    private static final List<JobStatus> ACTIVE_STATUSES = Arrays.asList(JobStatus.QUEUED, JobStatus.RUNNING);
+    
+    private static final int MAX_ERROR_LENGTH = 1000;
+    
+    private final ReportGenerationJobRepository jobRepository;
+    private final DailyReportService dailyReportService;
+    private final ReportGenerationCoordinator reportGenerationCoordinator;
+    @Qualifier("reportJobExecutor")
+    private final ThreadPoolTaskExecutor reportJobExecutor;
+    
+    @Value("${report.job.max-attempts:3}")
+    private int maxAttempts;
+    
+    @Value("${report.job.sse-timeout-ms:600000}")
+    private long sseTimeoutMillis;
+    
+    /**
+     * 未结束的任务超过该时长没有进展、且租约未被持有时，视为执行它的实例已退出
+     */
+    @Value("${report.job.stale-after-minutes:30}")
+    private long staleAfterMinutes;
+    
+    private final ConcurrentHashMap<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    
+    /**
+     * 已交给本实例线程池、尚未执行完的任务
+     */
+    private final Set<Long> localJobs = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * 提交日报生成任务
+     */
+    public ReportGenerationJob submit(LocalDate reportDate, String source) {
+        Optional<ReportGenerationJob> active = jobRepository.findFirstByReportDateAndStatusInOrderByCreatedAtDesc(reportDate, ACTIVE_STATUSES);
+        if (active.isPresent()) {
+            log.info("📋 {} 的日报已有进行中的任务: {}", reportDate, active.get().getId());
+            return active.get();
+        }
+    
+        ReportGenerationJob job = new ReportGenerationJob();
+        job.setReportDate(reportDate);
+        job.setSource(source);
+        job.setStatus(JobStatus.QUEUED);
+        job.setStage("排队中");
+        try {
+            job = jobRepository.save(job);
+        } catch (DataIntegrityViolationException e) {
+            // 并发提交了同一日期的任务（active_date 唯一索引冲突），返回对方的任务
+            Optional<ReportGenerationJob> concurrent = jobRepository.findFirstByReportDateAndStatusInOrderByCreatedAtDesc(reportDate, ACTIVE_STATUSES);
+            log.info("📋 {} 的日报已被并发提交任务: {}", reportDate, concurrent.map(ReportGenerationJob::getId).orElse(null));
+            return concurrent.orElseThrow(() -> e);
+        }
+        log.info("📋 提交日报生成任务: {} (任务ID: {}, 来源: {})", reportDate, job.getId(), source);
+    
+        dispatch(job.getId());
+        return job;
+    }
+    
+    /**
+     * 获取任务
+     */
+    public Optional<ReportGenerationJob> getJob(Long jobId) {
+        return jobRepository.findById(jobId);
+    }
+    
+    /**
+     * 获取最近的任务
+     */
+    public List<ReportGenerationJob> getRecentJobs() {
+        return jobRepository.findTop20ByOrderByCreatedAtDesc();
+    }
+    
+    /**
+     * 订阅任务进度（SSE）；任务已结束时发送最终状态后立即关闭
+     */
+    public SseEmitter subscribe(Long jobId) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMillis);
+        Optional<ReportGenerationJob> job = jobRepository.findById(jobId);
+        if (!job.isPresent()) {
+            emitter.completeWithError(new IllegalArgumentException("任务不存在: " + jobId));
+            return emitter;
+        }
+    
+        // 任务已结束时不再登记订阅，推送最终状态后直接关闭
+        ReportGenerationJob current = job.get();
+        if (!current.isFinished()) {
+            subscribers.compute(jobId, (key, emitters) -> {
+                List<SseEmitter> registered = emitters != null ? emitters : new CopyOnWriteArrayList<>();
+                registered.add(emitter);
+                return registered;
+            });
+            Runnable remove = () -> unsubscribe(jobId, emitter);
+            emitter.onCompletion(remove);
+            emitter.onTimeout(remove);
+            emitter.onError(e -> remove.run());
+            // 订阅前的状态可能已错过，重新读取一次（避免与结束通知竞争）
+            current = jobRepository.findById(jobId).orElse(current);
+        }
+    
+        send(emitter, current);
+        if (current.isFinished()) {
+            unsubscribe(jobId, emitter);
+            emitter.complete();
+        }
+        return emitter;
+    }
+    
+    /**
+     * 任务视图
+     */
+    public Map<String, Object> toView(ReportGenerationJob job) {
+        Map<String, Object> view = new HashMap<>();
+        view.put("jobId", job.getId());
+        view.put("reportDate", job.getReportDate().toString());
+        view.put("status", job.getStatus().name());
+        view.put("stage", job.getStage());
+        view.put("progress", job.getProgress());
+        view.put("finished", job.isFinished());
+        view.put("reportId", job.getReportId());
+        view.put("errorMessage", job.getErrorMessage());
+        view.put("attempts", job.getAttempts());
+        view.put("createdAt", job.getCreatedAt() != null ? job.getCreatedAt().toString() : null);
+        view.put("startedAt", job.getStartedAt() != null ? job.getStartedAt().toString() : null);
+        view.put("finishedAt", job.getFinishedAt() != null ? job.getFinishedAt().toString() : null);
+        return view;
+    }
+    
+    /**
+     * 启动时恢复未完成的任务：重新排队执行，超过最大执行次数的标记失败；
+     * 该日期的生成租约被其他实例持有时说明任务仍在其他实例执行，不做处理
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverUnfinishedJobs() {
+        List<ReportGenerationJob> jobs = jobRepository.findByStatusInOrderByCreatedAtAsc(ACTIVE_STATUSES);
+        if (jobs.isEmpty()) {
+            return;
+        }
+        log.info("🔁 发现 {} 个未完成的日报生成任务，开始恢复", jobs.size());
+        for (ReportGenerationJob job : jobs) {
+            recover(job, "应用重启后重新排队", "应用重启时任务中断，已达到最大执行次数");
+        }
+    }
+    
+    /**
+     * 定时巡检未结束的任务：不在本实例执行、租约未被持有且长时间没有进展的任务
+     * （执行它的实例已退出），按启动恢复的方式重新排队或标记失败
+     */
+    @Scheduled(initialDelayString = "${report.job.stale-sweep-ms:300000}",
+               fixedDelayString = "${report.job.stale-sweep-ms:300000}")
+    public void sweepStaleJobs() {
+        LocalDateTime staleBefore = LocalDateTime.now().minusMinutes(staleAfterMinutes);
+        for (ReportGenerationJob job : jobRepository.findByStatusInOrderByCreatedAtAsc(ACTIVE_STATUSES)) {
+            if (localJobs.contains(job.getId()) || job.getUpdatedAt() == null || job.getUpdatedAt().isAfter(staleBefore)) {
+                continue;
+            }
+            log.warn("🔁 日报生成任务长时间无进展，尝试接管: {} (任务ID: {})", job.getReportDate(), job.getId());
+            recover(job, "任务中断后重新排队", "任务中断，已达到最大执行次数");
+        }
+    }
+    
+    /**
+     * 重新排队或标记失败；以读取时的更新时间为条件接管，其他实例已接管或任务已有进展时不做处理
+     */
+    private void recover(ReportGenerationJob job, String requeueStage, String exhaustedMessage) {
+        if (reportGenerationCoordinator.isLeasedByOthers(job.getReportDate())) {
+            log.info("⏭️ {} 的日报正由其他实例生成，跳过恢复任务: {}", job.getReportDate(), job.getId());
+            return;
+        }
+        if (jobRepository.requeueIfUnchanged(job.getId(), job.getUpdatedAt(), requeueStage, LocalDateTime.now()) == 0) {
+            log.info("⏭️ 任务已被其他实例接管或已有进展，跳过恢复: {}", job.getId());
+            return;
+        }
+        if (job.getAttempts() != null && job.getAttempts() >= maxAttempts) {
+            updateJob(job.getId(), j -> fail(j, exhaustedMessage));
+            return;
+        }
+        dispatch(job.getId());
+    }
+    
+    /**
+     * 定时清理30天前已结束的任务
+     */
+    @Scheduled(cron = "0 40 2 * * ?") // 每天凌晨02:40执行
+    @Transactional
+    public void cleanupFinishedJobs() {
+        int removed = jobRepository.deleteFinishedBefore(LocalDateTime.now().minusDays(30));
+        if (removed > 0) {
+            log.info("🗑️ 清理已结束的日报生成任务: {} 个", removed);
+        }
+    }
+    
+    private void dispatch(Long jobId) {
+        localJobs.add(jobId);
+        try {
+            reportJobExecutor.execute(() -> {
+                try {
+                    run(jobId);
+                } finally {
+                    localJobs.remove(jobId);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            localJobs.remove(jobId);
+            log.warn("⚠️ 日报生成任务队列已满，拒绝任务: {}", jobId);
+            updateJob(jobId, job -> fail(job, "任务队列已满，请稍后重试"));
+        }
+    }
+    
+    private void run(Long jobId) {
+        ReportGenerationJob job = updateJob(jobId, j -> {
+            j.setStatus(JobStatus.RUNNING);
+            j.setStage("开始生成");
+            j.setProgress(5);
+            j.setAttempts((j.getAttempts() != null ? j.getAttempts() : 0) + 1);
+            j.setStartedAt(LocalDateTime.now());
+        });
+        if (job == null) {
+            return;
+        }
+    
+        try {
+            DailyReport report = dailyReportService.generateDailyReport(job.getReportDate(),
+                (stage, progress) -> updateJob(jobId, j -> {
+                    j.setStage(stage);
+                    j.setProgress(progress);
+                }));
+            updateJob(jobId, j -> {
+                j.setStatus(JobStatus.SUCCEEDED);
+                j.setStage("已完成");
+                j.setProgress(100);
+                j.setReportId(report.getId());
+                j.setFinishedAt(LocalDateTime.now());
+            });
+            log.info("✅ 日报生成任务完成: {} (任务ID: {})", job.getReportDate(), jobId);
+        } catch (Exception e) {
+            log.error("❌ 日报生成任务失败: {} (任务ID: {})", job.getReportDate(), jobId, e);
+            updateJob(jobId, j -> fail(j, e.getMessage()));
+        }
+    }
+    
+    private void fail(ReportGenerationJob job, String message) {
+        job.setStatus(JobStatus.FAILED);
+        job.setStage("失败");
+        job.setErrorMessage(message != null && message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+        job.setFinishedAt(LocalDateTime.now());
+    }
+    
+    /**
+     * 修改并保存任务，然后通知订阅者
+     */
+    private ReportGenerationJob updateJob(Long jobId, Consumer<ReportGenerationJob> change) {
+        Optional<ReportGenerationJob> found = jobRepository.findById(jobId);
+        if (!found.isPresent()) {
+            log.warn("日报生成任务不存在: {}", jobId);
+            return null;
+        }
+        ReportGenerationJob job = found.get();
+        change.accept(job);
+        job = jobRepository.save(job);
+        publish(job);
+        return job;
+    }
+    
+    private void publish(ReportGenerationJob job) {
+        List<SseEmitter> emitters = subscribers.get(job.getId());
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : new ArrayList<>(emitters)) {
+            send(emitter, job);
+            if (job.isFinished()) {
+                emitter.complete();
+            }
+        }
+        if (job.isFinished()) {
+            subscribers.remove(job.getId());
+        }
+    }
+    
+    /**
+     * 移除订阅者，任务已无订阅者时一并移除其条目
+     */
+    private void unsubscribe(Long jobId, SseEmitter emitter) {
+        subscribers.computeIfPresent(jobId, (key, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+    
+    private void send(SseEmitter emitter, ReportGenerationJob job) {
+        try {
+            emitter.send(SseEmitter.event()
+                .name(job.isFinished() ? "done" : "progress")
+                .data(toView(job)));
+        } catch (IOException | IllegalStateException e) {
+            // 客户端已断开
+            emitter.completeWithError(e);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.spideman.service.report;
+
+/**
+ * 日报生成租约已丢失（租约过期后被其他实例接管），本实例的生成结果不应再写回
+ */
+public class ReportLeaseLostException extends RuntimeException {
+    
+    public ReportLeaseLostException(String message) {
+        super(message);
+    }
+}
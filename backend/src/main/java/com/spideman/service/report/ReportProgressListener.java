@@ -0,0 +1,21 @@
+package com.spideman.service.report;
+
+/**
+ * 日报生成进度回调
+ */
+@FunctionalInterface
+public interface ReportProgressListener {
+    
+    /**
+     * 不关心进度时使用
+     */
+    ReportProgressListener NONE = (stage, progress) -> { };
+    
+    /**
+     * 进入新的生成阶段
+     *
+     * @param stage    阶段描述
+     * @param progress 进度（0-100）
+     */
+    void onStage(String stage, int progress);
+}
@@ -0,0 +1,375 @@
+package com.spideman.service.search;
+
+import com.spideman.entity.Article;
+import com.spideman.entity.ArticleContent;
+import com.spideman.repository.ArticleContentRepository;
+import com.spideman.repository.ArticleRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.cjk.CJKAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文章全文索引（Lucene）
+ * 
+ * 使用 CJKAnalyzer：英文按词切分，中文按二元组（bigram）切分；
+ * 标题、摘要、正文分别加权，查询结果按相关度排序。
+ * 索引异常或尚未构建完成时 isReady() 返回 false，由调用方退回数据库查询。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ArticleSearchIndex {
+    
+    private static final String FIELD_ID = "id";
+    private static final Map<String, Float> FIELD_BOOSTS = new LinkedHashMap<>();
+    private static final int REBUILD_PAGE_SIZE = 500;
+    
+    static {
+        FIELD_BOOSTS.put("title", 3.0f);
+        FIELD_BOOSTS.put("titleZh", 3.0f);
+        FIELD_BOOSTS.put("summary", 2.0f);
+        FIELD_BOOSTS.put("summaryZh", 2.0f);
+        FIELD_BOOSTS.put("content", 1.0f);
+        FIELD_BOOSTS.put("contentZh", 1.0f);
+    }
+    
+    private final ArticleRepository articleRepository;
+    private final ArticleContentRepository articleContentRepository;
+    
+    @Value("${search.index.dir:${java.io.tmpdir}/techdaily-search-index}")
+    private String indexDir;
+    
+    private Directory directory;
+    private Analyzer analyzer;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    private volatile boolean ready = false;
+    
+    /**
+     * 重建期间到达的增量更新（按发生顺序），重建完成后补做；不在重建时为 null
+     */
+    private List<Runnable> pendingUpdates;
+    private final Object updateLock = new Object();
+    
+    @PostConstruct
+    public void init() {
+        try {
+            directory = FSDirectory.open(Paths.get(indexDir));
+            analyzer = new CJKAnalyzer();
+            IndexWriterConfig config = new IndexWriterConfig(analyzer);
+            config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+            writer = new IndexWriter(directory, config);
+            searcherManager = new SearcherManager(writer, null);
+            log.info("🔎 文章全文索引已打开: {}", indexDir);
+        } catch (IOException e) {
+            log.error("❌ 打开文章全文索引失败，搜索将退回数据库查询: {}", indexDir, e);
+            writer = null;
+        }
+    }
+    
+    /**
+     * 启动后校验索引与数据库是否一致，不一致则全量重建
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexBuilt() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            long indexed = writer.getDocStats().numDocs;
+            long total = articleRepository.count();
+            if (indexed != total) {
+                log.info("🔎 全文索引文档数 {} 与文章数 {} 不一致，开始重建", indexed, total);
+                rebuild();
+            }
+            ready = true;
+            log.info("✅ 文章全文索引就绪，共 {} 篇", writer.getDocStats().numDocs);
+        } catch (Exception e) {
+            log.error("❌ 构建文章全文索引失败，搜索将退回数据库查询", e);
+        }
+    }
+    
+    /**
+     * 全量重建索引
+     * 
+     * 重建期间的增量更新不等待重建完成，先记录下来，重建完成后按顺序补做，
+     * 不会被 deleteAll 清掉，也不会被重建时读到的旧数据覆盖。
+     */
+    public synchronized void rebuild() throws IOException {
+        long startTime = System.currentTimeMillis();
+        synchronized (updateLock) {
+            pendingUpdates = new ArrayList<>();
+        }
+        
+        long count = 0;
+        try {
+            writer.deleteAll();
+            
+            int page = 0;
+            Page<Article> batch;
+            do {
+                batch = articleRepository.findAll(PageRequest.of(page++, REBUILD_PAGE_SIZE, Sort.by("id")));
+                loadContents(batch.getContent());
+                for (Article article : batch.getContent()) {
+                    writer.addDocument(toDocument(article));
+                }
+                count += batch.getNumberOfElements();
+            } while (batch.hasNext());
+        } finally {
+            int replayed;
+            synchronized (updateLock) {
+                replayed = pendingUpdates.size();
+                for (Runnable update : pendingUpdates) {
+                    update.run();
+                }
+                pendingUpdates = null;
+            }
+            if (replayed > 0) {
+                log.info("🔎 补做重建期间的增量更新: {} 次", replayed);
+            }
+        }
+        
+        writer.commit();
+        searcherManager.maybeRefresh();
+        log.info("🔎 全文索引重建完成: {} 篇，耗时 {} ms", count, System.currentTimeMillis() - startTime);
+    }
+    
+    /**
+     * 新增或更新单篇文章的索引
+     */
+    public void index(Article article) {
+        index(Collections.singletonList(article));
+    }
+    
+    /**
+     * 批量新增或更新文章索引（处于事务中时推迟到提交之后，回滚不会留下孤立文档）
+     */
+    public void index(Collection<Article> articles) {
+        if (writer == null || articles.isEmpty()) {
+            return;
+        }
+        List<Article> pending = new ArrayList<>(articles);
+        runAfterCommit(() -> doIndex(pending));
+    }
+    
+    /**
+     * 删除文章索引（处于事务中时推迟到提交之后）
+     */
+    public void delete(Long articleId) {
+        if (writer == null) {
+            return;
+        }
+        runAfterCommit(() -> doDelete(articleId));
+    }
+    
+    /**
+     * 重建进行中时记录下来，重建完成后补做
+     */
+    private void doIndex(List<Article> articles) {
+        applyOrDefer(() -> applyIndex(articles));
+    }
+    
+    private void doDelete(Long articleId) {
+        applyOrDefer(() -> applyDelete(articleId));
+    }
+    
+    private void applyOrDefer(Runnable update) {
+        synchronized (updateLock) {
+            if (pendingUpdates != null) {
+                pendingUpdates.add(update);
+                return;
+            }
+            update.run();
+        }
+    }
+    
+    private void applyIndex(List<Article> articles) {
+        try {
+            loadContents(articles);
+            for (Article article : articles) {
+                if (article.getId() != null) {
+                    writer.updateDocument(new Term(FIELD_ID, article.getId().toString()), toDocument(article));
+                }
+            }
+            searcherManager.maybeRefresh();
+        } catch (IOException | DataAccessException e) {
+            log.warn("更新文章全文索引失败: {}", e.getMessage());
+        }
+    }
+    
+    private void applyDelete(Long articleId) {
+        try {
+            writer.deleteDocuments(new Term(FIELD_ID, articleId.toString()));
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            log.warn("删除文章全文索引失败: {} - {}", articleId, e.getMessage());
+        }
+    }
+    
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+    
+    /**
+     * 按相关度分页搜索，返回命中的文章ID（已排序）和总命中数
+     */
+    public SearchHits search(String keyword, int page, int size) throws IOException, ParseException {
+        MultiFieldQueryParser parser = new MultiFieldQueryParser(
+            FIELD_BOOSTS.keySet().toArray(new String[0]), analyzer, FIELD_BOOSTS);
+        parser.setDefaultOperator(QueryParser.Operator.AND);
+        // 中文二元组按短语匹配，效果接近原先的子串匹配
+        parser.setAutoGeneratePhraseQueries(true);
+        Query query = parser.parse(QueryParser.escape(keyword.trim()));
+        
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            int start = page * size;
+            TopScoreDocCollector collector = TopScoreDocCollector.create(start + size, Integer.MAX_VALUE);
+            searcher.search(query, collector);
+            TopDocs topDocs = collector.topDocs(start, size);
+            
+            List<Long> ids = new ArrayList<>(topDocs.scoreDocs.length);
+            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                ids.add(Long.valueOf(searcher.doc(scoreDoc.doc).get(FIELD_ID)));
+            }
+            return new SearchHits(collector.getTotalHits(), ids);
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    /**
+     * 定期提交索引变更，避免每次更新都刷盘
+     */
+    @Scheduled(fixedDelayString = "${search.index.commit-interval-ms:60000}")
+    public void commit() {
+        if (writer == null || !writer.hasUncommittedChanges()) {
+            return;
+        }
+        try {
+            writer.commit();
+        } catch (IOException e) {
+            log.warn("提交文章全文索引失败: {}", e.getMessage());
+        }
+    }
+    
+    @PreDestroy
+    public void close() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            searcherManager.close();
+            writer.close();
+            directory.close();
+        } catch (IOException e) {
+            log.warn("关闭文章全文索引失败: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * 正文单独存放在 article_contents 表，为未携带正文的文章批量补齐
+     */
+    private void loadContents(Collection<Article> articles) {
+        Map<Long, Article> missing = new HashMap<>();
+        for (Article article : articles) {
+            if (article.getId() != null && article.getContent() == null && article.getContentZh() == null) {
+                missing.put(article.getId(), article);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        for (ArticleContent content : articleContentRepository.findAllById(missing.keySet())) {
+            Article article = missing.get(content.getArticleId());
+            article.setContent(content.getContent());
+            article.setContentZh(content.getContentZh());
+        }
+    }
+    
+    private Document toDocument(Article article) {
+        Document doc = new Document();
+        doc.add(new StringField(FIELD_ID, article.getId().toString(), Field.Store.YES));
+        addText(doc, "title", article.getTitle());
+        addText(doc, "titleZh", article.getTitleZh());
+        addText(doc, "summary", article.getSummary());
+        addText(doc, "summaryZh", article.getSummaryZh());
+        addText(doc, "content", article.getContent());
+        addText(doc, "contentZh", article.getContentZh());
+        return doc;
+    }
+    
+    private void addText(Document doc, String field, String value) {
+        if (value != null && !value.isEmpty()) {
+            doc.add(new TextField(field, value, Field.Store.NO));
+        }
+    }
+    
+    /**
+     * 搜索命中结果
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class SearchHits {
+        private final long totalHits;
+        private final List<Long> articleIds;
+    }
+}
@@ -0,0 +1,142 @@
+package com.spideman.service.visit;
+
+import com.spideman.entity.VisitRecord;
+import com.spideman.util.HyperLogLog;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于 HyperLogLog 的独立访客统计
+ * 
+ * 近期日期的草图常驻内存，每次访问 O(1) 更新；草图随当日统计一起序列化保存在
+ * visit_statistics.uv_sketches 中，多日 UV 通过合并草图得到，无需扫描 visit_records。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UniqueVisitorTracker {
+    
+    private static final String LOAD_SQL = "SELECT uv_sketches FROM visit_statistics WHERE visit_date = ?";
+    private static final String LOAD_RANGE_SQL = "SELECT visit_date, uv_sketches FROM visit_statistics " +
+        "WHERE visit_date BETWEEN ? AND ? AND uv_sketches IS NOT NULL";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    private final Map<LocalDate, VisitorSketches> sketchesByDate = new ConcurrentHashMap<>();
+    
+    /**
+     * 记录一次访问
+     */
+    public void add(LocalDate date, String visitorId, VisitRecord.PageType pageType) {
+        sketchesOf(date).add(visitorId, pageType);
+    }
+    
+    /**
+     * 某日全站独立访客数
+     */
+    public long estimate(LocalDate date) {
+        return sketchesOf(date).estimate(VisitorSketches.ALL);
+    }
+    
+    /**
+     * 某日某类页面的独立访客数
+     */
+    public long estimate(LocalDate date, VisitRecord.PageType pageType) {
+        return sketchesOf(date).estimate(pageType.name());
+    }
+    
+    /**
+     * 日期区间（含首尾）内的全站独立访客数，由每日草图合并得到
+     */
+    public long estimateBetween(LocalDate startDate, LocalDate endDate) {
+        HyperLogLog merged = new HyperLogLog();
+        jdbcTemplate.query(LOAD_RANGE_SQL, rs -> {
+            LocalDate date = rs.getDate("visit_date").toLocalDate();
+            // 内存中的草图比库中的新，优先使用
+            if (sketchesByDate.containsKey(date)) {
+                return;
+            }
+            try {
+                HyperLogLog sketch = VisitorSketches.deserialize(rs.getBytes("uv_sketches")).get(VisitorSketches.ALL);
+                if (sketch != null) {
+                    merged.merge(sketch);
+                }
+            } catch (IOException e) {
+                log.warn("解析 {} 的访客草图失败: {}", date, e.getMessage());
+            }
+        }, Date.valueOf(startDate), Date.valueOf(endDate));
+        for (Map.Entry<LocalDate, VisitorSketches> entry : sketchesByDate.entrySet()) {
+            if (!entry.getKey().isBefore(startDate) && !entry.getKey().isAfter(endDate)) {
+                HyperLogLog sketch = entry.getValue().get(VisitorSketches.ALL);
+                if (sketch != null) {
+                    merged.merge(sketch);
+                }
+            }
+        }
+        return merged.cardinality();
+    }
+    
+    /**
+     * 序列化某日的全部草图，用于保存到 visit_statistics
+     */
+    public byte[] serialize(LocalDate date) {
+        return sketchesOf(date).serialize();
+    }
+    
+    /**
+     * 将库中已保存的草图（可能含其他实例的访客）合并进内存草图，返回合并后的序列化结果
+     */
+    public byte[] mergeStored(LocalDate date, byte[] stored) {
+        VisitorSketches sketches = sketchesOf(date);
+        if (stored != null) {
+            try {
+                sketches.merge(VisitorSketches.deserialize(stored));
+            } catch (IOException e) {
+                log.warn("解析 {} 的访客草图失败，将以内存草图覆盖: {}", date, e.getMessage());
+            }
+        }
+        return sketches.serialize();
+    }
+    
+    /**
+     * 释放指定日期之前的内存草图（已保存在库中）
+     */
+    public void evictBefore(LocalDate date) {
+        sketchesByDate.keySet().removeIf(key -> key.isBefore(date));
+    }
+    
+    /**
+     * 获取某日草图，首次使用时从库中恢复（应用重启后继续累计）。
+     * 查库放在 computeIfAbsent 之外，避免阻塞期间占住 ConcurrentHashMap 的桶锁
+     */
+    private VisitorSketches sketchesOf(LocalDate date) {
+        VisitorSketches sketches = sketchesByDate.get(date);
+        if (sketches != null) {
+            return sketches;
+        }
+        VisitorSketches loaded = load(date);
+        VisitorSketches existing = sketchesByDate.putIfAbsent(date, loaded);
+        return existing != null ? existing : loaded;
+    }
+    
+    private VisitorSketches load(LocalDate date) {
+        List<byte[]> stored = jdbcTemplate.queryForList(LOAD_SQL, byte[].class, Date.valueOf(date));
+        if (!stored.isEmpty() && stored.get(0) != null) {
+            try {
+                return VisitorSketches.deserialize(stored.get(0));
+            } catch (IOException e) {
+                log.warn("恢复 {} 的访客草图失败，将重新累计: {}", date, e.getMessage());
+            }
+        }
+        return new VisitorSketches();
+    }
+}
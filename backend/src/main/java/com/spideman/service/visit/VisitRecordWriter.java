@@ -0,0 +1,203 @@
+package com.spideman.service.visit;
+
+import com.spideman.entity.VisitRecord;
+import com.spideman.repository.VisitRecordPartitionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 访问记录后台写入器
+ * 
+ * 请求线程只把访问记录放入有界的无锁队列（队列满时直接丢弃，不阻塞请求）；
+ * 后台定时取出一批，JDBC 批量插入按月分表的访问记录，并在内存中汇总当日 PV、
+ * 各页面类型访问量，以增量 UPDATE 写入 visit_statistics；独立访客由 HyperLogLog 草图估计，
+ * 草图随统计行一起保存，写入时在行锁内与库中草图合并。同一批次还会累加到小时汇总表（见 VisitRollupStore）。
+ * 原始记录、当日统计和小时汇总在同一事务中写入，任一步失败整批回滚，汇总不会与原始记录不一致。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VisitRecordWriter {
+    
+    private static final String UPDATE_STATISTICS_SQL = "UPDATE visit_statistics SET " +
+        "page_views = page_views + ?, unique_visitors = ?, home_visits = home_visits + ?, " +
+        "report_visits = report_visits + ?, article_visits = article_visits + ?, uv_sketches = ?, updated_at = ? " +
+        "WHERE visit_date = ?";
+    
+    private static final String LOCK_STATISTICS_SQL = "SELECT uv_sketches FROM visit_statistics WHERE visit_date = ? FOR UPDATE";
+    
+    private static final String INSERT_STATISTICS_SQL = "INSERT INTO visit_statistics " +
+        "(visit_date, page_views, unique_visitors, home_visits, report_visits, article_visits, uv_sketches, created_at, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final VisitRecordPartitionRepository visitRecordPartitionRepository;
+    private final UniqueVisitorTracker uniqueVisitorTracker;
+    private final VisitRollupStore visitRollupStore;
+    
+    @Value("${visit.queue.capacity:10000}")
+    private int queueCapacity;
+    
+    @Value("${visit.writer.batch-size:1000}")
+    private int batchSize;
+    
+    private final ConcurrentLinkedQueue<VisitRecord> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueSize = new AtomicInteger();
+    
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    
+    /**
+     * 提交一条访问记录（非阻塞，队列已满返回 false）
+     */
+    public boolean offer(VisitRecord record) {
+        if (queueSize.incrementAndGet() > queueCapacity) {
+            queueSize.decrementAndGet();
+            dropped.increment();
+            return false;
+        }
+        queue.offer(record);
+        accepted.increment();
+        return true;
+    }
+    
+    /**
+     * 定时批量写入
+     */
+    @Scheduled(fixedDelayString = "${visit.writer.flush-interval-ms:2000}")
+    public synchronized void drain() {
+        List<VisitRecord> batch;
+        while (!(batch = pollBatch()).isEmpty()) {
+            List<VisitRecord> records = batch;
+            try {
+                // 月表的建表语句会隐式提交，放在事务之外
+                visitRecordPartitionRepository.ensurePartitionsFor(records);
+                Map<LocalDate, long[]> deltas = aggregateDailyDeltas(records);
+                transactionTemplate.executeWithoutResult(status -> {
+                    visitRecordPartitionRepository.insertBatch(records);
+                    applyDailyDeltas(deltas);
+                    visitRollupStore.apply(records);
+                });
+                written.add(records.size());
+            } catch (DataAccessException | TransactionException e) {
+                // 整批已回滚（内存中的访客草图可能多记了这批访客，只影响 UV 估计）
+                log.error("❌ 批量写入访问记录失败，丢弃 {} 条: {}", records.size(), e.getMessage());
+            }
+            // 只在内存中保留今天和昨天的草图
+            uniqueVisitorTracker.evictBefore(LocalDate.now().minusDays(1));
+        }
+    }
+    
+    /**
+     * 应用关闭前写入剩余记录
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        drain();
+    }
+    
+    /**
+     * 获取写入器状态
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("queued", queueSize.get());
+        stats.put("capacity", queueCapacity);
+        stats.put("accepted", accepted.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("written", written.sum());
+        return stats;
+    }
+    
+    private List<VisitRecord> pollBatch() {
+        List<VisitRecord> batch = new ArrayList<>();
+        VisitRecord record;
+        while (batch.size() < batchSize && (record = queue.poll()) != null) {
+            batch.add(record);
+        }
+        queueSize.addAndGet(-batch.size());
+        return batch;
+    }
+    
+    /**
+     * 在内存中按日期汇总本批次增量：PV、首页/日报/文章访问量，同时更新访客草图
+     */
+    private Map<LocalDate, long[]> aggregateDailyDeltas(List<VisitRecord> batch) {
+        Map<LocalDate, long[]> deltas = new HashMap<>();
+        for (VisitRecord record : batch) {
+            LocalDate date = record.getVisitTime().toLocalDate();
+            long[] delta = deltas.computeIfAbsent(date, key -> new long[4]);
+            delta[0]++;
+            uniqueVisitorTracker.add(date, record.getIpAddress(), record.getPageType());
+            switch (record.getPageType()) {
+                case HOME:
+                    delta[1]++;
+                    break;
+                case REPORT_DETAIL:
+                    delta[2]++;
+                    break;
+                case ARTICLE_DETAIL:
+                    delta[3]++;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return deltas;
+    }
+    
+    /**
+     * 每个日期只执行一次增量 UPDATE，当日统计行不存在时插入（在 drain 的事务内执行）
+     */
+    private void applyDailyDeltas(Map<LocalDate, long[]> deltas) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (Map.Entry<LocalDate, long[]> entry : deltas.entrySet()) {
+            applyDailyDelta(entry.getKey(), entry.getValue(), now);
+        }
+    }
+    
+    /**
+     * 计数列按增量累加；访客草图在行锁内读出库中草图（可能含其他实例的访客）、
+     * 与内存草图合并后写回，多实例部署时 UV 不会互相覆盖
+     */
+    private void applyDailyDelta(LocalDate day, long[] d, Timestamp now) {
+        Date date = Date.valueOf(day);
+        List<byte[]> stored = jdbcTemplate.queryForList(LOCK_STATISTICS_SQL, byte[].class, date);
+        if (stored.isEmpty()) {
+            try {
+                jdbcTemplate.update(INSERT_STATISTICS_SQL, date, d[0], uniqueVisitorTracker.estimate(day), d[1], d[2], d[3],
+                    uniqueVisitorTracker.serialize(day), now, now);
+                return;
+            } catch (DuplicateKeyException e) {
+                // 其他实例抢先插入，加锁读取后合并
+                stored = jdbcTemplate.queryForList(LOCK_STATISTICS_SQL, byte[].class, date);
+            }
+        }
+        
+        byte[] sketches = uniqueVisitorTracker.mergeStored(day, stored.get(0));
+        jdbcTemplate.update(UPDATE_STATISTICS_SQL, d[0], uniqueVisitorTracker.estimate(day), d[1], d[2], d[3], sketches, now, date);
+    }
+}
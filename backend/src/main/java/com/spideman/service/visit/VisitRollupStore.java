@@ -0,0 +1,213 @@
+package com.spideman.service.visit;
+
+import com.spideman.entity.VisitHourlyRollup;
+import com.spideman.entity.VisitRecord;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 访问量小时汇总的增量写入
+ * 
+ * 每批访问记录先在内存中按（小时, 页面类型, 路径）汇总，再批量执行增量 UPDATE，
+ * 汇总行不存在时插入。批量插入遇到并发插入的同一行时，先回滚到插入前的保存点再逐行处理，
+ * 避免驱动已写入的行在逐行重试时被重复累加。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VisitRollupStore {
+    
+    private static final String UPDATE_SQL = "UPDATE visit_hourly_rollups SET page_views = page_views + ?, updated_at = ? " +
+        "WHERE bucket_start = ? AND page_type = ? AND page_path = ?";
+    private static final String INSERT_SQL = "INSERT INTO visit_hourly_rollups " +
+        "(bucket_start, bucket_date, page_type, page_path, page_views, updated_at) VALUES (?, ?, ?, ?, ?, ?)";
+    
+    private static final int MAX_PATH_LENGTH = 500;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    /**
+     * 将一批访问记录累加到小时汇总
+     * 
+     * 在调用方的事务中执行时使用同一连接；未处于事务中时临时开启事务，整批一起提交。
+     */
+    public void apply(List<VisitRecord> records) {
+        Map<BucketKey, Long> deltas = new LinkedHashMap<>();
+        for (VisitRecord record : records) {
+            LocalDateTime bucketStart = record.getVisitTime().truncatedTo(ChronoUnit.HOURS);
+            deltas.merge(new BucketKey(bucketStart, record.getPageType(), VisitHourlyRollup.ALL_PATHS), 1L, Long::sum);
+            if (record.getPagePath() != null) {
+                deltas.merge(new BucketKey(bucketStart, record.getPageType(), truncate(record.getPagePath())), 1L, Long::sum);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            // 保存点只能在事务内使用，未处于事务中时临时开启
+            boolean autoCommit = con.getAutoCommit();
+            if (autoCommit) {
+                con.setAutoCommit(false);
+            }
+            try {
+                applyDeltas(con, deltas, now);
+                if (autoCommit) {
+                    con.commit();
+                }
+                return null;
+            } catch (SQLException | RuntimeException e) {
+                if (autoCommit) {
+                    con.rollback();
+                }
+                throw e;
+            } finally {
+                if (autoCommit) {
+                    con.setAutoCommit(true);
+                }
+            }
+        });
+    }
+    
+    private void applyDeltas(Connection con, Map<BucketKey, Long> deltas, Timestamp now) throws SQLException {
+        List<BucketKey> keys = new ArrayList<>(deltas.keySet());
+        int[] updated;
+        try (PreparedStatement ps = con.prepareStatement(UPDATE_SQL)) {
+            for (BucketKey key : keys) {
+                bindUpdate(ps, key, deltas.get(key), now);
+                ps.addBatch();
+            }
+            updated = ps.executeBatch();
+        }
+        
+        // 更新不到的汇总行需要插入
+        List<BucketKey> missing = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            if (updated[i] == 0) {
+                missing.add(keys.get(i));
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        
+        Savepoint savepoint = con.setSavepoint();
+        try (PreparedStatement ps = con.prepareStatement(INSERT_SQL)) {
+            for (BucketKey key : missing) {
+                bindInsert(ps, key, deltas.get(key), now);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            con.releaseSavepoint(savepoint);
+            return;
+        } catch (SQLException e) {
+            // 批处理中途冲突（多实例并发插入同一行）时驱动可能已写入部分行，回滚后逐行插入或更新
+            con.rollback(savepoint);
+            if (!isDuplicateKey(e)) {
+                throw e;
+            }
+            log.debug("批量插入访问汇总冲突，改为逐行写入: {}", e.getMessage());
+        }
+        for (BucketKey key : missing) {
+            applySingle(con, key, deltas.get(key), now);
+        }
+    }
+    
+    private void applySingle(Connection con, BucketKey key, long delta, Timestamp now) throws SQLException {
+        if (update(con, key, delta, now) > 0) {
+            return;
+        }
+        Savepoint savepoint = con.setSavepoint();
+        try (PreparedStatement ps = con.prepareStatement(INSERT_SQL)) {
+            bindInsert(ps, key, delta, now);
+            ps.executeUpdate();
+            con.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            con.rollback(savepoint);
+            if (!isDuplicateKey(e)) {
+                throw e;
+            }
+            update(con, key, delta, now);
+        }
+    }
+    
+    private int update(Connection con, BucketKey key, long delta, Timestamp now) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement(UPDATE_SQL)) {
+            bindUpdate(ps, key, delta, now);
+            return ps.executeUpdate();
+        }
+    }
+    
+    private void bindUpdate(PreparedStatement ps, BucketKey key, long delta, Timestamp now) throws SQLException {
+        ps.setLong(1, delta);
+        ps.setTimestamp(2, now);
+        ps.setTimestamp(3, Timestamp.valueOf(key.bucketStart));
+        ps.setString(4, key.pageType.name());
+        ps.setString(5, key.pagePath);
+    }
+    
+    private void bindInsert(PreparedStatement ps, BucketKey key, long delta, Timestamp now) throws SQLException {
+        ps.setTimestamp(1, Timestamp.valueOf(key.bucketStart));
+        ps.setDate(2, Date.valueOf(key.bucketStart.toLocalDate()));
+        ps.setString(3, key.pageType.name());
+        ps.setString(4, key.pagePath);
+        ps.setLong(5, delta);
+        ps.setTimestamp(6, now);
+    }
+    
+    private boolean isDuplicateKey(SQLException e) {
+        return jdbcTemplate.getExceptionTranslator().translate("insertRollup", INSERT_SQL, e) instanceof DuplicateKeyException;
+    }
+    
+    private String truncate(String path) {
+        return path.length() > MAX_PATH_LENGTH ? path.substring(0, MAX_PATH_LENGTH) : path;
+    }
+    
+    private static final class BucketKey {
+        private final LocalDateTime bucketStart;
+        private final VisitRecord.PageType pageType;
+        private final String pagePath;
+        
+        BucketKey(LocalDateTime bucketStart, VisitRecord.PageType pageType, String pagePath) {
+            this.bucketStart = bucketStart;
+            this.pageType = pageType;
+            this.pagePath = pagePath;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BucketKey)) {
+                return false;
+            }
+            BucketKey other = (BucketKey) o;
+            return bucketStart.equals(other.bucketStart) && pageType == other.pageType && pagePath.equals(other.pagePath);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(bucketStart, pageType, pagePath);
+        }
+    }
+}
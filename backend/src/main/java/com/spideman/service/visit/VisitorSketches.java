@@ -0,0 +1,92 @@
+package com.spideman.service.visit;
+
+import com.spideman.entity.VisitRecord;
+import com.spideman.util.HyperLogLog;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 某一天的独立访客草图：全站一个，每种页面类型各一个
+ * 
+ * 序列化格式（Deflate 压缩）：版本号、草图数量，随后依次为草图名称和寄存器字节。
+ */
+class VisitorSketches {
+    
+    static final String ALL = "ALL";
+    private static final int FORMAT_VERSION = 1;
+    
+    private final Map<String, HyperLogLog> sketches = new ConcurrentHashMap<>();
+    
+    void add(String visitorId, VisitRecord.PageType pageType) {
+        sketch(ALL).add(visitorId);
+        sketch(pageType.name()).add(visitorId);
+    }
+    
+    /**
+     * 获取指定草图，不存在时返回 null
+     */
+    HyperLogLog get(String name) {
+        return sketches.get(name);
+    }
+    
+    long estimate(String name) {
+        HyperLogLog sketch = sketches.get(name);
+        return sketch != null ? sketch.cardinality() : 0;
+    }
+    
+    /**
+     * 合并另一组草图（如其他实例保存的同日草图），合并可重复执行
+     */
+    void merge(VisitorSketches other) {
+        for (Map.Entry<String, HyperLogLog> entry : other.sketches.entrySet()) {
+            sketch(entry.getKey()).merge(entry.getValue());
+        }
+    }
+    
+    byte[] serialize() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+                out.writeByte(FORMAT_VERSION);
+                out.writeInt(sketches.size());
+                for (Map.Entry<String, HyperLogLog> entry : sketches.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.write(entry.getValue().toByteArray());
+                }
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("序列化访客草图失败", e);
+        }
+    }
+    
+    static VisitorSketches deserialize(byte[] data) throws IOException {
+        VisitorSketches result = new VisitorSketches();
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data)))) {
+            int version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("不支持的访客草图版本: " + version);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                byte[] registers = new byte[HyperLogLog.sizeInBytes()];
+                in.readFully(registers);
+                result.sketches.put(name, HyperLogLog.fromByteArray(registers));
+            }
+        }
+        return result;
+    }
+    
+    private HyperLogLog sketch(String name) {
+        return sketches.computeIfAbsent(name, key -> new HyperLogLog());
+    }
+}
@@ -0,0 +1,40 @@
+package com.spideman.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 非加密哈希工具（用于布隆过滤器、基数估计等概率数据结构）
+ */
+public final class HashUtils {
+    
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    
+    private HashUtils() {
+    }
+    
+    /**
+     * 计算字符串的64位哈希值（FNV-1a + MurmurHash3 fmix64 混淆）
+     */
+    public static long hash64(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : bytes) {
+            hash ^= (b & 0xff);
+            hash *= FNV_PRIME;
+        }
+        return fmix64(hash);
+    }
+    
+    /**
+     * MurmurHash3 的最终混淆步骤，使各位分布更均匀
+     */
+    public static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,97 @@
+package com.spideman.util;
+
+/**
+ * HyperLogLog 基数估计（精度参数 p=12，4096 个寄存器，标准误差约 1.6%）
+ * 
+ * 每个寄存器 1 字节，序列化后为定长字节数组；多个草图按寄存器取最大值即可合并，
+ * 合并结果等价于对并集直接计数。
+ */
+public final class HyperLogLog {
+    
+    private static final int P = 12;
+    private static final int M = 1 << P;
+    private static final int MAX_RANK = 64 - P + 1;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / M);
+    
+    private final byte[] registers;
+    
+    public HyperLogLog() {
+        this.registers = new byte[M];
+    }
+    
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+    
+    /**
+     * 从序列化的寄存器恢复
+     */
+    public static HyperLogLog fromByteArray(byte[] bytes) {
+        if (bytes == null || bytes.length != M) {
+            throw new IllegalArgumentException("HyperLogLog 寄存器长度不正确: " + (bytes == null ? 0 : bytes.length));
+        }
+        return new HyperLogLog(bytes.clone());
+    }
+    
+    /**
+     * 寄存器字节数
+     */
+    public static int sizeInBytes() {
+        return M;
+    }
+    
+    /**
+     * 添加一个元素，返回寄存器是否发生变化
+     */
+    public synchronized boolean add(String value) {
+        long hash = HashUtils.hash64(value);
+        int index = (int) (hash >>> (64 - P));
+        long remaining = hash << P;
+        int rank = remaining == 0 ? MAX_RANK : Math.min(Long.numberOfLeadingZeros(remaining) + 1, MAX_RANK);
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * 估计基数（小基数时使用线性计数修正）
+     */
+    public synchronized long cardinality() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * M * M / sum;
+        if (estimate <= 2.5 * M && zeros > 0) {
+            estimate = M * Math.log((double) M / zeros);
+        }
+        return Math.round(estimate);
+    }
+    
+    /**
+     * 合并另一个草图（按寄存器取最大值）
+     */
+    public void merge(HyperLogLog other) {
+        byte[] otherRegisters = other.toByteArray();
+        synchronized (this) {
+            for (int i = 0; i < M; i++) {
+                if (otherRegisters[i] > registers[i]) {
+                    registers[i] = otherRegisters[i];
+                }
+            }
+        }
+    }
+    
+    /**
+     * 序列化寄存器
+     */
+    public synchronized byte[] toByteArray() {
+        return registers.clone();
+    }
+}
@@ -0,0 +1,9 @@
+-- AI 响应缓存：以（模型, 提示词模板, 输入）的 SHA-256 为键
+CREATE TABLE IF NOT EXISTS ai_response_cache (
+    cache_key CHAR(64) PRIMARY KEY COMMENT '缓存键（SHA-256）',
+    model VARCHAR(50) NOT NULL COMMENT '模型名称',
+    template VARCHAR(50) NOT NULL COMMENT '提示词模板',
+    response MEDIUMTEXT NOT NULL COMMENT '模型返回内容',
+    created_at DATETIME NOT NULL COMMENT '创建时间',
+    KEY idx_ai_cache_created_at (created_at)
+) COMMENT 'AI响应缓存';
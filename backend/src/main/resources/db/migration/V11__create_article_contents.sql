@@ -0,0 +1,15 @@
+-- 文章正文拆分到独立表：列表查询不再读取大字段，正文按需加载
+CREATE TABLE IF NOT EXISTS article_contents (
+    article_id BIGINT PRIMARY KEY COMMENT '文章ID',
+    content MEDIUMTEXT COMMENT '正文',
+    content_zh MEDIUMTEXT COMMENT '中文正文',
+    updated_at DATETIME COMMENT '更新时间'
+) COMMENT '文章正文';
+
+-- 迁移已有正文
+INSERT INTO article_contents (article_id, content, content_zh, updated_at)
+SELECT id, content, content_zh, updated_at FROM articles
+WHERE content IS NOT NULL OR content_zh IS NOT NULL;
+
+-- 确认迁移无误后删除旧列
+-- ALTER TABLE articles DROP COLUMN content, DROP COLUMN content_zh;
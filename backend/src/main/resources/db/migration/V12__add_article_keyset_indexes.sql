@@ -0,0 +1,4 @@
+-- 文章游标分页：按（发布时间, ID）倒序定位，按状态、来源筛选时同样走索引
+CREATE INDEX idx_article_publish_time_id ON articles (publish_time, id);
+CREATE INDEX idx_article_status_publish_time_id ON articles (status, publish_time, id);
+CREATE INDEX idx_article_source_publish_time_id ON articles (source, publish_time, id);
@@ -0,0 +1,3 @@
+-- 批量翻译失败次数：达到上限的文章不再参与翻译，重启后仍然生效
+ALTER TABLE articles 
+ADD COLUMN translation_attempts INT NOT NULL DEFAULT 0 COMMENT '批量翻译失败次数';
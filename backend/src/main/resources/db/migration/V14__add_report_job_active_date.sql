@@ -0,0 +1,16 @@
+-- 日报生成任务去重：未结束的任务在 active_date 中记录日报日期，结束后置空；
+-- 唯一索引保证同一日期最多一个未结束的任务（MySQL 唯一索引允许多个 NULL）
+ALTER TABLE report_generation_jobs 
+ADD COLUMN active_date DATE NULL COMMENT '未结束任务的日报日期（结束后为空）';
+
+-- 已有的重复任务只保留每个日期最新的一个
+UPDATE report_generation_jobs j
+JOIN (SELECT report_date, MAX(id) AS id FROM report_generation_jobs
+      WHERE status IN ('QUEUED', 'RUNNING') GROUP BY report_date) latest ON j.id = latest.id
+SET j.active_date = j.report_date;
+
+UPDATE report_generation_jobs 
+SET status = 'FAILED', stage = '失败', error_message = '同一日期已有未结束的任务', finished_at = NOW()
+WHERE status IN ('QUEUED', 'RUNNING') AND active_date IS NULL;
+
+CREATE UNIQUE INDEX uk_job_active_date ON report_generation_jobs (active_date);
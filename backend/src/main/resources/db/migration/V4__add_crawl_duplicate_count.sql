@@ -0,0 +1,3 @@
+-- 爬取记录增加重复文章计数
+ALTER TABLE crawl_records 
+ADD COLUMN duplicate_count INT DEFAULT 0 COMMENT '已存在而跳过的文章数';
@@ -0,0 +1,3 @@
+-- 访问统计增加独立访客 HyperLogLog 草图（全站及各页面类型，Deflate 压缩）
+ALTER TABLE visit_statistics 
+ADD COLUMN uv_sketches MEDIUMBLOB COMMENT '独立访客HyperLogLog草图';
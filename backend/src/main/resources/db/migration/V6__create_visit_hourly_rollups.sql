@@ -0,0 +1,12 @@
+-- 访问量小时汇总：每小时每种页面类型一行（page_path = '*'），另按具体路径各一行
+CREATE TABLE IF NOT EXISTS visit_hourly_rollups (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    bucket_start DATETIME NOT NULL COMMENT '小时桶起始时间',
+    bucket_date DATE NOT NULL COMMENT '小时桶所属日期',
+    page_type VARCHAR(30) NOT NULL COMMENT '页面类型',
+    page_path VARCHAR(500) NOT NULL COMMENT '页面路径，*表示页面类型汇总',
+    page_views BIGINT NOT NULL DEFAULT 0 COMMENT '页面访问量',
+    updated_at DATETIME NOT NULL COMMENT '更新时间',
+    UNIQUE KEY uk_rollup_bucket (bucket_start, page_type, page_path),
+    KEY idx_rollup_bucket_date (bucket_date, page_path)
+) COMMENT '访问量小时汇总';
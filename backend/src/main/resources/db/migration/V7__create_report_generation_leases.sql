@@ -0,0 +1,7 @@
+-- 日报生成租约：多实例下同一日期只由一个实例生成日报
+CREATE TABLE IF NOT EXISTS report_generation_leases (
+    lease_key VARCHAR(64) PRIMARY KEY COMMENT '租约键',
+    owner VARCHAR(100) NOT NULL COMMENT '持有者实例标识',
+    acquired_at DATETIME NOT NULL COMMENT '获取时间',
+    expires_at DATETIME NOT NULL COMMENT '过期时间'
+) COMMENT '日报生成租约';
@@ -0,0 +1,3 @@
+-- 日报增加乐观锁版本号（生成结果写回时检测并发修改）
+ALTER TABLE daily_reports 
+ADD COLUMN version BIGINT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号';
@@ -0,0 +1,18 @@
+-- 日报生成任务：异步生成的进度与结果，重启后用于恢复未完成的任务
+CREATE TABLE IF NOT EXISTS report_generation_jobs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    report_date DATE NOT NULL COMMENT '日报日期',
+    status VARCHAR(20) NOT NULL COMMENT '任务状态',
+    stage VARCHAR(100) COMMENT '当前阶段',
+    progress INT DEFAULT 0 COMMENT '进度（0-100）',
+    source VARCHAR(20) COMMENT '提交来源',
+    attempts INT DEFAULT 0 COMMENT '已执行次数',
+    report_id BIGINT COMMENT '生成的日报ID',
+    error_message VARCHAR(1000) COMMENT '失败原因',
+    created_at DATETIME COMMENT '创建时间',
+    started_at DATETIME COMMENT '开始时间',
+    finished_at DATETIME COMMENT '结束时间',
+    updated_at DATETIME COMMENT '更新时间',
+    KEY idx_job_report_date (report_date),
+    KEY idx_job_status (status)
+) COMMENT '日报生成任务';
@@ -0,0 +1,157 @@
+package com.spideman.config;
+
+import com.spideman.entity.VisitRecord;
+import com.spideman.service.DailyReportService;
+import com.spideman.service.VisitStatisticsService;
+import com.spideman.service.cache.RenderedPageCache;
+import com.spideman.service.report.ReportChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 页面渲染缓存：命中时跳过控制器并补记访问，ETag 匹配返回 304，日报变更后失效
+ */
+class PageCacheFilterTest {
+    
+    private RenderedPageCache pageCache;
+    private VisitStatisticsService visitStatisticsService;
+    private DailyReportService dailyReportService;
+    private PageCacheFilter filter;
+    
+    private final AtomicInteger renders = new AtomicInteger();
+    
+    @BeforeEach
+    void setUp() {
+        pageCache = new RenderedPageCache();
+        ReflectionTestUtils.setField(pageCache, "enabled", true);
+        ReflectionTestUtils.setField(pageCache, "ttlSeconds", 300L);
+        ReflectionTestUtils.setField(pageCache, "maxEntries", 10);
+        visitStatisticsService = mock(VisitStatisticsService.class);
+        dailyReportService = mock(DailyReportService.class);
+        filter = new PageCacheFilter(pageCache, visitStatisticsService, dailyReportService);
+    }
+    
+    @Test
+    void secondRequestIsServedFromCacheAndStillCountsTheVisit() throws Exception {
+        MockHttpServletResponse first = get("/report/7", null, render("report 7"));
+        assertThat(first.getHeader("X-Page-Cache")).isEqualTo("MISS");
+        assertThat(first.getHeader("ETag")).isNotNull();
+        assertThat(first.getContentAsString()).isEqualTo("report 7");
+    
+        MockHttpServletResponse second = get("/report/7", null, render("report 7"));
+        assertThat(second.getHeader("X-Page-Cache")).isEqualTo("HIT");
+        assertThat(second.getContentAsString()).isEqualTo("report 7");
+        assertThat(second.getHeader("ETag")).isEqualTo(first.getHeader("ETag"));
+    
+        // 控制器只渲染一次，命中时由过滤器补记访问和阅读数
+        assertThat(renders.get()).isEqualTo(1);
+        verify(visitStatisticsService).recordVisit(any(), eq(VisitRecord.PageType.REPORT_DETAIL));
+        verify(dailyReportService).incrementReadCount(7L);
+    }
+    
+    @Test
+    void matchingEtagReturnsNotModified() throws Exception {
+        String etag = get("/", null, render("home")).getHeader("ETag");
+    
+        MockHttpServletResponse exact = get("/", etag, render("home"));
+        assertThat(exact.getStatus()).isEqualTo(HttpServletResponse.SC_NOT_MODIFIED);
+        assertThat(exact.getContentAsByteArray()).isEmpty();
+    
+        assertThat(get("/", "W/" + etag, render("home")).getStatus()).isEqualTo(HttpServletResponse.SC_NOT_MODIFIED);
+        assertThat(get("/", "\"other\", " + etag, render("home")).getStatus()).isEqualTo(HttpServletResponse.SC_NOT_MODIFIED);
+        assertThat(get("/", "*", render("home")).getStatus()).isEqualTo(HttpServletResponse.SC_NOT_MODIFIED);
+        assertThat(get("/", "\"other\"", render("home")).getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+    
+        assertThat(renders.get()).isEqualTo(1);
+        verify(visitStatisticsService, times(5)).recordVisit(any(), eq(VisitRecord.PageType.HOME));
+        assertThat(pageCache.getStatistics().get("notModified")).isEqualTo(4L);
+    }
+    
+    @Test
+    void reportChangeInvalidatesHomeAndThatReportOnly() throws Exception {
+        get("/", null, render("home v1"));
+        get("/report/1", null, render("report 1 v1"));
+        get("/report/2", null, render("report 2 v1"));
+    
+        pageCache.onReportChanged(new ReportChangedEvent(1L, "updated"));
+    
+        assertThat(get("/", null, render("home v2")).getContentAsString()).isEqualTo("home v2");
+        assertThat(get("/report/1", null, render("report 1 v2")).getContentAsString()).isEqualTo("report 1 v2");
+        MockHttpServletResponse untouched = get("/report/2", null, render("report 2 v2"));
+        assertThat(untouched.getHeader("X-Page-Cache")).isEqualTo("HIT");
+        assertThat(untouched.getContentAsString()).isEqualTo("report 2 v1");
+    }
+    
+    @Test
+    void pageRenderedBeforeAnInvalidationIsNotCached() throws Exception {
+        // 渲染过程中日报被修改：渲染结果可能是旧内容，不能写入缓存
+        FilterChain racingRender = (request, response) -> {
+            renders.incrementAndGet();
+            pageCache.onReportChanged(new ReportChangedEvent(3L, "updated"));
+            response.setContentType("text/html;charset=UTF-8");
+            response.getOutputStream().write("stale".getBytes(StandardCharsets.UTF_8));
+        };
+        MockHttpServletResponse first = get("/report/3", null, racingRender);
+        assertThat(first.getContentAsString()).isEqualTo("stale");
+        assertThat(first.getHeader("ETag")).isNull();
+    
+        assertThat(get("/report/3", null, render("fresh")).getContentAsString()).isEqualTo("fresh");
+        assertThat(renders.get()).isEqualTo(2);
+    }
+    
+    @Test
+    void skippedOrFailedResponsesAreNotCached() throws Exception {
+        FilterChain skipped = (request, response) -> {
+            renders.incrementAndGet();
+            request.setAttribute(RenderedPageCache.SKIP_ATTRIBUTE, Boolean.TRUE);
+            response.setContentType("text/html;charset=UTF-8");
+            response.getOutputStream().write("not found".getBytes(StandardCharsets.UTF_8));
+        };
+        get("/report/4", null, skipped);
+        FilterChain failed = (request, response) -> {
+            renders.incrementAndGet();
+            ((HttpServletResponse) response).setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            response.setContentType("text/html;charset=UTF-8");
+            response.getOutputStream().write("error".getBytes(StandardCharsets.UTF_8));
+        };
+        get("/report/4", null, failed);
+    
+        assertThat(get("/report/4", null, render("report 4")).getHeader("X-Page-Cache")).isEqualTo("MISS");
+        assertThat(renders.get()).isEqualTo(3);
+        verify(dailyReportService, never()).incrementReadCount(any());
+    }
+    
+    private MockHttpServletResponse get(String uri, String ifNoneMatch, FilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+    
+    private FilterChain render(String body) {
+        return (request, response) -> {
+            renders.incrementAndGet();
+            response.setContentType("text/html;charset=UTF-8");
+            response.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+        };
+    }
+}
@@ -0,0 +1,37 @@
+package com.spideman.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CursorPageTest {
+    
+    @Test
+    void lastPageHasNoCursor() {
+        CursorPage<Long> page = CursorPage.of(Arrays.asList(3L, 2L), 2, id -> new KeysetCursor(null, id));
+        
+        assertThat(page.getContent()).containsExactly(3L, 2L);
+        assertThat(page.getNextCursor()).isNull();
+        assertThat(page.isHasNext()).isFalse();
+    }
+    
+    @Test
+    void extraRowIsDroppedAndCursorPointsAtLastReturnedRow() {
+        CursorPage<Long> page = CursorPage.of(Arrays.asList(5L, 4L, 3L), 2, id -> new KeysetCursor(null, id));
+        
+        assertThat(page.getContent()).containsExactly(5L, 4L);
+        assertThat(page.isHasNext()).isTrue();
+        assertThat(KeysetCursor.decode(page.getNextCursor()).getId()).isEqualTo(4L);
+    }
+    
+    @Test
+    void emptyResultIsEmptyLastPage() {
+        CursorPage<Long> page = CursorPage.of(Collections.<Long>emptyList(), 10, id -> new KeysetCursor(null, id));
+        
+        assertThat(page.isEmpty()).isTrue();
+        assertThat(page.isHasNext()).isFalse();
+    }
+}
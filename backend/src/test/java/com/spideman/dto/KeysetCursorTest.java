@@ -0,0 +1,68 @@
+package com.spideman.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetCursorTest {
+    
+    @Test
+    void timeCursorRoundTrips() {
+        LocalDateTime time = LocalDateTime.of(2024, 3, 5, 8, 30, 15, 123_000_000);
+        
+        KeysetCursor decoded = KeysetCursor.decode(KeysetCursor.of(time, 42L).encode());
+        
+        assertThat(decoded.getTime()).isEqualTo(time);
+        assertThat(decoded.getId()).isEqualTo(42L);
+    }
+    
+    @Test
+    void dateCursorRoundTrips() {
+        LocalDate date = LocalDate.of(2024, 12, 31);
+        
+        KeysetCursor decoded = KeysetCursor.decode(KeysetCursor.of(date, 7L).encode());
+        
+        assertThat(decoded.getDate()).isEqualTo(date);
+        assertThat(decoded.getId()).isEqualTo(7L);
+    }
+    
+    @Test
+    void cursorWithoutSortKeyCarriesOnlyId() {
+        KeysetCursor decoded = KeysetCursor.decode(KeysetCursor.of((LocalDateTime) null, 9L).encode());
+        
+        assertThat(decoded.getKey()).isNull();
+        assertThat(decoded.getTime()).isNull();
+        assertThat(decoded.getId()).isEqualTo(9L);
+    }
+    
+    @Test
+    void encodedCursorIsUrlSafe() {
+        String token = KeysetCursor.of(LocalDateTime.of(2024, 1, 1, 0, 0), Long.MAX_VALUE).encode();
+        
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+    }
+    
+    @Test
+    void blankCursorMeansFirstPage() {
+        assertThat(KeysetCursor.decode(null)).isNull();
+        assertThat(KeysetCursor.decode("  ")).isNull();
+    }
+    
+    @Test
+    void invalidCursorIsRejected() {
+        assertThatThrownBy(() -> KeysetCursor.decode("not base64!")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(encode("no-separator"))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(encode("2024-01-01T00:00|abc"))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(encode("yesterday|1")).getTime()).isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
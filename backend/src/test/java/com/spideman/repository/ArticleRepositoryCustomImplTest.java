@@ -0,0 +1,96 @@
+package com.spideman.repository;
+
+import com.spideman.dto.ArticleSaveResult;
+import com.spideman.entity.Article;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 批量插入失败后回滚到保存点再逐条重试：已存在的文章标记为重复，其余正常保存
+ */
+class ArticleRepositoryCustomImplTest {
+    
+    private JdbcTemplate jdbcTemplate;
+    private ArticleRepositoryCustomImpl repository;
+    
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE articles (" +
+            "id BIGINT AUTO_INCREMENT PRIMARY KEY, title VARCHAR(500) NOT NULL, title_zh VARCHAR(500), " +
+            "summary TEXT, summary_zh TEXT, url VARCHAR(1000) NOT NULL UNIQUE, source VARCHAR(200), author VARCHAR(200), " +
+            "publish_time TIMESTAMP, crawl_time TIMESTAMP, created_at TIMESTAMP, updated_at TIMESTAMP, " +
+            "likes INT, views INT, tags VARCHAR(500), status VARCHAR(20))");
+        jdbcTemplate.execute("CREATE TABLE article_contents (" +
+            "article_id BIGINT PRIMARY KEY, content TEXT, content_zh TEXT, updated_at TIMESTAMP)");
+        repository = new ArticleRepositoryCustomImpl(jdbcTemplate);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+    
+    @Test
+    void batchInsertSavesAllArticlesWhenNoneExist() {
+        List<ArticleSaveResult> results = repository.batchInsert(Arrays.asList(article("a"), article("b")));
+        
+        assertThat(results).extracting(ArticleSaveResult::getOutcome)
+            .containsExactly(ArticleSaveResult.Outcome.SAVED, ArticleSaveResult.Outcome.SAVED);
+        assertThat(countArticles()).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM article_contents", Integer.class)).isEqualTo(2);
+    }
+    
+    @Test
+    void batchInsertFallsBackToSingleRowsAndMarksExistingUrlAsDuplicate() {
+        repository.batchInsert(Arrays.asList(article("b")));
+        
+        List<ArticleSaveResult> results = repository.batchInsert(Arrays.asList(article("a"), article("b"), article("c")));
+        
+        assertThat(results).extracting(ArticleSaveResult::getUrl)
+            .containsExactly(url("a"), url("b"), url("c"));
+        assertThat(results).extracting(ArticleSaveResult::getOutcome)
+            .containsExactly(ArticleSaveResult.Outcome.SAVED, ArticleSaveResult.Outcome.DUPLICATE,
+                ArticleSaveResult.Outcome.SAVED);
+        assertThat(countArticles()).isEqualTo(3);
+        // 正文与文章一一对应，重复文章没有写入第二份正文
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM article_contents", Integer.class)).isEqualTo(3);
+    }
+    
+    @Test
+    void batchInsertMarksDuplicateWithinSameBatch() {
+        List<ArticleSaveResult> results = repository.batchInsert(Arrays.asList(article("a"), article("a")));
+        
+        assertThat(results).extracting(ArticleSaveResult::getOutcome)
+            .containsExactly(ArticleSaveResult.Outcome.SAVED, ArticleSaveResult.Outcome.DUPLICATE);
+        assertThat(countArticles()).isEqualTo(1);
+    }
+    
+    private int countArticles() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM articles", Integer.class);
+    }
+    
+    private static Article article(String name) {
+        Article article = new Article();
+        article.setTitle("Article " + name);
+        article.setUrl(url(name));
+        article.setSource("test");
+        article.setContent("content " + name);
+        return article;
+    }
+    
+    private static String url(String name) {
+        return "https://example.com/" + name;
+    }
+}
@@ -0,0 +1,107 @@
+package com.spideman.service;
+
+import com.spideman.entity.Article;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AlibabaAIServiceTest {
+    
+    @Test
+    void estimateTokensCountsHanCharactersIndividually() {
+        assertThat(AlibabaAIService.estimateTokens("")).isEqualTo(1);
+        assertThat(AlibabaAIService.estimateTokens("abcdefgh")).isEqualTo(3);
+        assertThat(AlibabaAIService.estimateTokens("技术日报")).isEqualTo(5);
+    }
+    
+    @Test
+    void emptyInputProducesNoChunks() {
+        assertThat(AlibabaAIService.chunkByTokens(Collections.<Article>emptyList(),
+            Collections.<AlibabaAIService.Candidate>emptyList(), 1000)).isEmpty();
+    }
+    
+    @Test
+    void chunksRespectTokenBudgetAndKeepOrder() {
+        List<Article> articles = articles(40, 400);
+        List<AlibabaAIService.Candidate> candidates = candidates(articles);
+        int maxTokens = 1000;
+        
+        List<List<AlibabaAIService.Candidate>> chunks = AlibabaAIService.chunkByTokens(articles, candidates, maxTokens);
+        
+        assertThat(chunks.size()).isGreaterThan(1);
+        List<Integer> indexes = new ArrayList<>();
+        for (List<AlibabaAIService.Candidate> chunk : chunks) {
+            assertThat(chunk).isNotEmpty();
+            int tokens = 0;
+            for (AlibabaAIService.Candidate candidate : chunk) {
+                indexes.add(candidate.articleIndex);
+                tokens += AlibabaAIService.estimateTokens(candidate.summary);
+            }
+            assertThat(tokens).isLessThanOrEqualTo(maxTokens);
+        }
+        // 每篇文章恰好出现一次，顺序不变
+        for (int i = 0; i < articles.size(); i++) {
+            assertThat(indexes.get(i)).isEqualTo(i);
+        }
+        assertThat(indexes).hasSize(articles.size());
+    }
+    
+    @Test
+    void oversizedArticleGetsItsOwnChunk() {
+        List<Article> articles = articles(3, 100);
+        articles.get(1).setSummary(repeat('x', 20_000));
+        
+        List<List<AlibabaAIService.Candidate>> chunks = AlibabaAIService.chunkByTokens(articles, candidates(articles), 1000);
+        
+        assertThat(chunks).hasSize(3);
+        assertThat(chunks.get(1)).hasSize(1);
+        assertThat(chunks.get(1).get(0).articleIndex).isEqualTo(1);
+    }
+    
+    @Test
+    void candidateSummaryIsUsedInsteadOfArticleSummary() {
+        List<Article> articles = articles(10, 4_000);
+        List<AlibabaAIService.Candidate> shortened = new ArrayList<>();
+        for (int i = 0; i < articles.size(); i++) {
+            shortened.add(new AlibabaAIService.Candidate(i, "short summary " + i));
+        }
+        
+        // 下一轮使用上一轮筛选出的短摘要，全部可以放进一组
+        assertThat(AlibabaAIService.chunkByTokens(articles, shortened, 1000)).hasSize(1);
+        assertThat(AlibabaAIService.chunkByTokens(articles, candidates(articles), 1000)).hasSize(10);
+    }
+    
+    private static List<Article> articles(int count, int summaryLength) {
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Article article = new Article();
+            article.setTitle("Article " + i);
+            article.setSource("test");
+            article.setAuthor("author");
+            article.setUrl("https://example.com/" + i);
+            article.setSummary(repeat('a', summaryLength));
+            articles.add(article);
+        }
+        return articles;
+    }
+    
+    private static List<AlibabaAIService.Candidate> candidates(List<Article> articles) {
+        List<AlibabaAIService.Candidate> candidates = new ArrayList<>();
+        for (int i = 0; i < articles.size(); i++) {
+            candidates.add(new AlibabaAIService.Candidate(i, articles.get(i).getSummary()));
+        }
+        return candidates;
+    }
+    
+    private static String repeat(char c, int count) {
+        StringBuilder text = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            text.append(c);
+        }
+        return text.toString();
+    }
+}
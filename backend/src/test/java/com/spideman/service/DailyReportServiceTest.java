@@ -0,0 +1,93 @@
+package com.spideman.service;
+
+import com.spideman.entity.DailyReport;
+import com.spideman.repository.DailyReportRepository;
+import com.spideman.service.counter.ViewCountBuffer;
+import com.spideman.service.report.ReportGenerationCoordinator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 日报写回时的乐观锁冲突处理：手动编辑优先，其他并发修改合并后重试
+ */
+class DailyReportServiceTest {
+    
+    private final LocalDate date = LocalDate.of(2024, 3, 1);
+    
+    private DailyReportRepository repository;
+    private DailyReportService service;
+    
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        repository = mock(DailyReportRepository.class);
+        ArticleService articleService = mock(ArticleService.class);
+        when(articleService.getArticlesByDateRange(any(), any())).thenReturn(Collections.emptyList());
+        ReportGenerationCoordinator coordinator = mock(ReportGenerationCoordinator.class);
+        when(coordinator.generate(eq(date), any())).thenAnswer(inv -> ((Supplier<DailyReport>) inv.getArgument(1)).get());
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null));
+        service = new DailyReportService(repository, articleService, mock(AlibabaAIService.class),
+            mock(ViewCountBuffer.class), coordinator, transactionTemplate, mock(ApplicationEventPublisher.class));
+    }
+    
+    @Test
+    void manualEditDuringGenerationIsKept() {
+        DailyReport edited = report(2L, "管理员修改的内容");
+        when(repository.findByReportDate(date)).thenReturn(Optional.of(report(1L, "旧内容")), Optional.of(edited));
+        when(repository.save(any(DailyReport.class))).thenThrow(new ObjectOptimisticLockingFailureException(DailyReport.class, 1L));
+        
+        DailyReport result = service.generateDailyReport(date);
+        
+        assertThat(result).isSameAs(edited);
+        assertThat(result.getContent()).isEqualTo("管理员修改的内容");
+        verify(repository, times(1)).save(any(DailyReport.class));
+    }
+    
+    @Test
+    void nonContentChangeIsMergedAndRetried() {
+        DailyReport latest = report(2L, "旧内容");
+        latest.setReadCount(42);
+        latest.setStatus(DailyReport.ReportStatus.ARCHIVED);
+        when(repository.findByReportDate(date)).thenReturn(Optional.of(report(1L, "旧内容")), Optional.of(latest));
+        when(repository.save(any(DailyReport.class)))
+            .thenThrow(new ObjectOptimisticLockingFailureException(DailyReport.class, 1L))
+            .thenAnswer(inv -> inv.getArgument(0));
+        
+        DailyReport result = service.generateDailyReport(date);
+        
+        assertThat(result).isSameAs(latest);
+        assertThat(result.getSummary()).isEqualTo("今日暂无新文章采集");
+        assertThat(result.getStatus()).isEqualTo(DailyReport.ReportStatus.PUBLISHED);
+        assertThat(result.getReadCount()).isEqualTo(42);
+        verify(repository, times(2)).save(any(DailyReport.class));
+    }
+    
+    private DailyReport report(long version, String content) {
+        DailyReport report = new DailyReport();
+        report.setId(1L);
+        report.setReportDate(date);
+        report.setTitle(date + " 技术日报");
+        report.setSummary("摘要");
+        report.setContent(content);
+        report.setVersion(version);
+        return report;
+    }
+}
@@ -0,0 +1,71 @@
+package com.spideman.service.ai;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TranslationWorkerTest {
+    
+    private final TranslationWorker worker = new TranslationWorker(null, null, null, null);
+    
+    @Test
+    void parsesJsonBetweenMarkers() {
+        String output = "好的，结果如下：\n<<<BEGIN>>>\n" +
+            "[{\"id\": 1, \"titleZh\": \"标题一\", \"summaryZh\": \"摘要一\"}, {\"id\": 2, \"titleZh\": \"标题二\", \"summaryZh\": \"摘要二\"}]\n" +
+            "<<<END>>>\n以上。";
+        
+        Map<Integer, String[]> results = worker.parse(output, 2);
+        
+        assertThat(results).hasSize(2);
+        assertThat(results.get(1)).containsExactly("标题一", "摘要一");
+        assertThat(results.get(2)).containsExactly("标题二", "摘要二");
+    }
+    
+    @Test
+    void parsesBareJsonArrayWithoutMarkers() {
+        Map<Integer, String[]> results = worker.parse("```json\n[{\"id\": 1, \"titleZh\": \" 标题 \"}]\n```", 1);
+        
+        assertThat(results).hasSize(1);
+        assertThat(results.get(1)).containsExactly("标题", null);
+    }
+    
+    @Test
+    void skipsOutOfRangeDuplicateAndEmptyItems() {
+        String output = "<<<BEGIN>>>[" +
+            "{\"id\": 0, \"titleZh\": \"越界\"}," +
+            "{\"id\": 4, \"titleZh\": \"越界\"}," +
+            "{\"id\": 1, \"titleZh\": \"第一项\", \"summaryZh\": \"\"}," +
+            "{\"id\": 1, \"titleZh\": \"重复\"}," +
+            "{\"id\": 2, \"titleZh\": \"\"}," +
+            "{\"id\": 3, \"titleZh\": \"第三项\", \"summaryZh\": \"摘要\"}" +
+            "]<<<END>>>";
+        
+        Map<Integer, String[]> results = worker.parse(output, 3);
+        
+        assertThat(results).containsOnlyKeys(1, 3);
+        assertThat(results.get(1)).containsExactly("第一项", null);
+        assertThat(results.get(3)).containsExactly("第三项", "摘要");
+    }
+    
+    @Test
+    void truncatesOverlongTitle() {
+        StringBuilder title = new StringBuilder();
+        for (int i = 0; i < 600; i++) {
+            title.append('长');
+        }
+        
+        Map<Integer, String[]> results = worker.parse("[{\"id\": 1, \"titleZh\": \"" + title + "\"}]", 1);
+        
+        assertThat(results.get(1)[0]).hasSize(500);
+    }
+    
+    @Test
+    void returnsNullWhenNothingMatches() {
+        assertThat(worker.parse("抱歉，我无法完成翻译。", 2)).isNull();
+        assertThat(worker.parse("<<<BEGIN>>>[{\"id\": 1, \"title\": \"wrong field\"}]<<<END>>>", 2)).isNull();
+        assertThat(worker.parse("<<<BEGIN>>>[{\"id\": 1, \"titleZh\": <<<END>>>", 2)).isNull();
+        assertThat(worker.parse("[]", 2)).isNull();
+    }
+}
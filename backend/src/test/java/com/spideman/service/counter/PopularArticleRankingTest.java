@@ -0,0 +1,176 @@
+package com.spideman.service.counter;
+
+import com.spideman.dto.ArticleDTO;
+import com.spideman.entity.Article;
+import com.spideman.entity.VisitRecord;
+import com.spideman.repository.ArticleRepository;
+import com.spideman.repository.VisitHourlyRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 前向衰减排行：累计榜按总浏览量，衰减榜按浏览发生的时间加权
+ */
+class PopularArticleRankingTest {
+    
+    private ArticleRepository articleRepository;
+    private VisitHourlyRollupRepository visitHourlyRollupRepository;
+    private PopularArticleRanking ranking;
+    
+    /**
+     * 文章1：累计浏览多但集中在 5 天前（详情页）；文章2：累计较少但集中在 1 小时前（详情接口）；文章3：没有浏览
+     */
+    private final List<Object[]> views = Arrays.asList(
+        new Object[]{1L, 100}, new Object[]{2L, 50}, new Object[]{3L, 0});
+    private final List<Object[]> history = Arrays.asList(
+        new Object[]{"/article/1", LocalDateTime.now().minusDays(5), 40L},
+        new Object[]{"/api/articles/2", LocalDateTime.now().minusHours(1), 3L},
+        new Object[]{"/article/999", LocalDateTime.now().minusHours(1), 1000L},
+        new Object[]{"/article/list", LocalDateTime.now().minusHours(1), 1000L});
+    
+    @BeforeEach
+    void setUp() {
+        articleRepository = mock(ArticleRepository.class);
+        visitHourlyRollupRepository = mock(VisitHourlyRollupRepository.class);
+        ranking = new PopularArticleRanking(articleRepository, visitHourlyRollupRepository, mock(ViewCountBuffer.class));
+        ReflectionTestUtils.setField(ranking, "topK", 10);
+        ReflectionTestUtils.setField(ranking, "windowMargin", 5);
+        ReflectionTestUtils.setField(ranking, "todayHalfLifeHours", 6.0);
+        ReflectionTestUtils.setField(ranking, "weekHalfLifeHours", 48.0);
+        
+        when(articleRepository.findViewsByStatus(Article.ArticleStatus.PUBLISHED)).thenReturn(views);
+        when(visitHourlyRollupRepository.findPathViewsSince(eq(VisitRecord.PageType.ARTICLE_DETAIL), any(LocalDate.class)))
+            .thenReturn(history);
+        when(articleRepository.findCardsByIdIn(anyCollection())).thenAnswer(invocation -> {
+            List<ArticleDTO> cards = new ArrayList<>();
+            for (Object id : invocation.<Collection<?>>getArgument(0)) {
+                ArticleDTO card = new ArticleDTO();
+                card.setId((Long) id);
+                card.setTitle("Article " + id);
+                cards.add(card);
+            }
+            return cards;
+        });
+    }
+    
+    @Test
+    void windowsOrderByTotalAndByRecency() {
+        ranking.rebuild();
+        
+        assertThat(ranking.isReady()).isTrue();
+        assertThat(ids(PopularArticleRanking.Window.ALL_TIME)).containsExactly(1L, 2L, 3L);
+        // 40 次浏览衰减 5 天（半衰期 48 小时）仍高于 1 小时前的 3 次
+        assertThat(ids(PopularArticleRanking.Window.WEEK)).containsExactly(1L, 2L, 3L);
+        // 半衰期 6 小时时 5 天前的浏览几乎归零
+        assertThat(ids(PopularArticleRanking.Window.TODAY)).containsExactly(2L, 1L, 3L);
+    }
+    
+    @Test
+    void liveViewsMoveArticleUpImmediately() {
+        ranking.rebuild();
+        
+        for (int i = 0; i < 5; i++) {
+            ranking.recordView(3L);
+        }
+        ranking.refresh();
+        
+        assertThat(ids(PopularArticleRanking.Window.TODAY).get(0)).isEqualTo(3L);
+        assertThat(ids(PopularArticleRanking.Window.ALL_TIME)).containsExactly(1L, 2L, 3L);
+        assertThat(ranking.getTop(PopularArticleRanking.Window.ALL_TIME, 10).get(2).getViews()).isEqualTo(5);
+    }
+    
+    @Test
+    void viewsOfUntrackedArticlesAreIgnored() {
+        ranking.rebuild();
+        
+        ranking.recordView(999L);
+        ranking.recordView(null);
+        ranking.refresh();
+        
+        assertThat(ids(PopularArticleRanking.Window.ALL_TIME)).containsExactly(1L, 2L, 3L);
+    }
+    
+    @Test
+    void viewsRecordedDuringRebuildAreReplayed() {
+        ranking.rebuild();
+        
+        // 重建读库期间文章3收到浏览：先记入旧榜单，替换后补记到新榜单
+        when(visitHourlyRollupRepository.findPathViewsSince(eq(VisitRecord.PageType.ARTICLE_DETAIL), any(LocalDate.class)))
+            .thenAnswer(invocation -> {
+                for (int i = 0; i < 5; i++) {
+                    ranking.recordView(3L);
+                }
+                return history;
+            });
+        ranking.rebuild();
+        
+        assertThat(ids(PopularArticleRanking.Window.TODAY).get(0)).isEqualTo(3L);
+        assertThat(ranking.getTop(PopularArticleRanking.Window.ALL_TIME, 10).get(2).getViews()).isEqualTo(5);
+        
+        // 重建完成后的浏览直接记入新榜单，不重复补记
+        ranking.recordView(3L);
+        ranking.refresh();
+        assertThat(ranking.getTop(PopularArticleRanking.Window.ALL_TIME, 10).get(2).getViews()).isEqualTo(6);
+    }
+    
+    @Test
+    void unpublishedArticleLeavesRanking() {
+        ranking.rebuild();
+        
+        ranking.updateStatus(1L, Article.ArticleStatus.PENDING, 100);
+        ranking.refresh();
+        
+        assertThat(ids(PopularArticleRanking.Window.ALL_TIME)).containsExactly(2L, 3L);
+        assertThat(ids(PopularArticleRanking.Window.TODAY)).doesNotContain(1L);
+    }
+    
+    @Test
+    void decayedWindowsKeepOnlyTopKPlusMargin() {
+        List<Object[]> manyViews = new ArrayList<>();
+        List<Object[]> manyHistory = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            manyViews.add(new Object[]{id, id});
+            manyHistory.add(new Object[]{"/article/" + id, LocalDateTime.now().minusHours(1), id});
+        }
+        when(articleRepository.findViewsByStatus(Article.ArticleStatus.PUBLISHED)).thenReturn(manyViews);
+        when(visitHourlyRollupRepository.findPathViewsSince(eq(VisitRecord.PageType.ARTICLE_DETAIL), any(LocalDate.class)))
+            .thenReturn(manyHistory);
+        
+        ranking.rebuild();
+        
+        assertThat(ranking.getStatistics()).containsEntry("ALL_TIME", 100)
+            .containsEntry("TODAY", 15).containsEntry("WEEK", 15);
+        assertThat(ids(PopularArticleRanking.Window.TODAY)).startsWith(100L, 99L, 98L);
+        
+        // 被淘汰的文章收到足够多的浏览后重新进入榜单，刷新后榜单仍不超过上限
+        for (int i = 0; i < 200; i++) {
+            ranking.recordView(1L);
+        }
+        ranking.refresh();
+        assertThat(ids(PopularArticleRanking.Window.TODAY).get(0)).isEqualTo(1L);
+        assertThat(ranking.getStatistics()).containsEntry("TODAY", 15).containsEntry("ALL_TIME", 100);
+    }
+    
+    private List<Long> ids(PopularArticleRanking.Window window) {
+        List<Long> ids = new ArrayList<>();
+        for (ArticleDTO article : ranking.getTop(window, 10)) {
+            ids.add(article.getId());
+        }
+        return ids;
+    }
+}
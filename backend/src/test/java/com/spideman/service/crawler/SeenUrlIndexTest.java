@@ -0,0 +1,175 @@
+package com.spideman.service.crawler;
+
+import com.spideman.repository.ArticleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SeenUrlIndexTest {
+    
+    private static final int STORED_URLS = 1000;
+    
+    private ArticleRepository articleRepository;
+    private SeenUrlIndex index;
+    
+    @BeforeEach
+    void setUp() {
+        articleRepository = mock(ArticleRepository.class);
+        index = new SeenUrlIndex(articleRepository);
+        ReflectionTestUtils.setField(index, "expectedUrls", 10_000L);
+        ReflectionTestUtils.setField(index, "falsePositiveRate", 0.001);
+        ReflectionTestUtils.setField(index, "lruSize", 100);
+        index.init();
+    }
+    
+    @Test
+    void beforeWarmUpEveryUnknownUrlIsCheckedInDatabase() {
+        assertThat(index.isDefinitelyNew(storedUrl(1))).isFalse();
+        assertThat(index.isLikelySeen(storedUrl(1))).isFalse();
+        verify(articleRepository).existsByUrl(storedUrl(1));
+    }
+    
+    @Test
+    void warmedUpFilterHasNoFalseNegatives() {
+        warmUp();
+        
+        for (int i = 0; i < STORED_URLS; i++) {
+            assertThat(index.isDefinitelyNew(storedUrl(i))).as(storedUrl(i)).isFalse();
+        }
+    }
+    
+    @Test
+    void warmedUpFilterRejectsMostUnknownUrls() {
+        warmUp();
+        
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (!index.isDefinitelyNew("https://example.com/new/" + i)) {
+                falsePositives++;
+            }
+        }
+        // 期望误判率 0.1%，这里只给出宽松上限避免偶发失败
+        assertThat(falsePositives).isLessThan(50);
+    }
+    
+    @Test
+    void bloomNegativeSkipsDatabaseLookup() {
+        warmUp();
+        String url = firstDefinitelyNewUrl();
+        
+        assertThat(index.isLikelySeen(url)).isFalse();
+        verify(articleRepository, never()).existsByUrl(anyString());
+    }
+    
+    @Test
+    void bloomHitIsConfirmedInDatabaseAndThenServedFromLru() {
+        warmUp();
+        when(articleRepository.existsByUrl(storedUrl(7))).thenReturn(true);
+        
+        assertThat(index.isLikelySeen(storedUrl(7))).isTrue();
+        assertThat(index.isLikelySeen(storedUrl(7))).isTrue();
+        verify(articleRepository, times(1)).existsByUrl(storedUrl(7));
+    }
+    
+    @Test
+    void bloomHitForDeletedArticleIsNotSkipped() {
+        warmUp();
+        when(articleRepository.existsByUrl(storedUrl(8))).thenReturn(false);
+        
+        assertThat(index.isLikelySeen(storedUrl(8))).isFalse();
+    }
+    
+    @Test
+    void markSeenAndForgetUpdateExactCache() {
+        String url = "https://example.com/marked";
+        index.markSeen(url);
+        assertThat(index.isConfirmedSeen(url)).isTrue();
+        
+        index.forget(url);
+        assertThat(index.isConfirmedSeen(url)).isFalse();
+    }
+    
+    @Test
+    void markSeenInTransactionWaitsForCommit() {
+        String url = "https://example.com/pending";
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.markSeen(url);
+            assertThat(index.isConfirmedSeen(url)).isFalse();
+            
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(index.isConfirmedSeen(url)).isTrue();
+    }
+    
+    @Test
+    void markSeenInRolledBackTransactionIsDiscarded() {
+        String url = "https://example.com/rolled-back";
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.markSeen(url);
+        } finally {
+            // 回滚时不会调用 afterCommit
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(index.isConfirmedSeen(url)).isFalse();
+    }
+    
+    @Test
+    void urlsMarkedDuringWarmUpSurviveFilterSwap() {
+        String markedDuringWarmUp = "https://example.com/marked-during-warm-up";
+        // 数据量超过预期容量，预热时会换成新的过滤器
+        when(articleRepository.count()).thenReturn(20_000L);
+        when(articleRepository.findUrlsAfterId(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            index.markSeen(markedDuringWarmUp);
+            return Collections.<Object[]>emptyList();
+        });
+        
+        index.warmUp();
+        
+        assertThat(index.isDefinitelyNew(markedDuringWarmUp)).isFalse();
+    }
+    
+    private void warmUp() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < STORED_URLS; i++) {
+            rows.add(new Object[]{(long) i + 1, storedUrl(i)});
+        }
+        when(articleRepository.count()).thenReturn((long) STORED_URLS);
+        when(articleRepository.findUrlsAfterId(anyLong(), any(Pageable.class)))
+            .thenReturn(rows, Collections.<Object[]>emptyList());
+        index.warmUp();
+    }
+    
+    private String firstDefinitelyNewUrl() {
+        for (int i = 0; ; i++) {
+            String url = "https://example.com/new/" + i;
+            if (index.isDefinitelyNew(url)) {
+                return url;
+            }
+        }
+    }
+    
+    private static String storedUrl(int i) {
+        return "https://example.com/article/" + i;
+    }
+}
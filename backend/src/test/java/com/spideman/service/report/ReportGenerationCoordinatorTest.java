@@ -0,0 +1,115 @@
+package com.spideman.service.report;
+
+import com.spideman.entity.DailyReport;
+import com.spideman.repository.DailyReportRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 日报生成租约：持有期间续期、不把自己当作其他持有者、被接管后拒绝写回
+ */
+class ReportGenerationCoordinatorTest {
+    
+    private final LocalDate date = LocalDate.of(2024, 3, 1);
+    private final String leaseKey = "daily-report:" + date;
+    
+    private JdbcTemplate jdbcTemplate;
+    private ReportGenerationCoordinator coordinator;
+    
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE report_generation_leases (lease_key VARCHAR(64) PRIMARY KEY, " +
+            "owner VARCHAR(100) NOT NULL, acquired_at TIMESTAMP NOT NULL, expires_at TIMESTAMP NOT NULL)");
+        coordinator = new ReportGenerationCoordinator(jdbcTemplate, mock(DailyReportRepository.class));
+        ReflectionTestUtils.setField(coordinator, "leaseSeconds", 60L);
+        ReflectionTestUtils.setField(coordinator, "leasePollMillis", 10L);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+    
+    @Test
+    void ownLeaseIsNotReportedAsHeldByOthers() {
+        DailyReport result = coordinator.generate(date, () -> {
+            assertThat(coordinator.isLeasedByOthers(date)).isFalse();
+            coordinator.lockLease(date);
+            return new DailyReport();
+        });
+        
+        assertThat(result).isNotNull();
+        assertThat(leaseCount()).isZero();
+    }
+    
+    @Test
+    void leaseHeldByAnotherInstanceIsReported() {
+        insertLease("other-instance", LocalDateTime.now().plusMinutes(5));
+        
+        assertThat(coordinator.isLeasedByOthers(date)).isTrue();
+        assertThatThrownBy(() -> coordinator.lockLease(date)).isInstanceOf(ReportLeaseLostException.class);
+    }
+    
+    @Test
+    void heartbeatExtendsLeaseWhileGenerating() {
+        coordinator.generate(date, () -> {
+            // 模拟生成耗时接近租约时长：把过期时间拨到即将到期
+            jdbcTemplate.update("UPDATE report_generation_leases SET expires_at = ? WHERE lease_key = ?",
+                Timestamp.valueOf(LocalDateTime.now().plusSeconds(1)), leaseKey);
+            
+            coordinator.renewLeases();
+            
+            assertThat(expiresAt()).isAfter(LocalDateTime.now().plusSeconds(30));
+            return new DailyReport();
+        });
+    }
+    
+    @Test
+    void takenOverLeaseIsNotRenewedAndRejectsSave() {
+        coordinator.generate(date, () -> {
+            // 租约过期后被其他实例接管
+            jdbcTemplate.update("UPDATE report_generation_leases SET owner = 'other-instance' WHERE lease_key = ?", leaseKey);
+            LocalDateTime othersExpiry = expiresAt();
+            
+            coordinator.renewLeases();
+            
+            assertThat(expiresAt()).isEqualTo(othersExpiry);
+            assertThat(coordinator.isLeasedByOthers(date)).isTrue();
+            assertThatThrownBy(() -> coordinator.lockLease(date)).isInstanceOf(ReportLeaseLostException.class);
+            return new DailyReport();
+        });
+        
+        // 释放时只删除自己的租约，不影响接管者
+        assertThat(leaseCount()).isEqualTo(1);
+    }
+    
+    private void insertLease(String owner, LocalDateTime expiresAt) {
+        jdbcTemplate.update("INSERT INTO report_generation_leases (lease_key, owner, acquired_at, expires_at) VALUES (?, ?, ?, ?)",
+            leaseKey, owner, Timestamp.valueOf(LocalDateTime.now()), Timestamp.valueOf(expiresAt));
+    }
+    
+    private LocalDateTime expiresAt() {
+        return jdbcTemplate.queryForObject("SELECT expires_at FROM report_generation_leases WHERE lease_key = ?",
+            Timestamp.class, leaseKey).toLocalDateTime();
+    }
+    
+    private int leaseCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM report_generation_leases", Integer.class);
+    }
+}
@@ -0,0 +1,128 @@
+package com.spideman.service.visit;
+
+import com.spideman.entity.VisitRecord;
+import com.spideman.repository.VisitRecordPartitionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 原始访问记录、当日统计和小时汇总在同一事务中写入
+ */
+class VisitRecordWriterTest {
+    
+    private final LocalDateTime visitTime = LocalDateTime.now().withMinute(10);
+    
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private VisitRecordPartitionRepository partitionRepository;
+    private UniqueVisitorTracker uniqueVisitorTracker;
+    
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        jdbcTemplate.execute("CREATE TABLE visit_records (" +
+            "id BIGINT AUTO_INCREMENT PRIMARY KEY, ip_address VARCHAR(45) NOT NULL, user_agent VARCHAR(500), " +
+            "page_path VARCHAR(500) NOT NULL, page_type VARCHAR(30) NOT NULL, referer VARCHAR(500), " +
+            "visit_time TIMESTAMP NOT NULL, session_id VARCHAR(100))");
+        jdbcTemplate.execute("CREATE TABLE visit_statistics (" +
+            "id BIGINT AUTO_INCREMENT PRIMARY KEY, visit_date DATE NOT NULL UNIQUE, page_views BIGINT DEFAULT 0, " +
+            "unique_visitors BIGINT DEFAULT 0, home_visits BIGINT DEFAULT 0, report_visits BIGINT DEFAULT 0, " +
+            "article_visits BIGINT DEFAULT 0, uv_sketches BLOB, created_at TIMESTAMP, updated_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE visit_hourly_rollups (" +
+            "id BIGINT AUTO_INCREMENT PRIMARY KEY, bucket_start TIMESTAMP NOT NULL, bucket_date DATE NOT NULL, " +
+            "page_type VARCHAR(30) NOT NULL, page_path VARCHAR(500) NOT NULL, page_views BIGINT NOT NULL DEFAULT 0, " +
+            "updated_at TIMESTAMP NOT NULL, CONSTRAINT uk_rollup_bucket UNIQUE (bucket_start, page_type, page_path))");
+        partitionRepository = new VisitRecordPartitionRepository(jdbcTemplate);
+        uniqueVisitorTracker = new UniqueVisitorTracker(jdbcTemplate);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+    
+    @Test
+    void writesRawRecordsStatisticsAndRollupsTogether() {
+        VisitRecordWriter writer = writer(new VisitRollupStore(jdbcTemplate));
+        writer.offer(visit("10.0.0.1", VisitRecord.PageType.HOME, "/"));
+        writer.offer(visit("10.0.0.2", VisitRecord.PageType.ARTICLE_DETAIL, "/article/1"));
+        writer.offer(visit("10.0.0.1", VisitRecord.PageType.ARTICLE_DETAIL, "/article/1"));
+        
+        writer.drain();
+        
+        assertThat(rawCount()).isEqualTo(3);
+        assertThat(statistic("page_views")).isEqualTo(3L);
+        assertThat(statistic("home_visits")).isEqualTo(1L);
+        assertThat(statistic("article_visits")).isEqualTo(2L);
+        assertThat(statistic("unique_visitors")).isEqualTo(2L);
+        assertThat(rollupTotal()).isEqualTo(3L);
+        assertThat(writer.getStatistics().get("written")).isEqualTo(3L);
+    }
+    
+    @Test
+    void failedRollupRollsBackWholeBatch() {
+        VisitRecordWriter writer = writer(new VisitRollupStore(jdbcTemplate) {
+            @Override
+            public void apply(List<VisitRecord> records) {
+                throw new DataAccessResourceFailureException("rollup unavailable");
+            }
+        });
+        writer.offer(visit("10.0.0.1", VisitRecord.PageType.HOME, "/"));
+        writer.offer(visit("10.0.0.2", VisitRecord.PageType.HOME, "/"));
+        
+        writer.drain();
+        
+        // 原始记录和当日统计随汇总一起回滚，不会只留下一部分
+        assertThat(rawCount()).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM visit_statistics", Integer.class)).isZero();
+        assertThat(rollupTotal()).isZero();
+        assertThat(writer.getStatistics().get("written")).isEqualTo(0L);
+    }
+    
+    private VisitRecordWriter writer(VisitRollupStore rollupStore) {
+        VisitRecordWriter writer = new VisitRecordWriter(jdbcTemplate, transactionTemplate, partitionRepository,
+            uniqueVisitorTracker, rollupStore);
+        ReflectionTestUtils.setField(writer, "queueCapacity", 100);
+        ReflectionTestUtils.setField(writer, "batchSize", 100);
+        return writer;
+    }
+    
+    private int rawCount() {
+        return (int) partitionRepository.countPageViewsBetween(visitTime.minusDays(1), visitTime.plusDays(1));
+    }
+    
+    private Long statistic(String column) {
+        return jdbcTemplate.queryForObject("SELECT " + column + " FROM visit_statistics WHERE visit_date = ?", Long.class,
+            java.sql.Date.valueOf(visitTime.toLocalDate()));
+    }
+    
+    private long rollupTotal() {
+        Long total = jdbcTemplate.queryForObject("SELECT SUM(page_views) FROM visit_hourly_rollups WHERE page_path = '*'", Long.class);
+        return total != null ? total : 0;
+    }
+    
+    private VisitRecord visit(String ip, VisitRecord.PageType pageType, String path) {
+        VisitRecord record = new VisitRecord();
+        record.setIpAddress(ip);
+        record.setPageType(pageType);
+        record.setPagePath(path);
+        record.setVisitTime(visitTime);
+        return record;
+    }
+}
@@ -0,0 +1,113 @@
+package com.spideman.service.visit;
+
+import com.spideman.entity.VisitRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 小时汇总增量写入：新建、累加，以及批量插入与其他实例并发冲突时不重复累加
+ */
+class VisitRollupStoreTest {
+    
+    private static final LocalDateTime HOUR = LocalDateTime.of(2024, 5, 1, 10, 0);
+    
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE visit_hourly_rollups (" +
+            "id BIGINT AUTO_INCREMENT PRIMARY KEY, bucket_start TIMESTAMP NOT NULL, bucket_date DATE NOT NULL, " +
+            "page_type VARCHAR(30) NOT NULL, page_path VARCHAR(500) NOT NULL, page_views BIGINT NOT NULL DEFAULT 0, " +
+            "updated_at TIMESTAMP NOT NULL, CONSTRAINT uk_rollup_bucket UNIQUE (bucket_start, page_type, page_path))");
+    }
+    
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+    
+    @Test
+    void insertsNewRowsAndAccumulatesExistingOnes() {
+        VisitRollupStore store = new VisitRollupStore(jdbcTemplate);
+        
+        store.apply(Arrays.asList(visit("/a"), visit("/a"), visit("/b")));
+        store.apply(Arrays.asList(visit("/a")));
+        
+        assertThat(views("*")).isEqualTo(4);
+        assertThat(views("/a")).isEqualTo(3);
+        assertThat(views("/b")).isEqualTo(1);
+    }
+    
+    @Test
+    void concurrentInsertDuringBatchIsNotCountedTwice() {
+        seed("*", 5);
+        // 本实例 UPDATE 之后、批量 INSERT 之前，另一个实例插入了 /a 的汇总行
+        AtomicBoolean raced = new AtomicBoolean();
+        JdbcTemplate racing = new JdbcTemplate(new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                Connection target = super.getConnection();
+                return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if ("prepareStatement".equals(method.getName()) && ((String) args[0]).startsWith("INSERT")
+                                && raced.compareAndSet(false, true)) {
+                            seed("/a", 10);
+                        }
+                        try {
+                            return method.invoke(target, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+            }
+        });
+        
+        new VisitRollupStore(racing).apply(Arrays.asList(visit("/a"), visit("/a"), visit("/b")));
+        
+        assertThat(raced).isTrue();
+        assertThat(views("*")).isEqualTo(8);
+        assertThat(views("/a")).isEqualTo(12);
+        // 批处理中驱动可能已写入 /b，回滚到保存点后只插入一次
+        assertThat(views("/b")).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM visit_hourly_rollups", Integer.class)).isEqualTo(3);
+    }
+    
+    private void seed(String path, long pageViews) {
+        // 独立连接，模拟其他实例已提交的写入
+        jdbcTemplate.update("INSERT INTO visit_hourly_rollups (bucket_start, bucket_date, page_type, page_path, page_views, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?)", Timestamp.valueOf(HOUR), java.sql.Date.valueOf(HOUR.toLocalDate()),
+            VisitRecord.PageType.HOME.name(), path, pageViews, Timestamp.valueOf(HOUR));
+    }
+    
+    private long views(String path) {
+        return jdbcTemplate.queryForObject("SELECT page_views FROM visit_hourly_rollups WHERE page_path = ?", Long.class, path);
+    }
+    
+    private static VisitRecord visit(String path) {
+        VisitRecord record = new VisitRecord();
+        record.setIpAddress("127.0.0.1");
+        record.setPagePath(path);
+        record.setPageType(VisitRecord.PageType.HOME);
+        record.setVisitTime(HOUR.plusMinutes(15));
+        return record;
+    }
+}
@@ -0,0 +1,52 @@
+package com.spideman.service.visit;
+
+import com.spideman.entity.VisitRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class VisitorSketchesTest {
+    
+    @Test
+    void tracksSiteAndPageTypeVisitorsSeparately() {
+        VisitorSketches sketches = new VisitorSketches();
+        for (int i = 0; i < 200; i++) {
+            sketches.add("visitor-" + i, VisitRecord.PageType.HOME);
+        }
+        for (int i = 100; i < 150; i++) {
+            sketches.add("visitor-" + i, VisitRecord.PageType.ARTICLE_DETAIL);
+        }
+        
+        assertThat(sketches.estimate(VisitorSketches.ALL)).isCloseTo(200L, within(4L));
+        assertThat(sketches.estimate(VisitRecord.PageType.HOME.name())).isCloseTo(200L, within(4L));
+        assertThat(sketches.estimate(VisitRecord.PageType.ARTICLE_DETAIL.name())).isCloseTo(50L, within(2L));
+        assertThat(sketches.estimate(VisitRecord.PageType.REPORT_DETAIL.name())).isZero();
+    }
+    
+    @Test
+    void mergingStoredSketchesCountsSharedVisitorsOnce() throws IOException {
+        // 两个实例同一天分别记录的访客，有一半重叠
+        VisitorSketches local = new VisitorSketches();
+        VisitorSketches other = new VisitorSketches();
+        for (int i = 0; i < 1_000; i++) {
+            local.add("visitor-" + i, VisitRecord.PageType.HOME);
+        }
+        for (int i = 500; i < 1_500; i++) {
+            other.add("visitor-" + i, VisitRecord.PageType.REPORT_DETAIL);
+        }
+        
+        VisitorSketches stored = VisitorSketches.deserialize(other.serialize());
+        local.merge(stored);
+        
+        assertThat((double) local.estimate(VisitorSketches.ALL)).isCloseTo(1_500.0, within(75.0));
+        assertThat((double) local.estimate(VisitRecord.PageType.REPORT_DETAIL.name())).isCloseTo(1_000.0, within(50.0));
+        
+        // 重复合并同一份草图不改变结果
+        long merged = local.estimate(VisitorSketches.ALL);
+        local.merge(stored);
+        assertThat(local.estimate(VisitorSketches.ALL)).isEqualTo(merged);
+    }
+}
@@ -0,0 +1,65 @@
+package com.spideman.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+    
+    @Test
+    void emptySketchEstimatesZero() {
+        assertThat(new HyperLogLog().cardinality()).isZero();
+    }
+    
+    @Test
+    void smallCardinalityIsNearlyExact() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 100; i++) {
+            sketch.add("visitor-" + i);
+            sketch.add("visitor-" + i);
+        }
+        assertThat(sketch.cardinality()).isCloseTo(100L, within(2L));
+    }
+    
+    @Test
+    void largeCardinalityIsWithinErrorBound() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 100_000; i++) {
+            sketch.add("visitor-" + i);
+        }
+        // 标准误差约 1.6%，取 5% 作为上限
+        assertThat((double) sketch.cardinality()).isCloseTo(100_000.0, within(5_000.0));
+    }
+    
+    @Test
+    void mergeEstimatesUnionAndIsIdempotent() {
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        for (int i = 0; i < 30_000; i++) {
+            first.add("visitor-" + i);
+        }
+        for (int i = 20_000; i < 50_000; i++) {
+            second.add("visitor-" + i);
+        }
+        
+        first.merge(second);
+        long union = first.cardinality();
+        assertThat((double) union).isCloseTo(50_000.0, within(2_500.0));
+        
+        first.merge(second);
+        assertThat(first.cardinality()).isEqualTo(union);
+    }
+    
+    @Test
+    void serializedRegistersRoundTrip() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 5_000; i++) {
+            sketch.add("visitor-" + i);
+        }
+        byte[] bytes = sketch.toByteArray();
+        
+        assertThat(bytes).hasSize(HyperLogLog.sizeInBytes());
+        assertThat(HyperLogLog.fromByteArray(bytes).cardinality()).isEqualTo(sketch.cardinality());
+    }
+}
@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useCallback, useRef } from 'react';
 import { 
   Card, 
   List, 
@@ -13,30 +13,39 @@ import {
   ClockCircleOutlined,
   LinkOutlined
 } from '@ant-design/icons';
-import { Article, PageResponse } from '../types';
+import { Article, CursorResponse } from '../types';
 import { articleApi } from '../services/api';
 import dayjs from 'dayjs';
 
 const { Title, Paragraph, Text } = Typography;
 
+const PAGE_SIZE = 20;
+
 const MainContent: React.FC = () => {
   const [articles, setArticles] = useState<Article[]>([]);
   const [loading, setLoading] = useState(false);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
+  const loadingRef = useRef(false);
+  const sentinelRef = useRef<HTMLDivElement>(null);
 
-  // 获取文章数据
-  const fetchArticles = async () => {
+  // 获取文章数据：不传游标时从第一页重新加载，传入游标时追加下一页
+  const fetchArticles = useCallback(async (cursor: string | null = null) => {
+    if (loadingRef.current) return;
+    loadingRef.current = true;
     setLoading(true);
     try {
-      const response = await articleApi.getArticles({ page: 0, size: 20, status: 'PUBLISHED' });
-      const data: PageResponse<Article> = response.data;
-      setArticles(data.content);
+      const response = await articleApi.scrollArticles({ cursor, size: PAGE_SIZE, status: 'PUBLISHED' });
+      const data: CursorResponse<Article> = response.data;
+      setArticles(prev => (cursor ? [...prev, ...data.content] : data.content));
+      setNextCursor(data.nextCursor);
     } catch (error) {
       message.error('获取文章列表失败');
       console.error('获取文章失败:', error);
     } finally {
+      loadingRef.current = false;
       setLoading(false);
     }
-  };
+  }, []);
 
   const initMockData = async () => {
     setLoading(true);
@@ -54,7 +63,23 @@ const MainContent: React.FC = () => {
 
   useEffect(() => {
     fetchArticles();
-  }, []);
+  }, [fetchArticles]);
+
+  // 无限滚动：列表底部进入视口时加载下一页
+  useEffect(() => {
+    const sentinel = sentinelRef.current;
+    if (!sentinel || !nextCursor) return;
+    const observer = new IntersectionObserver(
+      (entries) => {
+        if (entries[0].isIntersecting) {
+          fetchArticles(nextCursor);
+        }
+      },
+      { rootMargin: '200px' }
+    );
+    observer.observe(sentinel);
+    return () => observer.disconnect();
+  }, [nextCursor, fetchArticles]);
 
   const formatTimeAgo = (time: string) => {
     const now = dayjs();
@@ -114,7 +139,7 @@ const MainContent: React.FC = () => {
       )}
 
       {/* 文章列表 */}
-      <Spin spinning={loading}>
+      <Spin spinning={loading && articles.length === 0}>
         <List
           dataSource={articles}
           renderItem={(article) => (
@@ -179,6 +204,18 @@ const MainContent: React.FC = () => {
           )}
         />
       </Spin>
+
+      {/* 加载更多 */}
+      <div ref={sentinelRef} style={{ textAlign: 'center', padding: '16px 0' }}>
+        {nextCursor && (
+          <Button onClick={() => fetchArticles(nextCursor)} loading={loading}>
+            加载更多
+          </Button>
+        )}
+        {!nextCursor && articles.length > 0 && (
+          <Text type="secondary">没有更多文章了</Text>
+        )}
+      </div>
     </div>
   );
 };
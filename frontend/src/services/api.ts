@@ -1,5 +1,5 @@
 import axios from 'axios';
-import { Article, PageResponse, SearchParams } from '../types';
+import { Article, CursorParams, CursorResponse, PageResponse, PopularWindow, SearchParams } from '../types';
 
 const API_BASE_URL = 'http://localhost:8080/api';
 
@@ -42,6 +42,16 @@ export const articleApi = {
     return api.get<PageResponse<Article>>(`/articles?${queryParams.toString()}`);
   },
 
+  // 游标分页获取文章列表（无限滚动），首次不传 cursor，之后传入上一页的 nextCursor
+  scrollArticles: (params: CursorParams = {}) => {
+    const queryParams = new URLSearchParams();
+    if (params.cursor) queryParams.append('cursor', params.cursor);
+    if (params.size !== undefined) queryParams.append('size', params.size.toString());
+    if (params.status) queryParams.append('status', params.status);
+    
+    return api.get<CursorResponse<Article>>(`/articles/scroll?${queryParams.toString()}`);
+  },
+
   // 根据ID获取文章
   getArticleById: (id: number) => {
     return api.get<Article>(`/articles/${id}`);
@@ -57,9 +67,9 @@ export const articleApi = {
     return api.get<Article[]>('/articles/today');
   },
 
-  // 获取热门文章
-  getPopularArticles: () => {
-    return api.get<Article[]>('/articles/popular');
+  // 获取热门文章：all 累计、today 今日热榜、week 本周热榜
+  getPopularArticles: (range: PopularWindow = 'all') => {
+    return api.get<Article[]>(`/articles/popular?window=${range}`);
   },
 
   // 初始化模拟数据
@@ -25,6 +25,14 @@ export interface PageResponse<T> {
   last: boolean;
 }
 
+// 游标分页结果：nextCursor 为 null 表示没有更多数据
+export interface CursorResponse<T> {
+  content: T[];
+  nextCursor: string | null;
+  hasNext: boolean;
+  empty: boolean;
+}
+
 export interface DailyReport {
   id: number;
   reportDate: string;
@@ -45,4 +53,13 @@ export interface SearchParams {
   page?: number;
   size?: number;
   status?: string;
+}
+
+// 热门文章榜单
+export type PopularWindow = 'all' | 'today' | 'week';
+
+export interface CursorParams {
+  cursor?: string | null;
+  size?: number;
+  status?: string;
 } 
\ No newline at end of file